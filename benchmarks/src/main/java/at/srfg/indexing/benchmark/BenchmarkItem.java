@@ -0,0 +1,61 @@
+package at.srfg.indexing.benchmark;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import at.srfg.indexing.model.common.ICustomPropertyAware;
+import at.srfg.indexing.model.common.PropertyType;
+/**
+ * Minimal {@link ICustomPropertyAware} implementation, the maps are 
+ * initialized the same way the indexed document classes do.
+ */
+public class BenchmarkItem implements ICustomPropertyAware {
+	private final String uri;
+	private final Map<String, Collection<Integer>> customIntValues = new HashMap<>();
+	private final Map<String, Collection<Double>> customDoubleValues = new HashMap<>();
+	private final Map<String, Collection<String>> customStringValues = new HashMap<>();
+	private final Map<String, Boolean> customBooleanValue = new HashMap<>();
+	private final Map<String, String> customPropertyKeys = new HashMap<>();
+	private final Map<String, PropertyType> customProperties = new HashMap<>();
+	
+	public BenchmarkItem(String uri) {
+		this.uri = uri;
+	}
+
+	@Override
+	public String getUri() {
+		return uri;
+	}
+
+	@Override
+	public Map<String, Collection<Integer>> getCustomIntValues() {
+		return customIntValues;
+	}
+
+	@Override
+	public Map<String, Collection<Double>> getCustomDoubleValues() {
+		return customDoubleValues;
+	}
+
+	@Override
+	public Map<String, Collection<String>> getCustomStringValues() {
+		return customStringValues;
+	}
+
+	@Override
+	public Map<String, Boolean> getCustomBooleanValue() {
+		return customBooleanValue;
+	}
+
+	@Override
+	public Map<String, String> getCustomPropertyKeys() {
+		return customPropertyKeys;
+	}
+
+	@Override
+	public Map<String, PropertyType> getCustomProperties() {
+		return customProperties;
+	}
+
+}
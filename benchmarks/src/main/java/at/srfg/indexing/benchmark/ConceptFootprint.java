@@ -0,0 +1,105 @@
+package at.srfg.indexing.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import at.srfg.indexing.model.common.Concept;
+import at.srfg.indexing.model.common.PropertyType;
+/**
+ * Memory footprint of {@link Concept} labeling, measured with JOL. 
+ * <p>
+ * Compares {@link PropertyType} instances with the same labeling stored in
+ * plain {@link HashMap}s and {@link HashSet}s (the former storage of {@link Concept}).
+ * The label texts are shared by both variants and excluded from the comparison.
+ * </p>
+ * Run with <code>java -cp target/benchmarks.jar at.srfg.indexing.benchmark.ConceptFootprint [count]</code>
+ */
+public class ConceptFootprint {
+	/**
+	 * Labeling as stored formerly by {@link Concept}
+	 */
+	static class HashMapLabels {
+		Collection<String> languages = new HashSet<>();
+		Map<String, String> label = new HashMap<>();
+		Map<String, Collection<String>> alternateLabel = new HashMap<>();
+		Map<String, Collection<String>> hiddenLabel = new HashMap<>();
+		Map<String, String> description = new HashMap<>();
+		Map<String, String> comment;
+	}
+	
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		List<String> texts = new ArrayList<>();
+		List<PropertyType> compact = new ArrayList<>(count);
+		List<HashMapLabels> hashed = new ArrayList<>(count);
+		
+		for (int i = 0; i < count; i++) {
+			PropertyType property = new PropertyType();
+			HashMapLabels labels = new HashMapLabels();
+			for (int l = 0; l < Corpus.LANGUAGES.length; l++) {
+				// new language string per concept, as delivered by the parser
+				String language = new String(Corpus.LANGUAGES[l]);
+				String label = Corpus.PROPERTY_NAMES[i % Corpus.PROPERTY_NAMES.length] + " " + i + " " + language;
+				String description = "Description of " + label;
+				String alternate = "Alternate " + label;
+				texts.add(label);
+				texts.add(description);
+				texts.add(alternate);
+				property.setLabel(label, language);
+				property.addDescription(language, description);
+				property.addAlternateLabel(language, alternate);
+				labels.languages.add(language);
+				labels.label.put(language, label);
+				labels.description.put(language, description);
+				labels.alternateLabel.computeIfAbsent(language, k -> new HashSet<>()).add(alternate);
+				if ( l == 0 ) {
+					String hidden = "Hidden " + label;
+					texts.add(hidden);
+					property.addHiddenLabel(language, hidden);
+					labels.hiddenLabel.computeIfAbsent(language, k -> new HashSet<>()).add(hidden);
+				}
+			}
+			compact.add(property);
+			hashed.add(labels);
+		}
+		long textSize = GraphLayout.parseInstance(texts).totalSize() - GraphLayout.parseInstance(new ArrayList<>(0)).totalSize();
+		long compactSize = GraphLayout.parseInstance(compact, texts).totalSize() - GraphLayout.parseInstance(texts).totalSize();
+		long emptySize = GraphLayout.parseInstance(emptyProperties(count)).totalSize();
+		long hashedSize = GraphLayout.parseInstance(hashed, texts).totalSize() - GraphLayout.parseInstance(texts).totalSize();
+		long emptyHashed = GraphLayout.parseInstance(emptyLabels(count)).totalSize();
+		
+		System.out.printf("concepts:             %d (%d languages)%n", count, Corpus.LANGUAGES.length);
+		System.out.printf("label texts:          %,d bytes%n", textSize);
+		System.out.printf("compact labeling:     %,d bytes (%d per concept)%n", 
+				compactSize - emptySize, (compactSize - emptySize) / count);
+		System.out.printf("hash map labeling:    %,d bytes (%d per concept)%n", 
+				hashedSize - emptyHashed, (hashedSize - emptyHashed) / count);
+	}
+	private static List<PropertyType> emptyProperties(int count) {
+		List<PropertyType> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(new PropertyType());
+		}
+		return list;
+	}
+	private static List<HashMapLabels> emptyLabels(int count) {
+		List<HashMapLabels> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			HashMapLabels labels = new HashMapLabels();
+			labels.languages = null;
+			labels.label = null;
+			labels.alternateLabel = null;
+			labels.hiddenLabel = null;
+			labels.description = null;
+			labels.comment = null;
+			list.add(labels);
+		}
+		return list;
+	}
+}
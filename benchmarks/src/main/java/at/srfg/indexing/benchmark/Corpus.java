@@ -0,0 +1,89 @@
+package at.srfg.indexing.benchmark;
+
+/**
+ * Qualifier corpora modelled after eCl@ss / IEC 61360 property
+ * names, units and languages as they arrive during a catalogue 
+ * reindex.
+ */
+public final class Corpus {
+	/**
+	 * Preferred property names (english), including the usual 
+	 * punctuation, brackets and abbreviations
+	 */
+	public static final String[] PROPERTY_NAMES = new String[] {
+			"Net weight",
+			"Gross weight",
+			"Length",
+			"Width",
+			"Height",
+			"Max. operating temperature",
+			"Min. operating temperature",
+			"Nominal voltage (AC)",
+			"Nominal voltage (DC)",
+			"Rated current",
+			"IP protection class",
+			"Material (housing)",
+			"Colour of housing",
+			"Number of poles",
+			"Cable length",
+			"Thread size",
+			"Degree of protection (IP)",
+			"Ambient temperature during operating",
+			"Supply voltage 1 at AC 50 Hz",
+			"Product type description",
+			"Manufacturer name",
+			"Manufacturer product designation",
+			"EAN",
+			"GTIN",
+			"With LED display",
+			"Weight per unit",
+			"Max. torque",
+			"Outer diameter",
+			"Inner diameter",
+			"Tolerance class",
+			"Surface treatment",
+			"Flow rate at 6 bar",
+	};
+	/**
+	 * Unit codes and unit symbols
+	 */
+	public static final String[] UNITS = new String[] {
+			"kg", "g", "mm", "cm", "m", "V", "A", "W", "kW", "Hz", "bar",
+			"°C", "N·m", "l/min", "m³/h", "%", "MTR", "KGM", "CEL", "NU",
+	};
+	/**
+	 * IRDI style identifiers, used as qualifiers for eCl@ss properties
+	 */
+	public static final String[] IRDIS = new String[] {
+			"0173-1#02-AAO677#002",
+			"0173-1#02-AAB713#005",
+			"0173-1#02-BAA120#008",
+			"0173-1#02-AAC895#003",
+			"0173-1#02-BAF016#006",
+			"0173-1#02-AAN617#004",
+			"0173-1#02-AAM556#002",
+			"0173-1#02-BAB577#007",
+	};
+	/**
+	 * Language codes in use
+	 */
+	public static final String[] LANGUAGES = new String[] {
+			"en", "de", "es", "it", "fr", "sv", 
+	};
+	/**
+	 * Multilingual text values, one entry per {@link #LANGUAGES} entry
+	 */
+	public static final String[] TEXTS = new String[] {
+			"Stainless steel",
+			"Edelstahl",
+			"Acero inoxidable",
+			"Acciaio inossidabile",
+			"Acier inoxydable",
+			"Rostfritt stål",
+	};
+	
+	private Corpus() {
+		// constants only
+	}
+
+}
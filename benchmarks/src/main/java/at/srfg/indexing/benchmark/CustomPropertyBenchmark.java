@@ -0,0 +1,94 @@
+package at.srfg.indexing.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.srfg.indexing.model.common.ICustomPropertyAware;
+/**
+ * Throughput of the {@link ICustomPropertyAware} write path and of the 
+ * multilingual read path.
+ * <p>
+ * The write benchmarks use a fresh document per iteration, so the maps
+ * grow to the size of a typical catalogue item. Run with <code>-prof gc</code> 
+ * to obtain the allocation rate per operation.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomPropertyBenchmark {
+	/**
+	 * Document receiving the writes
+	 */
+	private BenchmarkItem item;
+	/**
+	 * Document holding multilingual values for all property names
+	 */
+	private BenchmarkItem multiLingual;
+	private int next;
+	
+	@Setup(Level.Iteration)
+	public void setup() {
+		item = new BenchmarkItem("urn:benchmark:item");
+		multiLingual = new BenchmarkItem("urn:benchmark:multilingual");
+		for (String name : Corpus.PROPERTY_NAMES) {
+			for (int l = 0; l < Corpus.LANGUAGES.length; l++) {
+				multiLingual.addMultiLingualProperty(Corpus.TEXTS[l], Corpus.LANGUAGES[l], name);
+			}
+		}
+	}
+	private int next(int length) {
+		next = (next + 1) % length;
+		return next;
+	}
+	private String name(int i) {
+		return Corpus.PROPERTY_NAMES[i % Corpus.PROPERTY_NAMES.length];
+	}
+	private String unit(int i) {
+		return Corpus.UNITS[i % Corpus.UNITS.length];
+	}
+	
+	@Benchmark
+	public String mapDynamicKeyParts() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.UNITS.length);
+		return item.mapDynamicKeyParts(name(i), unit(i));
+	}
+	@Benchmark
+	public BenchmarkItem addDoubleProperty() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.UNITS.length);
+		item.addProperty(Double.valueOf(i % 97), name(i), unit(i));
+		return item;
+	}
+	@Benchmark
+	public BenchmarkItem addIntegerProperty() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.UNITS.length);
+		item.addProperty(Integer.valueOf(i % 97), name(i), unit(i));
+		return item;
+	}
+	@Benchmark
+	public BenchmarkItem addStringProperty() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.IRDIS.length);
+		item.addProperty(Corpus.TEXTS[i % Corpus.TEXTS.length], name(i), Corpus.IRDIS[i % Corpus.IRDIS.length]);
+		return item;
+	}
+	@Benchmark
+	public List<String> getMultiLingualProperties() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.LANGUAGES.length);
+		return multiLingual.getMultiLingualProperties(Corpus.LANGUAGES[i % Corpus.LANGUAGES.length], name(i));
+	}
+}
@@ -0,0 +1,87 @@
+package at.srfg.indexing.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.srfg.indexing.model.common.ICustomPropertyAware;
+/**
+ * Read access to custom properties, e.g. when rendering search results. 
+ * <p>
+ * The <code>registering</code> benchmarks reproduce the former read path which 
+ * registered the <code>@</code> joined qualifier parts in 
+ * {@link ICustomPropertyAware#getCustomPropertyKeys()} on every lookup.
+ * Compare <code>gc.alloc.rate.norm</code> with <code>-prof gc</code>.
+ * </p>
+ * <p>
+ * The item is not thread-safe, run the benchmarks with a single thread (the default).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomPropertyReadBenchmark {
+	private BenchmarkItem item;
+	
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+		int next() {
+			next = (next + 1) % (Corpus.PROPERTY_NAMES.length * Corpus.UNITS.length);
+			return next;
+		}
+	}
+	
+	@Setup
+	public void setup() {
+		item = new BenchmarkItem("urn:benchmark:item");
+		for (int i = 0; i < Corpus.PROPERTY_NAMES.length * Corpus.UNITS.length; i++) {
+			item.addProperty(Double.valueOf(i), name(i), unit(i));
+			item.addProperty(Corpus.TEXTS[i % Corpus.TEXTS.length], name(i), unit(i));
+		}
+	}
+	private static String name(int i) {
+		return Corpus.PROPERTY_NAMES[i % Corpus.PROPERTY_NAMES.length];
+	}
+	private static String unit(int i) {
+		return Corpus.UNITS[i % Corpus.UNITS.length];
+	}
+	
+	@Benchmark
+	public Collection<Double> doubleValues(Cursor cursor) {
+		int i = cursor.next();
+		return item.getDoublePropertyValues(name(i), unit(i));
+	}
+	@Benchmark
+	public Collection<String> stringValues(Cursor cursor) {
+		int i = cursor.next();
+		return item.getStringPropertyValues(name(i), unit(i));
+	}
+	@Benchmark
+	public Collection<Double> registeringDoubleValues(Cursor cursor) {
+		int i = cursor.next();
+		String key = item.dynamicKey(name(i), unit(i));
+		item.getCustomPropertyKeys().put(key, String.join("@", name(i), unit(i)));
+		return item.getCustomDoubleValues().get(key);
+	}
+	@Benchmark
+	public Collection<String> registeringStringValues(Cursor cursor) {
+		int i = cursor.next();
+		String key = item.dynamicKey(name(i), unit(i));
+		item.getCustomPropertyKeys().put(key, String.join("@", name(i), unit(i)));
+		return item.getCustomStringValues().get(key);
+	}
+}
@@ -0,0 +1,69 @@
+package at.srfg.indexing.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.srfg.indexing.model.common.DynamicName;
+/**
+ * Throughput of the dynamic field name encoding in {@link DynamicName}.
+ * <p>
+ * Run with <code>-prof gc</code> to obtain the allocation rate per operation.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicNameBenchmark {
+	private int next;
+	
+	private int next(int length) {
+		next = (next + 1) % length;
+		return next;
+	}
+	/**
+	 * Single qualifier, e.g. the property name
+	 */
+	@Benchmark
+	public String singlePart() {
+		return DynamicName.getDynamicFieldPart(Corpus.PROPERTY_NAMES[next(Corpus.PROPERTY_NAMES.length)]);
+	}
+	/**
+	 * Single IRDI qualifier 
+	 */
+	@Benchmark
+	public String irdiPart() {
+		return DynamicName.getDynamicFieldPart(Corpus.IRDIS[next(Corpus.IRDIS.length)]);
+	}
+	/**
+	 * Property name and unit, the usual qualifier tuple for numeric values
+	 */
+	@Benchmark
+	public String nameAndUnit() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.UNITS.length);
+		return DynamicName.getDynamicFieldPart(
+				Corpus.PROPERTY_NAMES[i % Corpus.PROPERTY_NAMES.length], 
+				Corpus.UNITS[i % Corpus.UNITS.length]);
+	}
+	/**
+	 * Language and property name as used by multilingual properties 
+	 */
+	@Benchmark
+	public String languageAndName() {
+		int i = next(Corpus.PROPERTY_NAMES.length * Corpus.LANGUAGES.length);
+		return DynamicName.getDynamicFieldPart(
+				Corpus.LANGUAGES[i % Corpus.LANGUAGES.length],
+				Corpus.PROPERTY_NAMES[i % Corpus.PROPERTY_NAMES.length]);
+	}
+}
@@ -0,0 +1,159 @@
+package at.srfg.indexing.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.solr.FacetResult;
+import at.srfg.indexing.model.solr.IndexField;
+/**
+ * Aggregation of facet entries as done by <code>SearchResult.handleFacets</code>.
+ * <p>
+ * <code>treeSet</code> reproduces the former path with a copy of the former 
+ * <code>FacetResult</code> (see {@link FormerFacetResult}), adding each entry of the non-static 
+ * inner <code>Entry</code> class to a <code>TreeSet</code>, 
+ * <code>sortedArray</code> collects the entries of a field and sorts them once with 
+ * {@link FacetResult#of(String, FacetResult.Entry[], int)}. The <code>serialized</code> 
+ * variants include the JSON serialization of the facets.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FacetAggregationBenchmark {
+	@Param({"20"})
+	private int fields;
+	@Param({"500"})
+	private int limit;
+	
+	private String[] fieldNames;
+	private String[][] labels;
+	private long[][] counts;
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(17);
+		fieldNames = new String[fields];
+		labels = new String[fields][limit];
+		counts = new long[fields][limit];
+		for (int f = 0; f < fields; f++) {
+			fieldNames[f] = Corpus.PROPERTY_NAMES[f % Corpus.PROPERTY_NAMES.length] + f + "_svalues";
+			long count = 100000;
+			for (int i = 0; i < limit; i++) {
+				// solr delivers the entries ordered by count
+				count -= random.nextInt(3);
+				labels[f][i] = Corpus.TEXTS[i % Corpus.TEXTS.length] + i;
+				counts[f][i] = count;
+			}
+		}
+	}
+	
+	@Benchmark
+	public Map<String, FormerFacetResult> treeSet() {
+		Map<String, FormerFacetResult> facets = new HashMap<>();
+		for (int f = 0; f < fields; f++) {
+			for (int i = 0; i < limit; i++) {
+				FormerFacetResult set = facets.get(fieldNames[f]);
+				if ( set == null ) {
+					set = new FormerFacetResult(fieldNames[f]);
+					facets.put(fieldNames[f], set);
+				}
+				set.addEntry(labels[f][i], counts[f][i]);
+			}
+		}
+		return facets;
+	}
+	
+	@Benchmark
+	public Map<String, FacetResult> sortedArray() {
+		Map<String, FacetResult> facets = new HashMap<>();
+		for (int f = 0; f < fields; f++) {
+			FacetResult.Entry[] entries = new FacetResult.Entry[limit];
+			for (int i = 0; i < limit; i++) {
+				entries[i] = new FacetResult.Entry(labels[f][i], counts[f][i]);
+			}
+			facets.put(fieldNames[f], FacetResult.of(fieldNames[f], entries, limit));
+		}
+		return facets;
+	}
+	
+	@Benchmark
+	public byte[] treeSetSerialized() throws Exception {
+		return mapper.writeValueAsBytes(treeSet());
+	}
+	
+	@Benchmark
+	public byte[] sortedArraySerialized() throws Exception {
+		return mapper.writeValueAsBytes(sortedArray());
+	}
+	
+	/**
+	 * Copy of the <code>FacetResult</code> before the entries were aggregated in sorted 
+	 * arrays: each entry references the enclosing result and is added to a <code>TreeSet</code>.
+	 */
+	public static class FormerFacetResult extends IndexField {
+		private Set<Entry> entry;
+		
+		public FormerFacetResult(String name) {
+			super(name);
+		}
+		public class Entry implements Comparable<Entry> {
+			final String label;
+			final long count;
+			public Entry(String l, long c) {
+				this.label = l;
+				this.count = c;
+			}
+			public String getLabel() {
+				return label;
+			}
+			public long getCount() {
+				return count;
+			}
+			@Override
+			public int compareTo(Entry o) {
+				if (o.count == this.count ) {
+					return this.label.compareTo(o.label);
+				}
+				else if ( this.count >  o.count) {
+					return -1;
+				}
+				else {
+					return 1;
+				}
+			}
+		}
+		public Set<Entry> getEntry() {
+			return entry;
+		}
+		public void addEntry(String label, long count) {
+			if ( entry == null ) {
+				entry = new TreeSet<>();
+			}
+			if ( label != null && !label.isEmpty() ) {
+				entry.add(new Entry(label, count));
+			}
+		}
+	}
+}
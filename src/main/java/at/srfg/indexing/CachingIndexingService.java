@@ -0,0 +1,325 @@
+package at.srfg.indexing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.http.ResponseEntity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import at.srfg.indexing.hierarchy.PropertyInheritance;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.CodedType;
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.common.ICodedType;
+import at.srfg.indexing.model.common.IPropertyType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.support.JoinPushdown;
+/**
+ * Decorator caching the single document lookups {@link #getClass(String)}, 
+ * {@link #getProperty(String)} and {@link #getCode(String)}.
+ * <p>
+ * The caches are size and time bounded and use Caffeine's W-TinyLFU eviction, which 
+ * keeps frequently used documents even when many rarely used documents pass the cache.
+ * Only successful responses are cached. The modifying methods invalidate the affected 
+ * entries after the delegate has processed the change. A lookup racing with a 
+ * modification of the same collection does not populate the cache, so no outdated 
+ * document remains cached.
+ * </p>
+ * <p>
+ * A cached class contains the transitive parents and children of the class, so a modified
+ * or removed class also changes the cached ancestors and descendants, before and after the 
+ * modification. As the taxonomy graph reflects a modified hierarchy only after its next reload, 
+ * all cached classes are removed with each class modification (once per batch). The cached
+ * properties and codes are not affected.
+ * </p>
+ * <p>
+ * Modified classes and properties are reported to the resolver of the inherited properties, 
+ * either the one provided on construction or the one of the decorated service (see 
+ * {@link IndexingService#getPropertyInheritance()}), so the cached sets stay valid regardless 
+ * of further decorators wrapping this service.
+ * </p>
+ * <p>
+ * A {@link JoinPushdown} registered with {@link #withJoinPushdown(JoinPushdown)} is invalidated
+ * for the modified collection with each modification, so pushed down joins reflect the change.
+ * </p>
+ * <p>
+ * The cached response bodies are shared between all callers and must not be modified.
+ * </p>
+ */
+public class CachingIndexingService extends DelegatingIndexingService {
+	/**
+	 * Default maximum number of cached documents per collection
+	 */
+	public static final long DEFAULT_SIZE = 10000;
+	/**
+	 * Default lifetime of a cached document in seconds
+	 */
+	public static final long DEFAULT_TTL = 600;
+	
+	private final DocumentCache classes;
+	private final DocumentCache properties;
+	private final DocumentCache codes;
+	private final PropertyInheritance inheritance;
+	private volatile JoinPushdown joinPushdown;
+	
+	public CachingIndexingService(IndexingService delegate) {
+		this(delegate, DEFAULT_SIZE, DEFAULT_TTL);
+	}
+	/**
+	 * Create the caching decorator
+	 * @param delegate The decorated service
+	 * @param maximumSize The maximum number of cached documents per collection
+	 * @param ttlSeconds The lifetime of a cached document
+	 */
+	public CachingIndexingService(IndexingService delegate, long maximumSize, long ttlSeconds) {
+		this(delegate, maximumSize, ttlSeconds, null);
+	}
+	/**
+	 * Create the caching decorator
+	 * @param delegate The decorated service
+	 * @param maximumSize The maximum number of cached documents per collection
+	 * @param ttlSeconds The lifetime of a cached document
+	 * @param inheritance The resolver of the inherited properties, <code>null</code> for the one of the delegate
+	 */
+	public CachingIndexingService(IndexingService delegate, long maximumSize, long ttlSeconds, PropertyInheritance inheritance) {
+		super(delegate);
+		this.classes = new DocumentCache(maximumSize, ttlSeconds);
+		this.properties = new DocumentCache(maximumSize, ttlSeconds);
+		this.codes = new DocumentCache(maximumSize, ttlSeconds);
+		this.inheritance = inheritance;
+	}
+	/**
+	 * Invalidate the resolved identifier sets of the planner with each modification
+	 * @param joinPushdown The planner used with the decorated service
+	 * @return
+	 */
+	public CachingIndexingService withJoinPushdown(JoinPushdown joinPushdown) {
+		this.joinPushdown = joinPushdown;
+		return this;
+	}
+	@Override
+	public ResponseEntity<?> getClass(String uri) throws Exception {
+		return classes.get(uri, delegate::getClass);
+	}
+	@Override
+	public ResponseEntity<?> setClass(ClassType prop) throws Exception {
+		try {
+			return delegate.setClass(prop);
+		}
+		finally {
+			classesModified(Collections.singletonList(prop.getUri()));
+		}
+	}
+	@Override
+	public ResponseEntity<?> setClassBatch(List<ClassType> batch) throws Exception {
+		try {
+			return delegate.setClassBatch(batch);
+		}
+		finally {
+			classesModified(batch.stream().map(ClassType::getUri).collect(Collectors.toList()));
+		}
+	}
+	@Override
+	public ResponseEntity<?> removeClass(String uri) throws Exception {
+		try {
+			return delegate.removeClass(uri);
+		}
+		finally {
+			classesModified(Collections.singletonList(uri));
+		}
+	}
+	@Override
+	public ResponseEntity<?> getProperty(String uri) throws Exception {
+		return properties.get(uri, delegate::getProperty);
+	}
+	@Override
+	public ResponseEntity<?> setProperty(PropertyType prop) throws Exception {
+		try {
+			return delegate.setProperty(prop);
+		}
+		finally {
+			propertyModified(prop);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setPropertyBatch(List<PropertyType> batch) throws Exception {
+		try {
+			return delegate.setPropertyBatch(batch);
+		}
+		finally {
+			batch.forEach(this::propertyModified);
+		}
+	}
+	@Override
+	public ResponseEntity<?> removeProperty(String uri) throws Exception {
+		try {
+			return delegate.removeProperty(uri);
+		}
+		finally {
+			propertyModified(uri);
+		}
+	}
+	@Override
+	public ResponseEntity<?> getCode(String uri) throws Exception {
+		return codes.get(uri, delegate::getCode);
+	}
+	@Override
+	public ResponseEntity<?> setCode(CodedType prop) throws Exception {
+		try {
+			return delegate.setCode(prop);
+		}
+		finally {
+			codeModified(prop.getUri());
+		}
+	}
+	@Override
+	public ResponseEntity<?> setCodeBatch(List<CodedType> batch) throws Exception {
+		try {
+			return delegate.setCodeBatch(batch);
+		}
+		finally {
+			batch.forEach(c -> codeModified(c.getUri()));
+		}
+	}
+	@Override
+	public ResponseEntity<?> removeCode(String uri) throws Exception {
+		try {
+			return delegate.removeCode(uri);
+		}
+		finally {
+			codeModified(uri);
+		}
+	}
+	@Override
+	public PropertyInheritance getPropertyInheritance() {
+		return inheritance != null ? inheritance : delegate.getPropertyInheritance();
+	}
+	/**
+	 * Remove all cached classes, the hierarchy of the ancestors and descendants may have changed
+	 */
+	private void classesModified(List<String> uris) {
+		classes.invalidateAll();
+		inheritance(i -> uris.forEach(i::invalidateClass));
+		joins(IClassType.COLLECTION);
+	}
+	private void propertyModified(PropertyType prop) {
+		properties.invalidate(prop.getUri());
+		inheritance(i -> i.invalidateProperty(prop.getUri(), prop.getConceptClass()));
+		joins(IPropertyType.COLLECTION);
+	}
+	private void propertyModified(String uri) {
+		properties.invalidate(uri);
+		inheritance(i -> i.invalidateProperty(uri));
+		joins(IPropertyType.COLLECTION);
+	}
+	private void codeModified(String uri) {
+		codes.invalidate(uri);
+		joins(ICodedType.COLLECTION);
+	}
+	/**
+	 * Invalidate the pushed down joins from the collection
+	 */
+	private void joins(String collection) {
+		JoinPushdown pushdown = joinPushdown;
+		if ( pushdown != null ) {
+			pushdown.invalidate(collection);
+		}
+	}
+	/**
+	 * Invalidate the inherited properties, see {@link #getPropertyInheritance()}
+	 */
+	private void inheritance(Consumer<PropertyInheritance> invalidation) {
+		PropertyInheritance inheritance = getPropertyInheritance();
+		if ( inheritance != null ) {
+			invalidation.accept(inheritance);
+		}
+	}
+	/**
+	 * Remove all cached documents
+	 */
+	public void invalidateAll() {
+		classes.invalidateAll();
+		properties.invalidateAll();
+		codes.invalidateAll();
+		inheritance(PropertyInheritance::invalidateAll);
+		JoinPushdown pushdown = joinPushdown;
+		if ( pushdown != null ) {
+			pushdown.invalidateAll();
+		}
+	}
+	/**
+	 * Obtain the hit, miss and eviction statistics per collection
+	 * @return
+	 */
+	public Map<String, CacheStats> getCacheStats() {
+		Map<String, CacheStats> stats = new LinkedHashMap<>();
+		stats.put(IClassType.COLLECTION, classes.stats());
+		stats.put(IPropertyType.COLLECTION, properties.stats());
+		stats.put(ICodedType.COLLECTION, codes.stats());
+		return stats;
+	}
+	/**
+	 * Lookup of a single document
+	 */
+	@FunctionalInterface
+	private interface Lookup {
+		ResponseEntity<?> get(String uri) throws Exception;
+	}
+	/**
+	 * Cache for the responses of a single collection
+	 */
+	private static class DocumentCache {
+		private final Cache<String, ResponseEntity<?>> cache;
+		/**
+		 * Incremented with each modification, a lookup only populates the cache when
+		 * no modification happened while loading
+		 */
+		private final AtomicLong modifications = new AtomicLong();
+		
+		DocumentCache(long maximumSize, long ttlSeconds) {
+			this.cache = Caffeine.newBuilder()
+					.maximumSize(maximumSize)
+					.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+					.recordStats()
+					.build();
+		}
+		ResponseEntity<?> get(String uri, Lookup lookup) throws Exception {
+			if ( uri == null ) {
+				return lookup.get(uri);
+			}
+			ResponseEntity<?> cached = cache.getIfPresent(uri);
+			if ( cached != null ) {
+				return cached;
+			}
+			long stamp = modifications.get();
+			ResponseEntity<?> response = lookup.get(uri);
+			if ( response != null && response.getStatusCode().is2xxSuccessful() && response.hasBody()) {
+				// the per key lock orders this update with a concurrent invalidation
+				cache.asMap().compute(uri, (key, current) -> modifications.get() == stamp ? response : current);
+			}
+			return response;
+		}
+		void invalidate(String uri) {
+			modifications.incrementAndGet();
+			if ( uri != null ) {
+				cache.asMap().remove(uri);
+			}
+		}
+		void invalidateAll() {
+			modifications.incrementAndGet();
+			cache.invalidateAll();
+		}
+		CacheStats stats() {
+			return cache.stats();
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package at.srfg.indexing;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.CodedType;
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.common.ICodedType;
+import at.srfg.indexing.model.common.IPropertyType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.support.SingleFlight;
+/**
+ * Decorator coalescing concurrent identical read requests, see {@link SingleFlight}. 
+ * <p>
+ * Requests are identical when the operation and the normalized parameters are equal, 
+ * e.g. the field name sets regardless of their order or a {@link Search} with equal 
+ * content. All callers of a coalesced request receive the same response, the response 
+ * bodies must not be modified.
+ * </p>
+ * <p>
+ * Modifications detach the requests in flight for the modified collection, so 
+ * requests arriving after a modification are not served with a result read before.
+ * Combined with the {@link CachingIndexingService}, the coalescing service is placed 
+ * between the cache and the service accessing the index, so that concurrent cache 
+ * misses result in a single index request.
+ * </p>
+ */
+public class CoalescingIndexingService extends DelegatingIndexingService {
+	
+	private final SingleFlight<List<Object>, ResponseEntity<?>> flights = new SingleFlight<>();
+	
+	public CoalescingIndexingService(IndexingService delegate) {
+		super(delegate);
+	}
+	/**
+	 * The statistics of the coalesced requests
+	 * @return
+	 */
+	public SingleFlight<List<Object>, ResponseEntity<?>> getFlights() {
+		return flights;
+	}
+	@Override
+	public ResponseEntity<?> getClass(String uri) throws Exception {
+		return flights.execute(key(IClassType.COLLECTION, "get", uri), () -> delegate.getClass(uri));
+	}
+	@Override
+	public ResponseEntity<?> classFields(Set<String> fieldNames) throws Exception {
+		return flights.execute(key(IClassType.COLLECTION, "fields", sorted(fieldNames)), () -> delegate.classFields(fieldNames));
+	}
+	@Override
+	public ResponseEntity<?> selectClass(String query, List<String> filterQuery, List<String> facetFields, int facetLimit,
+			int facetMinCount, Integer start, Integer rows, List<String> fieldList) throws Exception {
+		return flights.execute(key(IClassType.COLLECTION, "select", query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, sorted(fieldList)), 
+				() -> delegate.selectClass(query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, fieldList));
+	}
+	@Override
+	public ResponseEntity<?> classSuggest(String query, String fieldName, int limit, int minCount) throws Exception {
+		return flights.execute(key(IClassType.COLLECTION, "suggest", query, fieldName, limit, minCount), 
+				() -> delegate.classSuggest(query, fieldName, limit, minCount));
+	}
+	@Override
+	public ResponseEntity<?> searchClass(Search search) throws Exception {
+		return flights.execute(key(IClassType.COLLECTION, "search", new Search(search)), () -> delegate.searchClass(search));
+	}
+	@Override
+	public ResponseEntity<?> getClasses(Set<String> uriList, String nameSpace, Set<String> localNames, String property)
+			throws Exception {
+		return flights.execute(key(IClassType.COLLECTION, "list", sorted(uriList), nameSpace, sorted(localNames), property), 
+				() -> delegate.getClasses(uriList, nameSpace, localNames, property));
+	}
+	@Override
+	public ResponseEntity<?> removeClass(String uri) throws Exception {
+		try {
+			return delegate.removeClass(uri);
+		}
+		finally {
+			detach(IClassType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setClassBatch(List<ClassType> classes) throws Exception {
+		try {
+			return delegate.setClassBatch(classes);
+		}
+		finally {
+			detach(IClassType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setClass(ClassType prop) throws Exception {
+		try {
+			return delegate.setClass(prop);
+		}
+		finally {
+			detach(IClassType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> getCode(String uri) throws Exception {
+		return flights.execute(key(ICodedType.COLLECTION, "get", uri), () -> delegate.getCode(uri));
+	}
+	@Override
+	public ResponseEntity<?> codeFields(Set<String> fieldNames) throws Exception {
+		return flights.execute(key(ICodedType.COLLECTION, "fields", sorted(fieldNames)), () -> delegate.codeFields(fieldNames));
+	}
+	@Override
+	public ResponseEntity<?> selectCode(String query, List<String> filterQuery, List<String> facetFields, int facetLimit,
+			int facetMinCount, Integer start, Integer rows, List<String> fieldList) throws Exception {
+		return flights.execute(key(ICodedType.COLLECTION, "select", query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, sorted(fieldList)), 
+				() -> delegate.selectCode(query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, fieldList));
+	}
+	@Override
+	public ResponseEntity<?> codeSuggest(String query, String fieldName, int limit, int minCount) throws Exception {
+		return flights.execute(key(ICodedType.COLLECTION, "suggest", query, fieldName, limit, minCount), 
+				() -> delegate.codeSuggest(query, fieldName, limit, minCount));
+	}
+	@Override
+	public ResponseEntity<?> searchCode(Search search) throws Exception {
+		return flights.execute(key(ICodedType.COLLECTION, "search", new Search(search)), () -> delegate.searchCode(search));
+	}
+	@Override
+	public ResponseEntity<?> getCodes(Set<String> uriList, String listId, String nameSpace, Set<String> localNames)
+			throws Exception {
+		return flights.execute(key(ICodedType.COLLECTION, "list", sorted(uriList), listId, nameSpace, sorted(localNames)), 
+				() -> delegate.getCodes(uriList, listId, nameSpace, localNames));
+	}
+	@Override
+	public ResponseEntity<?> removeCode(String uri) throws Exception {
+		try {
+			return delegate.removeCode(uri);
+		}
+		finally {
+			detach(ICodedType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setCodeBatch(List<CodedType> codes) throws Exception {
+		try {
+			return delegate.setCodeBatch(codes);
+		}
+		finally {
+			detach(ICodedType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setCode(CodedType prop) throws Exception {
+		try {
+			return delegate.setCode(prop);
+		}
+		finally {
+			detach(ICodedType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> propFields(Set<String> fieldNames) throws Exception {
+		return flights.execute(key(IPropertyType.COLLECTION, "fields", sorted(fieldNames)), () -> delegate.propFields(fieldNames));
+	}
+	@Override
+	public ResponseEntity<?> getProperty(String uri) throws Exception {
+		return flights.execute(key(IPropertyType.COLLECTION, "get", uri), () -> delegate.getProperty(uri));
+	}
+	@Override
+	public ResponseEntity<?> getProperties(Set<String> uri, Set<String> classType, String nameSpace, Set<String> localNames,
+			Set<String> idxNames) throws Exception {
+		return flights.execute(key(IPropertyType.COLLECTION, "list", sorted(uri), sorted(classType), nameSpace, sorted(localNames), sorted(idxNames)), 
+				() -> delegate.getProperties(uri, classType, nameSpace, localNames, idxNames));
+	}
+	@Override
+	public ResponseEntity<?> propertySuggest(String query, String fieldName, int limit, int minCount) throws Exception {
+		return flights.execute(key(IPropertyType.COLLECTION, "suggest", query, fieldName, limit, minCount), 
+				() -> delegate.propertySuggest(query, fieldName, limit, minCount));
+	}
+	@Override
+	public ResponseEntity<?> selectProperties(String query, List<String> filterQuery, List<String> facetFields,
+			int facetLimit, int facetMinCount, Integer start, Integer rows, List<String> fieldList) throws Exception {
+		return flights.execute(key(IPropertyType.COLLECTION, "select", query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, sorted(fieldList)), 
+				() -> delegate.selectProperties(query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, fieldList));
+	}
+	@Override
+	public ResponseEntity<?> searchProperties(Search search) throws Exception {
+		return flights.execute(key(IPropertyType.COLLECTION, "search", new Search(search)), () -> delegate.searchProperties(search));
+	}
+	@Override
+	public ResponseEntity<?> removeProperty(String uri) throws Exception {
+		try {
+			return delegate.removeProperty(uri);
+		}
+		finally {
+			detach(IPropertyType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setPropertyBatch(List<PropertyType> properties) throws Exception {
+		try {
+			return delegate.setPropertyBatch(properties);
+		}
+		finally {
+			detach(IPropertyType.COLLECTION);
+		}
+	}
+	@Override
+	public ResponseEntity<?> setProperty(PropertyType prop) throws Exception {
+		try {
+			return delegate.setProperty(prop);
+		}
+		finally {
+			detach(IPropertyType.COLLECTION);
+		}
+	}
+	private void detach(String collection) {
+		flights.forget(key -> collection.equals(key.get(0)));
+	}
+	/**
+	 * Create the request key, lists are copied 
+	 */
+	private static List<Object> key(Object ... parts) {
+		for (int i = 0; i < parts.length; i++) {
+			if ( parts[i] instanceof List ) {
+				parts[i] = Arrays.asList(((List<?>) parts[i]).toArray());
+			}
+		}
+		return Arrays.asList(parts);
+	}
+	/**
+	 * Normalize a set parameter, <code>null</code> and empty sets are equal
+	 */
+	private static Set<String> sorted(Collection<String> values) {
+		Set<String> sorted = new TreeSet<>();
+		if ( values != null ) {
+			for (String value : values) {
+				if ( value != null ) {
+					sorted.add(value);
+				}
+			}
+		}
+		return sorted;
+	}
+}
@@ -0,0 +1,177 @@
+package at.srfg.indexing;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.hierarchy.PropertyInheritance;
+import at.srfg.indexing.hierarchy.TaxonomyGraph;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.CodedType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.support.UriBatchLookup;
+/**
+ * Base class for decorators of an {@link IndexingService}. All abstract methods are
+ * forwarded to the delegate.
+ * <p>
+ * The default endpoints (bulk ingest, batch lookup, export, ...) are deliberately not 
+ * forwarded, they are built on top of the abstract methods and therefore pass the 
+ * decorator. The hooks of the default endpoints (e.g. {@link #getObjectMapper()} or 
+ * {@link #setClassBatch(List)}) are forwarded, decorators override the batch methods 
+ * like the single document methods, e.g. a bulk ingest invalidates a cache entry for 
+ * each stored document.
+ * </p>
+ */
+public abstract class DelegatingIndexingService implements IndexingService {
+	
+	protected final IndexingService delegate;
+	
+	protected DelegatingIndexingService(IndexingService delegate) {
+		this.delegate = delegate;
+	}
+	/**
+	 * The decorated service
+	 * @return
+	 */
+	public IndexingService getDelegate() {
+		return delegate;
+	}
+	@Override
+	public ResponseEntity<?> getClass(String uri) throws Exception {
+		return delegate.getClass(uri);
+	}
+	@Override
+	public ResponseEntity<?> classFields(Set<String> fieldNames) throws Exception {
+		return delegate.classFields(fieldNames);
+	}
+	@Override
+	public ResponseEntity<?> selectClass(String query, List<String> filterQuery, List<String> facetFields, int facetLimit,
+			int facetMinCount, Integer start, Integer rows, List<String> fieldList) throws Exception {
+		return delegate.selectClass(query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, fieldList);
+	}
+	@Override
+	public ResponseEntity<?> classSuggest(String query, String fieldName, int limit, int minCount) throws Exception {
+		return delegate.classSuggest(query, fieldName, limit, minCount);
+	}
+	@Override
+	public ResponseEntity<?> searchClass(Search search) throws Exception {
+		return delegate.searchClass(search);
+	}
+	@Override
+	public ResponseEntity<?> getClasses(Set<String> uriList, String nameSpace, Set<String> localNames, String property)
+			throws Exception {
+		return delegate.getClasses(uriList, nameSpace, localNames, property);
+	}
+	@Override
+	public ResponseEntity<?> removeClass(String uri) throws Exception {
+		return delegate.removeClass(uri);
+	}
+	@Override
+	public ResponseEntity<?> setClass(ClassType prop) throws Exception {
+		return delegate.setClass(prop);
+	}
+	@Override
+	public TaxonomyGraph getTaxonomyGraph() throws Exception {
+		return delegate.getTaxonomyGraph();
+	}
+	@Override
+	public UriBatchLookup getUriBatchLookup() {
+		return delegate.getUriBatchLookup();
+	}
+	@Override
+	public int getBulkBatchSize() {
+		return delegate.getBulkBatchSize();
+	}
+	@Override
+	public ResponseEntity<?> setClassBatch(List<ClassType> classes) throws Exception {
+		return delegate.setClassBatch(classes);
+	}
+	@Override
+	public ResponseEntity<?> setCodeBatch(List<CodedType> codes) throws Exception {
+		return delegate.setCodeBatch(codes);
+	}
+	@Override
+	public ResponseEntity<?> setPropertyBatch(List<PropertyType> properties) throws Exception {
+		return delegate.setPropertyBatch(properties);
+	}
+	@Override
+	public ObjectMapper getObjectMapper() {
+		return delegate.getObjectMapper();
+	}
+	@Override
+	public PropertyInheritance getPropertyInheritance() {
+		return delegate.getPropertyInheritance();
+	}
+	@Override
+	public ResponseEntity<?> getCode(String uri) throws Exception {
+		return delegate.getCode(uri);
+	}
+	@Override
+	public ResponseEntity<?> codeFields(Set<String> fieldNames) throws Exception {
+		return delegate.codeFields(fieldNames);
+	}
+	@Override
+	public ResponseEntity<?> selectCode(String query, List<String> filterQuery, List<String> facetFields, int facetLimit,
+			int facetMinCount, Integer start, Integer rows, List<String> fieldList) throws Exception {
+		return delegate.selectCode(query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, fieldList);
+	}
+	@Override
+	public ResponseEntity<?> codeSuggest(String query, String fieldName, int limit, int minCount) throws Exception {
+		return delegate.codeSuggest(query, fieldName, limit, minCount);
+	}
+	@Override
+	public ResponseEntity<?> searchCode(Search search) throws Exception {
+		return delegate.searchCode(search);
+	}
+	@Override
+	public ResponseEntity<?> getCodes(Set<String> uriList, String listId, String nameSpace, Set<String> localNames)
+			throws Exception {
+		return delegate.getCodes(uriList, listId, nameSpace, localNames);
+	}
+	@Override
+	public ResponseEntity<?> removeCode(String uri) throws Exception {
+		return delegate.removeCode(uri);
+	}
+	@Override
+	public ResponseEntity<?> setCode(CodedType prop) throws Exception {
+		return delegate.setCode(prop);
+	}
+	@Override
+	public ResponseEntity<?> propFields(Set<String> fieldNames) throws Exception {
+		return delegate.propFields(fieldNames);
+	}
+	@Override
+	public ResponseEntity<?> getProperty(String uri) throws Exception {
+		return delegate.getProperty(uri);
+	}
+	@Override
+	public ResponseEntity<?> getProperties(Set<String> uri, Set<String> classType, String nameSpace, Set<String> localNames,
+			Set<String> idxNames) throws Exception {
+		return delegate.getProperties(uri, classType, nameSpace, localNames, idxNames);
+	}
+	@Override
+	public ResponseEntity<?> propertySuggest(String query, String fieldName, int limit, int minCount) throws Exception {
+		return delegate.propertySuggest(query, fieldName, limit, minCount);
+	}
+	@Override
+	public ResponseEntity<?> selectProperties(String query, List<String> filterQuery, List<String> facetFields,
+			int facetLimit, int facetMinCount, Integer start, Integer rows, List<String> fieldList) throws Exception {
+		return delegate.selectProperties(query, filterQuery, facetFields, facetLimit, facetMinCount, start, rows, fieldList);
+	}
+	@Override
+	public ResponseEntity<?> searchProperties(Search search) throws Exception {
+		return delegate.searchProperties(search);
+	}
+	@Override
+	public ResponseEntity<?> removeProperty(String uri) throws Exception {
+		return delegate.removeProperty(uri);
+	}
+	@Override
+	public ResponseEntity<?> setProperty(PropertyType prop) throws Exception {
+		return delegate.setProperty(prop);
+	}
+}
@@ -0,0 +1,175 @@
+package at.srfg.indexing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.CodedType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.IndexField;
+import at.srfg.indexing.support.IndexFieldCatalog;
+/**
+ * Decorator serving {@link #classFields(Set)}, {@link #codeFields(Set)} and {@link #propFields(Set)}
+ * from an {@link IndexFieldCatalog} per collection. 
+ * <p>
+ * The catalogs are loaded with the delegate (requesting all fields) and reloaded 
+ * in the background periodically and after a number of modifications of the collection.
+ * The periodic reload is stopped with {@link #stop()}, e.g. when the service is destroyed.
+ * </p>
+ */
+public class FieldCatalogIndexingService extends DelegatingIndexingService {
+	/**
+	 * Default reload interval in seconds
+	 */
+	public static final long DEFAULT_REFRESH = 900;
+	
+	private final IndexFieldCatalog classFields;
+	private final IndexFieldCatalog codeFields;
+	private final IndexFieldCatalog propertyFields;
+	
+	public FieldCatalogIndexingService(IndexingService delegate) {
+		this(delegate, DEFAULT_REFRESH, IndexFieldCatalog.DEFAULT_WRITE_THRESHOLD);
+	}
+	/**
+	 * Create the decorator
+	 * @param delegate The decorated service
+	 * @param refreshSeconds The reload interval
+	 * @param writeThreshold The number of modifications triggering a reload
+	 */
+	public FieldCatalogIndexingService(IndexingService delegate, long refreshSeconds, int writeThreshold) {
+		super(delegate);
+		this.classFields = new IndexFieldCatalog(() -> fields(delegate.classFields(null)), writeThreshold).start(refreshSeconds);
+		this.codeFields = new IndexFieldCatalog(() -> fields(delegate.codeFields(null)), writeThreshold).start(refreshSeconds);
+		this.propertyFields = new IndexFieldCatalog(() -> fields(delegate.propFields(null)), writeThreshold).start(refreshSeconds);
+	}
+	/**
+	 * Stop the periodic reload of the catalogs, the catalogs are still reloaded 
+	 * after modifications
+	 */
+	public void stop() {
+		classFields.stop();
+		codeFields.stop();
+		propertyFields.stop();
+	}
+	public IndexFieldCatalog getClassFields() {
+		return classFields;
+	}
+	public IndexFieldCatalog getCodeFields() {
+		return codeFields;
+	}
+	public IndexFieldCatalog getPropertyFields() {
+		return propertyFields;
+	}
+	@Override
+	public ResponseEntity<?> classFields(Set<String> fieldNames) throws Exception {
+		return ResponseEntity.ok(classFields.getFields(fieldNames));
+	}
+	@Override
+	public ResponseEntity<?> setClassBatch(List<ClassType> classes) throws Exception {
+		try {
+			return delegate.setClassBatch(classes);
+		}
+		finally {
+			classes.forEach(document -> classFields.modified());
+		}
+	}
+	@Override
+	public ResponseEntity<?> setClass(ClassType prop) throws Exception {
+		try {
+			return delegate.setClass(prop);
+		}
+		finally {
+			classFields.modified();
+		}
+	}
+	@Override
+	public ResponseEntity<?> removeClass(String uri) throws Exception {
+		try {
+			return delegate.removeClass(uri);
+		}
+		finally {
+			classFields.modified();
+		}
+	}
+	@Override
+	public ResponseEntity<?> codeFields(Set<String> fieldNames) throws Exception {
+		return ResponseEntity.ok(codeFields.getFields(fieldNames));
+	}
+	@Override
+	public ResponseEntity<?> setCodeBatch(List<CodedType> codes) throws Exception {
+		try {
+			return delegate.setCodeBatch(codes);
+		}
+		finally {
+			codes.forEach(document -> codeFields.modified());
+		}
+	}
+	@Override
+	public ResponseEntity<?> setCode(CodedType prop) throws Exception {
+		try {
+			return delegate.setCode(prop);
+		}
+		finally {
+			codeFields.modified();
+		}
+	}
+	@Override
+	public ResponseEntity<?> removeCode(String uri) throws Exception {
+		try {
+			return delegate.removeCode(uri);
+		}
+		finally {
+			codeFields.modified();
+		}
+	}
+	@Override
+	public ResponseEntity<?> propFields(Set<String> fieldNames) throws Exception {
+		return ResponseEntity.ok(propertyFields.getFields(fieldNames));
+	}
+	@Override
+	public ResponseEntity<?> setPropertyBatch(List<PropertyType> properties) throws Exception {
+		try {
+			return delegate.setPropertyBatch(properties);
+		}
+		finally {
+			properties.forEach(document -> propertyFields.modified());
+		}
+	}
+	@Override
+	public ResponseEntity<?> setProperty(PropertyType prop) throws Exception {
+		try {
+			return delegate.setProperty(prop);
+		}
+		finally {
+			propertyFields.modified();
+		}
+	}
+	@Override
+	public ResponseEntity<?> removeProperty(String uri) throws Exception {
+		try {
+			return delegate.removeProperty(uri);
+		}
+		finally {
+			propertyFields.modified();
+		}
+	}
+	/**
+	 * Extract the fields from the response of the delegate
+	 */
+	private static Collection<IndexField> fields(ResponseEntity<?> response) {
+		if (! response.getStatusCode().is2xxSuccessful() || !(response.getBody() instanceof Collection<?>)) {
+			throw new IllegalStateException("Reading the fields failed: " + response.getStatusCode());
+		}
+		List<IndexField> fields = new ArrayList<>();
+		for (Object field : (Collection<?>) response.getBody()) {
+			if ( field instanceof IndexField ) {
+				fields.add((IndexField) field);
+			}
+		}
+		return fields;
+	}
+}
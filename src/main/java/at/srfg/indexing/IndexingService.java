@@ -1,8 +1,10 @@
 package at.srfg.indexing;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,14 +14,26 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.hierarchy.PropertyInheritance;
+import at.srfg.indexing.hierarchy.Subtree;
+import at.srfg.indexing.hierarchy.TaxonomyGraph;
+import at.srfg.indexing.hierarchy.TaxonomyGraphLoader;
 import at.srfg.indexing.model.common.ClassType;
 import at.srfg.indexing.model.common.CodedType;
 import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.BulkResult;
 import at.srfg.indexing.model.solr.FacetResult;
 import at.srfg.indexing.model.solr.IndexField;
 import at.srfg.indexing.model.solr.Search;
 import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.support.BulkIngest;
+import at.srfg.indexing.support.CursorExport;
+import at.srfg.indexing.support.SearchResultWriter;
+import at.srfg.indexing.support.UriBatchLookup;
 import io.swagger.annotations.ApiOperation;
 
 /**
@@ -65,6 +79,10 @@ public interface IndexingService {
 			@RequestParam(name="fieldName", required = false)	
 			Set<String> fieldNames) throws Exception;
 
+	/**
+	 * Select classes (categories) with query parameters. The result is serialized with Spring's message conversion, see 
+	 * {@link #streamClasses(Search)} for the streamed variant.
+	 */
 	@RequestMapping(
 			method = RequestMethod.GET, 
 			value="/class/select", 
@@ -86,7 +104,9 @@ public interface IndexingService {
 			int facetMinCount,
 			@RequestParam(name = "start", required = false, defaultValue = "0") 
 			Integer start,
-			@RequestParam(name = "rows", required = false, defaultValue = "10") Integer rows) throws Exception;
+			@RequestParam(name = "rows", required = false, defaultValue = "10") Integer rows,
+			@RequestParam(name = "fl", required = false) 
+			List<String> fieldList) throws Exception;
 
 	@RequestMapping(
 			method = RequestMethod.GET, 
@@ -107,6 +127,10 @@ public interface IndexingService {
 			int minCount
 			) throws Exception;
 
+	/**
+	 * Search classes (categories). The result is serialized with Spring's message conversion, see 
+	 * {@link #streamClasses(Search)} for the streamed variant.
+	 */
 	@RequestMapping(
 			method = RequestMethod.POST, 
 			value="/class/search", 
@@ -117,6 +141,53 @@ public interface IndexingService {
 //			@RequestHeader(value = "Authorization") String bearerToken,
 			@RequestBody Search search
 			) throws Exception;
+	/**
+	 * Search classes (categories) and stream the {@link SearchResult} with {@link SearchResultWriter}, 
+	 * the response equals the one of {@link #searchClass(Search)}. The default implementation
+	 * streams the result of {@link #searchClass(Search)} with {@link #getObjectMapper()}. 
+	 * Implementations reading the Solr response as stream (e.g. with SolrJ's 
+	 * <code>StreamingResponseCallback</code>) override to write each document as it is read, 
+	 * without collecting the result list.
+	 * @param search The search
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/class/search/stream", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Search for classes (categories) and stream the result", response = SearchResult.class)
+	@PostMapping("/class/search/stream")
+	default ResponseEntity<StreamingResponseBody> streamClasses(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestBody Search search) throws Exception {
+		return SearchResultWriter.stream(getObjectMapper(), searchClass(search));
+	}
+	/**
+	 * Export all classes matching the query as newline delimited JSON (NDJSON). The 
+	 * documents are streamed page by page, see {@link CursorExport}.
+	 * @param query The query, defaults to all documents
+	 * @param filterQuery Optional filter queries
+	 * @param rows The number of documents requested per page
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.GET, 
+			value="/class/export", 
+			produces = CursorExport.APPLICATION_NDJSON_VALUE)
+	@ApiOperation(value = "", notes = "Export classes (categories) as NDJSON stream")
+	@GetMapping("/class/export")
+	default ResponseEntity<StreamingResponseBody> exportClasses(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestParam(name = "q", required = false, defaultValue = "*:*") String query,
+			@RequestParam(name = "fq", required = false) List<String> filterQuery,
+			@RequestParam(name = "rows", required = false, defaultValue = "500") int rows) throws Exception {
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(CursorExport.APPLICATION_NDJSON_VALUE))
+				.body(CursorExport.export(getObjectMapper(), query, filterQuery, rows, this::searchClass));
+	}
 	
 	@RequestMapping(
 			method = RequestMethod.GET, 
@@ -132,6 +203,26 @@ public interface IndexingService {
 			@RequestParam(name="localName", required = false) Set<String> localNames, 
 			@RequestParam(required = false) String property
 			) throws Exception;
+	/**
+	 * Retrieve a (large) list of classes. The URI's are resolved in chunks, the chunks are 
+	 * searched in parallel and the classes are streamed as soon as a chunk completes. 
+	 * URI's not found or failed are reported separately, see {@link UriBatchLookup}. 
+	 * @param uriList The URI's of the classes
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/classes/lookup", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Retrieve the classes (categories) for a list of URI's")
+	@PostMapping("/classes/lookup")
+	default ResponseEntity<StreamingResponseBody> lookupClasses(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestBody List<String> uriList) throws Exception {
+		return ResponseEntity.ok(getUriBatchLookup().lookup(uriList, this::searchClass));
+	}
 	
 	@RequestMapping(
 			method = RequestMethod.DELETE, 
@@ -156,6 +247,159 @@ public interface IndexingService {
 //			@RequestHeader(value = "Authorization") 
 //			String bearerToken,
 			@RequestBody ClassType prop) throws Exception;
+	/**
+	 * Index multiple classes (categories) with a single request. The classes are
+	 * provided as JSON array or as newline delimited JSON (NDJSON) stream and are
+	 * processed one after the other.
+	 * <p>
+	 * The documents are passed in batches of {@link #getBulkBatchSize()} to 
+	 * {@link #setClassBatch(List)}. With the defaults, each class is stored with 
+	 * {@link #setClass(ClassType)}, one write per document. Implementations override both 
+	 * methods to store a batch with a single write.
+	 * </p>
+	 * @param documents The request body
+	 * @return A list of {@link BulkResult}s, one per document
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/class/bulk", 
+			consumes = {MediaType.APPLICATION_JSON_VALUE, BulkIngest.APPLICATION_NDJSON_VALUE}, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Index multiple classes (categories) provided as JSON array or NDJSON stream", 
+			response = BulkResult.class, responseContainer = "List")
+	@PostMapping("/class/bulk")
+	default ResponseEntity<?> setClasses(
+//			@RequestHeader(value = "Authorization") 
+//			String bearerToken,
+			InputStream documents) throws Exception {
+		return ResponseEntity.ok(BulkIngest.process(getObjectMapper(), documents, ClassType.class, 
+				getBulkBatchSize(), this::setClassBatch));
+	}
+	/**
+	 * Index a batch of classes, see {@link #setClasses(InputStream)}. The default implementation 
+	 * stores the classes one by one with {@link #setClass(ClassType)} and stops with the first 
+	 * failure, override to store the batch with a single write (e.g. one <code>saveAll</code> and 
+	 * one commit).
+	 * @param classes The batch
+	 * @return The response applying to all documents of the batch
+	 * @throws Exception
+	 */
+	default ResponseEntity<?> setClassBatch(List<ClassType> classes) throws Exception {
+		ResponseEntity<?> response = ResponseEntity.ok(Boolean.TRUE);
+		for (ClassType document : classes) {
+			response = setClass(document);
+			if (! response.getStatusCode().is2xxSuccessful() || Boolean.FALSE.equals(response.getBody())) {
+				return response;
+			}
+		}
+		return response;
+	}
+	/**
+	 * The number of documents passed to {@link #setClassBatch(List)}, {@link #setCodeBatch(List)} 
+	 * and {@link #setPropertyBatch(List)} by the bulk endpoints. The default is one, override 
+	 * together with the batch methods.
+	 * @return
+	 */
+	default int getBulkBatchSize() {
+		return 1;
+	}
+	/**
+	 * Obtain the lookup resolving (large) URI lists for {@link #lookupClasses(List)}, 
+	 * {@link #lookupCodes(List)} and {@link #lookupProperties(List)}. The default 
+	 * implementation uses a shared executor and {@link #getObjectMapper()}, override 
+	 * to provide a managed executor.
+	 * @return
+	 */
+	default UriBatchLookup getUriBatchLookup() {
+		return UriBatchLookup.getDefault(getObjectMapper());
+	}
+	/**
+	 * Obtain the object mapper serializing the streamed responses of the lookup and 
+	 * export endpoints. The default implementation uses a mapper with Spring's default 
+	 * settings, override to provide the application's mapper.
+	 * @return
+	 */
+	default ObjectMapper getObjectMapper() {
+		return UriBatchLookup.getDefault().getObjectMapper();
+	}
+	/**
+	 * Obtain the in-memory taxonomy of the class collection. Implementations provide the 
+	 * graph of a {@link TaxonomyGraphLoader} constructed with {@link #searchClass(Search)} 
+	 * and managed by the application, e.g. <code>return loader.get();</code>. The default 
+	 * implementation provides no taxonomy, so no client of this interface loads the class 
+	 * collection by itself.
+	 * @return The graph, <code>null</code> when no taxonomy is in use
+	 * @throws Exception
+	 */
+	default TaxonomyGraph getTaxonomyGraph() throws Exception {
+		return null;
+	}
+	/**
+	 * Retrieve the sub classes of a class (category) from the in-memory taxonomy, 
+	 * see {@link #getTaxonomyGraph()}. Responds with <i>501 Not Implemented</i> when no 
+	 * taxonomy is in use.
+	 * @param uri The id/uri of the class
+	 * @param depth The number of levels to include, all levels when not positive
+	 * @return The {@link Subtree}
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.GET, 
+			value="/class/subtree", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Retrieve the sub classes (categories) of a class", response = Subtree.class)
+	@GetMapping("/class/subtree")
+	default ResponseEntity<?> classSubtree(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestParam(name = "uri") String uri,
+			@RequestParam(name = "depth", required = false, defaultValue = "0") int depth) throws Exception {
+		TaxonomyGraph graph = getTaxonomyGraph();
+		if ( graph == null ) {
+			return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+		}
+		if (! graph.contains(uri)) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(new Subtree(uri, graph.level(uri), graph.subtreeCount(uri), 
+				depth > 0 ? graph.descendants(uri, depth) : graph.descendants(uri)));
+	}
+	/**
+	 * Obtain the resolver of the inherited properties used with {@link #inheritedProperties(String)}. 
+	 * Implementations provide a {@link PropertyInheritance} managed by the application, e.g. 
+	 * constructed with the {@link TaxonomyGraphLoader} of {@link #getTaxonomyGraph()}.
+	 * @return The resolver, <code>null</code> when inherited properties are not in use
+	 */
+	default PropertyInheritance getPropertyInheritance() {
+		return null;
+	}
+	/**
+	 * Retrieve the effective properties of a class (category), e.g. the properties
+	 * assigned to the class or to any of its parents. The property URI's are resolved
+	 * and cached with {@link #getPropertyInheritance()}, the properties 
+	 * are streamed as with {@link #lookupProperties(List)}. Responds with <i>501 Not Implemented</i>
+	 * when no resolver is in use.
+	 * @param uri The id/uri of the class
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.GET, 
+			value="/class/inheritedProperties", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Retrieve the properties of a class (category) including the inherited properties")
+	@GetMapping("/class/inheritedProperties")
+	default ResponseEntity<StreamingResponseBody> inheritedProperties(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestParam(name = "uri") String uri) throws Exception {
+		PropertyInheritance inheritance = getPropertyInheritance();
+		if ( inheritance == null ) {
+			return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+		}
+		return ResponseEntity.ok(getUriBatchLookup().lookup(inheritance.resolve(uri), this::searchProperties));
+	}
 	/**
 	 * Obtain a {@link CodedType} element based on it's id/uri
 	 * @param uri The id / uri of the coded type
@@ -193,6 +437,10 @@ public interface IndexingService {
 			@RequestParam(name="fieldName", required=false) Set<String> fieldNames
 			) throws Exception;
 
+	/**
+	 * Select value-codes with query parameters. The result is serialized with Spring's message conversion, see 
+	 * {@link #streamCodes(Search)} for the streamed variant.
+	 */
 	@RequestMapping(
 			method = RequestMethod.GET, 
 			value="/code/select", 
@@ -209,11 +457,12 @@ public interface IndexingService {
 			@RequestParam(name = "facet.limit", required = false, defaultValue = "15") int facetLimit,
 			@RequestParam(name = "facet.mincount", required = false, defaultValue = "1") int facetMinCount,
 			@RequestParam(name = "start", required = false, defaultValue = "0") Integer start,
-			@RequestParam(name = "rows", required = false, defaultValue = "10") Integer rows) throws Exception ;
+			@RequestParam(name = "rows", required = false, defaultValue = "10") Integer rows,
+			@RequestParam(name = "fl", required = false) List<String> fieldList) throws Exception ;
 	
 	@RequestMapping(
 			method = RequestMethod.GET, 
-			value="/class/suggest", 
+			value="/code/suggest", 
 			consumes = MediaType.APPLICATION_JSON_VALUE, 
 			produces = MediaType.APPLICATION_JSON_VALUE)
 	@ApiOperation(value = "", notes = "Retrieve suggestions for value-codes", response = FacetResult.class)
@@ -228,6 +477,10 @@ public interface IndexingService {
 			) throws Exception;
 	
 	
+	/**
+	 * Search value-codes. The result is serialized with Spring's message conversion, see 
+	 * {@link #streamCodes(Search)} for the streamed variant.
+	 */
 	@RequestMapping(
 			method = RequestMethod.POST, 
 			value="/code/search", 
@@ -239,6 +492,53 @@ public interface IndexingService {
 //			@RequestHeader(value = "Authorization") 
 //			String bearerToken,
 			@RequestBody Search search) throws Exception;
+	/**
+	 * Search value-codes and stream the {@link SearchResult} with {@link SearchResultWriter}, 
+	 * the response equals the one of {@link #searchCode(Search)}. The default implementation
+	 * streams the result of {@link #searchCode(Search)} with {@link #getObjectMapper()}. 
+	 * Implementations reading the Solr response as stream (e.g. with SolrJ's 
+	 * <code>StreamingResponseCallback</code>) override to write each document as it is read, 
+	 * without collecting the result list.
+	 * @param search The search
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/code/search/stream", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Search for value-codes and stream the result", response = SearchResult.class)
+	@PostMapping("/code/search/stream")
+	default ResponseEntity<StreamingResponseBody> streamCodes(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestBody Search search) throws Exception {
+		return SearchResultWriter.stream(getObjectMapper(), searchCode(search));
+	}
+	/**
+	 * Export all value-codes matching the query as newline delimited JSON (NDJSON). The 
+	 * documents are streamed page by page, see {@link CursorExport}.
+	 * @param query The query, defaults to all documents
+	 * @param filterQuery Optional filter queries
+	 * @param rows The number of documents requested per page
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.GET, 
+			value="/code/export", 
+			produces = CursorExport.APPLICATION_NDJSON_VALUE)
+	@ApiOperation(value = "", notes = "Export value-codes as NDJSON stream")
+	@GetMapping("/code/export")
+	default ResponseEntity<StreamingResponseBody> exportCodes(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestParam(name = "q", required = false, defaultValue = "*:*") String query,
+			@RequestParam(name = "fq", required = false) List<String> filterQuery,
+			@RequestParam(name = "rows", required = false, defaultValue = "500") int rows) throws Exception {
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(CursorExport.APPLICATION_NDJSON_VALUE))
+				.body(CursorExport.export(getObjectMapper(), query, filterQuery, rows, this::searchCode));
+	}
 
 	@RequestMapping(
 			method = RequestMethod.GET, 
@@ -254,6 +554,26 @@ public interface IndexingService {
 			@RequestParam(name="listId", required = false) String listId,
 			@RequestParam(name="nameSpace", required = false) String nameSpace,
 			@RequestParam(name="localName", required = false) Set<String> localNames) throws Exception;
+	/**
+	 * Retrieve a (large) list of value-codes. The URI's are resolved in chunks, the chunks are 
+	 * searched in parallel and the codes are streamed as soon as a chunk completes.
+	 * URI's not found or failed are reported separately, see {@link UriBatchLookup}. 
+	 * @param uriList The URI's of the codes
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/codes/lookup", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Retrieve the value-codes for a list of URI's")
+	@PostMapping("/codes/lookup")
+	default ResponseEntity<StreamingResponseBody> lookupCodes(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestBody List<String> uriList) throws Exception {
+		return ResponseEntity.ok(getUriBatchLookup().lookup(uriList, this::searchCode));
+	}
 	
 
 	@RequestMapping(
@@ -277,6 +597,53 @@ public interface IndexingService {
 	public ResponseEntity<?> setCode(
 //			@RequestHeader(value = "Authorization") String bearerToken,
 			@RequestBody CodedType prop) throws Exception;
+	/**
+	 * Index multiple value-codes with a single request. The codes are
+	 * provided as JSON array or as newline delimited JSON (NDJSON) stream and are
+	 * processed one after the other.
+	 * <p>
+	 * The documents are passed in batches of {@link #getBulkBatchSize()} to 
+	 * {@link #setCodeBatch(List)}. With the defaults, each code is stored with 
+	 * {@link #setCode(CodedType)}, one write per document. Implementations override both 
+	 * methods to store a batch with a single write.
+	 * </p>
+	 * @param documents The request body
+	 * @return A list of {@link BulkResult}s, one per document
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/code/bulk", 
+			consumes = {MediaType.APPLICATION_JSON_VALUE, BulkIngest.APPLICATION_NDJSON_VALUE}, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Index multiple value-codes provided as JSON array or NDJSON stream", 
+			response = BulkResult.class, responseContainer = "List")
+	@PostMapping("/code/bulk")
+	default ResponseEntity<?> setCodes(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			InputStream documents) throws Exception {
+		return ResponseEntity.ok(BulkIngest.process(getObjectMapper(), documents, CodedType.class, 
+				getBulkBatchSize(), this::setCodeBatch));
+	}
+	/**
+	 * Index a batch of codes, see {@link #setCodes(InputStream)}. The default implementation 
+	 * stores the codes one by one with {@link #setCode(CodedType)} and stops with the first 
+	 * failure, override to store the batch with a single write (e.g. one <code>saveAll</code> and 
+	 * one commit).
+	 * @param codes The batch
+	 * @return The response applying to all documents of the batch
+	 * @throws Exception
+	 */
+	default ResponseEntity<?> setCodeBatch(List<CodedType> codes) throws Exception {
+		ResponseEntity<?> response = ResponseEntity.ok(Boolean.TRUE);
+		for (CodedType document : codes) {
+			response = setCode(document);
+			if (! response.getStatusCode().is2xxSuccessful() || Boolean.FALSE.equals(response.getBody())) {
+				return response;
+			}
+		}
+		return response;
+	}
 
 	@RequestMapping(
 			method = RequestMethod.GET, 
@@ -317,6 +684,26 @@ public interface IndexingService {
 			@RequestParam(name = "nameSpace", required = false) String nameSpace,
 			@RequestParam(name = "localName", required = false) Set<String> localNames,
 			@RequestParam(name = "idxName", required = false) Set<String> idxNames) throws Exception;
+	/**
+	 * Retrieve a (large) list of properties. The URI's are resolved in chunks, the chunks are 
+	 * searched in parallel and the properties are streamed as soon as a chunk completes.
+	 * URI's not found or failed are reported separately, see {@link UriBatchLookup}. 
+	 * @param uriList The URI's of the properties
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/properties/lookup", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Retrieve the properties for a list of URI's")
+	@PostMapping("/properties/lookup")
+	default ResponseEntity<StreamingResponseBody> lookupProperties(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestBody List<String> uriList) throws Exception {
+		return ResponseEntity.ok(getUriBatchLookup().lookup(uriList, this::searchProperties));
+	}
 	
 	@RequestMapping(
 			method = RequestMethod.GET, 
@@ -334,6 +721,10 @@ public interface IndexingService {
 			) throws Exception ;
 	
 	
+	/**
+	 * Select properties with query parameters. The result is serialized with Spring's message conversion, see 
+	 * {@link #streamProperties(Search)} for the streamed variant.
+	 */
 	@RequestMapping(
 			method = RequestMethod.GET, 
 			value="/property/select", 
@@ -349,9 +740,14 @@ public interface IndexingService {
 			@RequestParam(name = "facet.limit", required = false, defaultValue = "15") int facetLimit,
 			@RequestParam(name = "facet.mincount", required = false, defaultValue = "1") int facetMinCount,
 			@RequestParam(name = "start", required = false, defaultValue = "0") Integer start,
-			@RequestParam(name = "rows", required = false, defaultValue = "10") Integer rows)throws Exception ;
+			@RequestParam(name = "rows", required = false, defaultValue = "10") Integer rows,
+			@RequestParam(name = "fl", required = false) List<String> fieldList)throws Exception ;
 	
 	
+	/**
+	 * Search properties. The result is serialized with Spring's message conversion, see 
+	 * {@link #streamProperties(Search)} for the streamed variant.
+	 */
 	@RequestMapping(
 			method = RequestMethod.POST, 
 			value="/property/search", 
@@ -362,6 +758,53 @@ public interface IndexingService {
 	public ResponseEntity<?> searchProperties(
 //			@RequestHeader(value = "Authorization") String bearerToken,
 			@RequestBody Search search)throws Exception ;
+	/**
+	 * Search properties and stream the {@link SearchResult} with {@link SearchResultWriter}, 
+	 * the response equals the one of {@link #searchProperties(Search)}. The default implementation
+	 * streams the result of {@link #searchProperties(Search)} with {@link #getObjectMapper()}. 
+	 * Implementations reading the Solr response as stream (e.g. with SolrJ's 
+	 * <code>StreamingResponseCallback</code>) override to write each document as it is read, 
+	 * without collecting the result list.
+	 * @param search The search
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/property/search/stream", 
+			consumes = MediaType.APPLICATION_JSON_VALUE, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Search for properties and stream the result", response = SearchResult.class)
+	@PostMapping("/property/search/stream")
+	default ResponseEntity<StreamingResponseBody> streamProperties(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestBody Search search) throws Exception {
+		return SearchResultWriter.stream(getObjectMapper(), searchProperties(search));
+	}
+	/**
+	 * Export all properties matching the query as newline delimited JSON (NDJSON). The 
+	 * documents are streamed page by page, see {@link CursorExport}.
+	 * @param query The query, defaults to all documents
+	 * @param filterQuery Optional filter queries
+	 * @param rows The number of documents requested per page
+	 * @return
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.GET, 
+			value="/property/export", 
+			produces = CursorExport.APPLICATION_NDJSON_VALUE)
+	@ApiOperation(value = "", notes = "Export properties as NDJSON stream")
+	@GetMapping("/property/export")
+	default ResponseEntity<StreamingResponseBody> exportProperties(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			@RequestParam(name = "q", required = false, defaultValue = "*:*") String query,
+			@RequestParam(name = "fq", required = false) List<String> filterQuery,
+			@RequestParam(name = "rows", required = false, defaultValue = "500") int rows) throws Exception {
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(CursorExport.APPLICATION_NDJSON_VALUE))
+				.body(CursorExport.export(getObjectMapper(), query, filterQuery, rows, this::searchProperties));
+	}
 	
 	
 	@RequestMapping(
@@ -386,4 +829,51 @@ public interface IndexingService {
 	public ResponseEntity<?> setProperty(
 //			@RequestHeader(value = "Authorization") String bearerToken,
 			@RequestBody PropertyType prop)throws Exception ;
+	/**
+	 * Index multiple properties with a single request. The properties are
+	 * provided as JSON array or as newline delimited JSON (NDJSON) stream and are
+	 * processed one after the other.
+	 * <p>
+	 * The documents are passed in batches of {@link #getBulkBatchSize()} to 
+	 * {@link #setPropertyBatch(List)}. With the defaults, each property is stored with 
+	 * {@link #setProperty(PropertyType)}, one write per document. Implementations override both 
+	 * methods to store a batch with a single write.
+	 * </p>
+	 * @param documents The request body
+	 * @return A list of {@link BulkResult}s, one per document
+	 * @throws Exception
+	 */
+	@RequestMapping(
+			method = RequestMethod.POST, 
+			value="/property/bulk", 
+			consumes = {MediaType.APPLICATION_JSON_VALUE, BulkIngest.APPLICATION_NDJSON_VALUE}, 
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation(value = "", notes = "Index multiple properties provided as JSON array or NDJSON stream", 
+			response = BulkResult.class, responseContainer = "List")
+	@PostMapping("/property/bulk")
+	default ResponseEntity<?> setProperties(
+//			@RequestHeader(value = "Authorization") String bearerToken,
+			InputStream documents) throws Exception {
+		return ResponseEntity.ok(BulkIngest.process(getObjectMapper(), documents, PropertyType.class, 
+				getBulkBatchSize(), this::setPropertyBatch));
+	}
+	/**
+	 * Index a batch of properties, see {@link #setProperties(InputStream)}. The default implementation 
+	 * stores the properties one by one with {@link #setProperty(PropertyType)} and stops with the first 
+	 * failure, override to store the batch with a single write (e.g. one <code>saveAll</code> and 
+	 * one commit).
+	 * @param properties The batch
+	 * @return The response applying to all documents of the batch
+	 * @throws Exception
+	 */
+	default ResponseEntity<?> setPropertyBatch(List<PropertyType> properties) throws Exception {
+		ResponseEntity<?> response = ResponseEntity.ok(Boolean.TRUE);
+		for (PropertyType document : properties) {
+			response = setProperty(document);
+			if (! response.getStatusCode().is2xxSuccessful() || Boolean.FALSE.equals(response.getBody())) {
+				return response;
+			}
+		}
+		return response;
+	}
 }
\ No newline at end of file
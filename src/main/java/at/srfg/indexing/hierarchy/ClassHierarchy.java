@@ -0,0 +1,415 @@
+package at.srfg.indexing.hierarchy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.data.solr.core.query.PartialUpdate;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IClassType;
+/**
+ * Closure engine for the class hierarchy.
+ * <p>
+ * The hierarchy is built from the direct parent relations of the classes, 
+ * {@link #compute()} then derives the direct children, all parents, all children
+ * and the level of each class in a single topological pass. Root classes (without
+ * parents) have level 1, any other class is one level below its deepest parent.
+ * </p>
+ * <p>
+ * Once computed, single classes are maintained with {@link #update(String, Collection)} 
+ * and {@link #remove(String)}. Only the descendants and the (old and new) ancestors of 
+ * the modified class are recomputed, the result contains atomic updates for the documents
+ * with changed hierarchy fields only:
+ * <pre>
+ * ClassHierarchy hierarchy = ClassHierarchy.of(classes.stream());
+ * hierarchy.compute();
+ * ...
+ * List&lt;PartialUpdate&gt; updates = hierarchy.update(uri, newParents);
+ * solrTemplate.saveBeans(IClassType.COLLECTION, updates);
+ * </pre>
+ * </p>
+ * Instances are not thread safe.
+ */
+public class ClassHierarchy {
+	/**
+	 * The hierarchy fields of a single class
+	 */
+	private static class Node {
+		final String uri;
+		Set<String> parents = new HashSet<>();
+		Set<String> children = new HashSet<>();
+		Set<String> allParents = new HashSet<>();
+		Set<String> allChildren = new HashSet<>();
+		int level = 1;
+		
+		Node(String uri) {
+			this.uri = uri;
+		}
+		Node copy() {
+			Node copy = new Node(uri);
+			copy.parents = new HashSet<>(parents);
+			copy.children = new HashSet<>(children);
+			copy.allParents = new HashSet<>(allParents);
+			copy.allChildren = new HashSet<>(allChildren);
+			copy.level = level;
+			return copy;
+		}
+	}
+	private final Map<String, Node> nodes = new HashMap<>();
+	/**
+	 * Create the hierarchy from the parent relations of the provided classes,
+	 * parents not contained in the stream are added as root classes. 
+	 * @param classes
+	 * @return The hierarchy, use {@link #compute()} to calculate the closure
+	 */
+	public static ClassHierarchy of(Stream<ClassType> classes) {
+		ClassHierarchy hierarchy = new ClassHierarchy();
+		classes.forEach(c -> {
+			hierarchy.addClass(c.getUri());
+			if ( c.getParents() != null ) {
+				for (String parent : c.getParents()) {
+					hierarchy.addEdge(c.getUri(), parent);
+				}
+			}
+		});
+		return hierarchy;
+	}
+	/**
+	 * Add a class to the hierarchy
+	 * @param uri
+	 */
+	public void addClass(String uri) {
+		node(uri);
+	}
+	/**
+	 * Add a direct parent relation
+	 * @param child The URI of the sub class
+	 * @param parent The URI of the direct super class
+	 */
+	public void addEdge(String child, String parent) {
+		if ( Objects.equals(child, parent)) {
+			throw new HierarchyCycleException(Collections.singleton(child));
+		}
+		node(child).parents.add(parent);
+		node(parent).children.add(child);
+	}
+	/**
+	 * Check whether the class is part of the hierarchy
+	 * @param uri
+	 * @return
+	 */
+	public boolean contains(String uri) {
+		return nodes.containsKey(uri);
+	}
+	public int size() {
+		return nodes.size();
+	}
+	public Set<String> getParents(String uri) {
+		return fieldOf(uri, n -> n.parents);
+	}
+	public Set<String> getChildren(String uri) {
+		return fieldOf(uri, n -> n.children);
+	}
+	public Set<String> getAllParents(String uri) {
+		return fieldOf(uri, n -> n.allParents);
+	}
+	public Set<String> getAllChildren(String uri) {
+		return fieldOf(uri, n -> n.allChildren);
+	}
+	/**
+	 * Obtain the computed level
+	 * @param uri
+	 * @return The level, <code>null</code> when the class is unknown
+	 */
+	public Integer getLevel(String uri) {
+		Node node = nodes.get(uri);
+		return node != null ? node.level : null;
+	}
+	/**
+	 * Compute all parents, all children and the level of all classes
+	 * @throws HierarchyCycleException when the parent relations contain a cycle
+	 */
+	public void compute() {
+		List<Node> order = topologicalOrder(nodes.values());
+		computeParents(order);
+		computeChildren(order);
+	}
+	/**
+	 * Copy the computed hierarchy fields to the class
+	 * @param classType
+	 */
+	public void applyTo(ClassType classType) {
+		Node node = nodes.get(classType.getUri());
+		if ( node != null ) {
+			classType.setParents(node.parents);
+			classType.setChildren(node.children);
+			classType.setAllParents(node.allParents);
+			classType.setAllChildren(node.allChildren);
+			classType.setLevel(node.level);
+		}
+	}
+	/**
+	 * Create the atomic updates for the hierarchy fields of all classes, e.g. after
+	 * the initial {@link #compute()}.
+	 * @return
+	 */
+	public List<PartialUpdate> updates() {
+		List<PartialUpdate> updates = new ArrayList<>(nodes.size());
+		for (Node node : nodes.values()) {
+			updates.add(diff(null, node));
+		}
+		return updates;
+	}
+	/**
+	 * Replace the direct parents of a single class. A previously unknown class is added
+	 * to the hierarchy.
+	 * @param uri The URI of the class
+	 * @param parents The new direct parents
+	 * @return The atomic updates for all classes with modified hierarchy fields
+	 * @throws HierarchyCycleException when the new parents introduce a cycle, the hierarchy
+	 * is not modified in this case
+	 */
+	public List<PartialUpdate> update(String uri, Collection<String> parents) {
+		Map<String, Node> before = new HashMap<>();
+		Set<Node> modified = new LinkedHashSet<>();
+		relink(uri, parents != null ? new HashSet<>(parents) : new HashSet<>(), before, modified);
+		return diff(before, modified);
+	}
+	/**
+	 * Remove a class from the hierarchy, the direct children lose the parent relation.
+	 * @param uri The URI of the removed class
+	 * @return The atomic updates for the remaining classes with modified hierarchy fields
+	 */
+	public List<PartialUpdate> remove(String uri) {
+		Node node = nodes.get(uri);
+		if ( node == null ) {
+			return new ArrayList<>();
+		}
+		Map<String, Node> before = new HashMap<>();
+		Set<Node> modified = new LinkedHashSet<>();
+		// detach the class from its parents first
+		relink(uri, new HashSet<>(), before, modified);
+		for (String child : new ArrayList<>(node.children)) {
+			Set<String> parents = new HashSet<>(nodes.get(child).parents);
+			parents.remove(uri);
+			relink(child, parents, before, modified);
+		}
+		nodes.remove(uri);
+		modified.remove(node);
+		return diff(before, modified);
+	}
+	/**
+	 * Replace the direct parents of the class and recompute the affected classes
+	 * @param uri The class
+	 * @param newParents The new direct parents
+	 * @param before The state of the affected classes before the first modification 
+	 * @param modified Collects the affected classes
+	 */
+	private void relink(String uri, Set<String> newParents, Map<String, Node> before, Set<Node> modified) {
+		Node node = nodes.get(uri);
+		if ( newParents.contains(uri)) {
+			throw new HierarchyCycleException(Collections.singleton(uri));
+		}
+		if ( node == null ) {
+			node = node(uri);
+			// new class, all fields are reported
+			before.put(uri, null);
+		}
+		else {
+			for (String parent : newParents) {
+				if ( node.allChildren.contains(parent)) {
+					throw new HierarchyCycleException(Collections.singleton(uri));
+				}
+			}
+		}
+		// descendants: all parents & level may change
+		Set<Node> descendants = new LinkedHashSet<>();
+		descendants.add(node);
+		for (String child : node.allChildren) {
+			descendants.add(nodes.get(child));
+		}
+		// ancestors (old and new): all children may change
+		Set<Node> ancestors = new LinkedHashSet<>();
+		for (String parent : node.allParents) {
+			ancestors.add(nodes.get(parent));
+		}
+		Set<String> touched = new HashSet<>(node.parents);
+		touched.addAll(newParents);
+		for (String parent : touched) {
+			if ( ! nodes.containsKey(parent)) {
+				// new root class, all fields are reported
+				before.put(parent, null);
+			}
+		}
+		// remember the state before the first modification
+		for (Node n : descendants) {
+			snapshot(n, before);
+		}
+		for (Node n : ancestors) {
+			snapshot(n, before);
+		}
+		for (String parent : touched) {
+			snapshot(node(parent), before);
+		}
+		// modify the edges
+		for (String parent : node.parents) {
+			nodes.get(parent).children.remove(uri);
+		}
+		for (String parent : newParents) {
+			nodes.get(parent).children.add(uri);
+		}
+		node.parents = newParents;
+		
+		computeParents(topologicalOrder(descendants));
+		for (String parent : node.allParents) {
+			ancestors.add(nodes.get(parent));
+		}
+		computeChildren(topologicalOrder(ancestors));
+		
+		modified.addAll(descendants);
+		modified.addAll(ancestors);
+		for (String parent : touched) {
+			modified.add(nodes.get(parent));
+		}
+	}
+	private static void snapshot(Node node, Map<String, Node> before) {
+		if (! before.containsKey(node.uri)) {
+			before.put(node.uri, node.copy());
+		}
+	}
+	private static List<PartialUpdate> diff(Map<String, Node> before, Collection<Node> modified) {
+		List<PartialUpdate> updates = new ArrayList<>();
+		for (Node n : modified) {
+			PartialUpdate update = diff(before.get(n.uri), n);
+			if ( update != null ) {
+				updates.add(update);
+			}
+		}
+		return updates;
+	}
+	private Node node(String uri) {
+		return nodes.computeIfAbsent(uri, Node::new);
+	}
+	private Set<String> fieldOf(String uri, Function<Node, Set<String>> field) {
+		Node node = nodes.get(uri);
+		return node != null ? Collections.unmodifiableSet(field.apply(node)) : Collections.emptySet();
+	}
+	/**
+	 * Order the nodes parents first, considering only relations within the provided nodes
+	 */
+	private List<Node> topologicalOrder(Collection<Node> subset) {
+		Map<Node, Integer> inDegree = new HashMap<>();
+		Set<String> members = new HashSet<>();
+		for (Node n : subset) {
+			members.add(n.uri);
+		}
+		Deque<Node> ready = new ArrayDeque<>();
+		for (Node n : subset) {
+			int degree = 0;
+			for (String parent : n.parents) {
+				if ( members.contains(parent)) {
+					degree++;
+				}
+			}
+			inDegree.put(n, degree);
+			if ( degree == 0 ) {
+				ready.add(n);
+			}
+		}
+		List<Node> order = new ArrayList<>(subset.size());
+		while (! ready.isEmpty()) {
+			Node n = ready.poll();
+			order.add(n);
+			for (String child : n.children) {
+				Node c = nodes.get(child);
+				Integer degree = inDegree.get(c);
+				if ( degree != null ) {
+					inDegree.put(c, degree - 1);
+					if ( degree == 1 ) {
+						ready.add(c);
+					}
+				}
+			}
+		}
+		if ( order.size() < subset.size()) {
+			Set<String> cycle = new HashSet<>(members);
+			for (Node n : order) {
+				cycle.remove(n.uri);
+			}
+			throw new HierarchyCycleException(cycle);
+		}
+		return order;
+	}
+	/**
+	 * Compute all parents and level, parents first
+	 */
+	private void computeParents(List<Node> order) {
+		for (Node n : order) {
+			Set<String> allParents = new HashSet<>(n.parents);
+			int level = 1;
+			for (String parent : n.parents) {
+				Node p = nodes.get(parent);
+				allParents.addAll(p.allParents);
+				level = Math.max(level, p.level + 1);
+			}
+			n.allParents = allParents;
+			n.level = level;
+		}
+	}
+	/**
+	 * Compute all children, children first
+	 */
+	private void computeChildren(List<Node> order) {
+		for (int i = order.size() - 1; i >= 0; i--) {
+			Node n = order.get(i);
+			Set<String> allChildren = new HashSet<>(n.children);
+			for (String child : n.children) {
+				allChildren.addAll(nodes.get(child).allChildren);
+			}
+			n.allChildren = allChildren;
+		}
+	}
+	/**
+	 * Create the atomic update for the changed fields
+	 * @param before The previous state, <code>null</code> for all fields
+	 * @param after The current state
+	 * @return The update or <code>null</code> when unchanged
+	 */
+	private static PartialUpdate diff(Node before, Node after) {
+		PartialUpdate update = new PartialUpdate(IClassType.ID_FIELD, after.uri);
+		boolean changed = false;
+		if ( before == null || !before.parents.equals(after.parents)) {
+			update.setValueOfField(IClassType.PARENTS_FIELD, new ArrayList<>(after.parents));
+			changed = true;
+		}
+		if ( before == null || !before.children.equals(after.children)) {
+			update.setValueOfField(IClassType.CHILDREN_FIELD, new ArrayList<>(after.children));
+			changed = true;
+		}
+		if ( before == null || !before.allParents.equals(after.allParents)) {
+			update.setValueOfField(IClassType.ALL_PARENTS_FIELD, new ArrayList<>(after.allParents));
+			changed = true;
+		}
+		if ( before == null || !before.allChildren.equals(after.allChildren)) {
+			update.setValueOfField(IClassType.ALL_CHILDREN_FIELD, new ArrayList<>(after.allChildren));
+			changed = true;
+		}
+		if ( before == null || before.level != after.level) {
+			update.setValueOfField(IClassType.LEVEL_FIELD, after.level);
+			changed = true;
+		}
+		return changed ? update : null;
+	}
+}
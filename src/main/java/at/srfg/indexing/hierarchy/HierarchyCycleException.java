@@ -0,0 +1,27 @@
+package at.srfg.indexing.hierarchy;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+/**
+ * Thrown when the parent relations of the class hierarchy contain a cycle. 
+ */
+public class HierarchyCycleException extends IllegalStateException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final Set<String> uris;
+	
+	public HierarchyCycleException(Collection<String> uris) {
+		super("Cycle in class hierarchy: " + new TreeSet<>(uris));
+		this.uris = Collections.unmodifiableSet(new TreeSet<>(uris));
+	}
+	/**
+	 * The URI's of the classes participating in (or depending on) the cycle
+	 * @return
+	 */
+	public Set<String> getUris() {
+		return uris;
+	}
+}
@@ -0,0 +1,293 @@
+package at.srfg.indexing.hierarchy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+import org.apache.jena.ext.com.google.common.cache.RemovalNotification;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.common.IPropertyType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.support.CursorExport;
+import at.srfg.indexing.support.SearchFunction;
+/**
+ * Resolves the effective (inherited) properties of a class.
+ * <p>
+ * The effective properties of a class are the properties assigned to the class or to 
+ * any of its parents, either with {@link ClassType#getProperties()} or with 
+ * {@link PropertyType#getConceptClass()}. The parents are taken from the {@link TaxonomyGraph}, 
+ * so the properties of the class and all of its parents are collected with one class search
+ * and one property search, regardless of the depth of the class.
+ * </p>
+ * <p>
+ * The resolved sets are cached per class for the current taxonomy graph, all sets are 
+ * removed when a new graph is in use, e.g. after the periodic reload of the {@link TaxonomyGraphLoader}.
+ * Modifications must be reported with {@link #invalidateClass(String)} and 
+ * {@link #invalidateProperty(String)}, e.g. by the write methods of the 
+ * {@link at.srfg.indexing.CachingIndexingService}. As modified parent relations are only 
+ * known with the next graph, a modified class requests a reload of the taxonomy (see 
+ * {@link #onClassModified(Runnable)}). The resolved sets expire after a configurable time.
+ * </p>
+ * <p>
+ * The resolver is constructed explicitly, e.g. as a managed component of the application, and 
+ * provided with {@link at.srfg.indexing.IndexingService#getPropertyInheritance()}. A set computed 
+ * while a modification is reported or the graph is replaced is returned but not cached.
+ * </p>
+ */
+public class PropertyInheritance {
+	/**
+	 * Default number of cached classes
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 5000;
+	/**
+	 * Default lifetime of a resolved set in seconds
+	 */
+	public static final long DEFAULT_TTL = 600;
+	
+	private final SearchFunction classSearch;
+	private final SearchFunction propertySearch;
+	private final Callable<TaxonomyGraph> taxonomy;
+	private final Cache<String, Set<String>> resolved;
+	/**
+	 * The cached classes per property, see {@link #invalidateProperty(String, Collection)}
+	 */
+	private final Map<String, Set<String>> byProperty = new ConcurrentHashMap<>();
+	/**
+	 * Counts the reported modifications and graph changes 
+	 */
+	private final AtomicLong modifications = new AtomicLong();
+	/**
+	 * The graph the resolved sets are computed with
+	 */
+	private volatile TaxonomyGraph graph;
+	private volatile Runnable classModified;
+	/**
+	 * Create the resolver for the graph of the loader, a modified class requests a reload 
+	 * of the loader.
+	 * @param classSearch The search function for the class collection
+	 * @param propertySearch The search function for the property collection
+	 * @param loader The loader of the taxonomy graph
+	 * @param cacheSize The maximum number of cached classes
+	 */
+	public PropertyInheritance(SearchFunction classSearch, SearchFunction propertySearch, TaxonomyGraphLoader loader, long cacheSize) {
+		this(classSearch, propertySearch, loader::get, cacheSize);
+		onClassModified(loader::requestRefresh);
+	}
+	/**
+	 * Create the resolver
+	 * @param classSearch The search function for the class collection
+	 * @param propertySearch The search function for the property collection
+	 * @param taxonomy Provides the current taxonomy graph
+	 * @param cacheSize The maximum number of cached classes
+	 */
+	public PropertyInheritance(SearchFunction classSearch, SearchFunction propertySearch, Callable<TaxonomyGraph> taxonomy, long cacheSize) {
+		this(classSearch, propertySearch, taxonomy, cacheSize, DEFAULT_TTL);
+	}
+	/**
+	 * Create the resolver
+	 * @param classSearch The search function for the class collection
+	 * @param propertySearch The search function for the property collection
+	 * @param taxonomy Provides the current taxonomy graph
+	 * @param cacheSize The maximum number of cached classes
+	 * @param ttlSeconds The lifetime of a resolved set
+	 */
+	public PropertyInheritance(SearchFunction classSearch, SearchFunction propertySearch, Callable<TaxonomyGraph> taxonomy, 
+			long cacheSize, long ttlSeconds) {
+		this.classSearch = classSearch;
+		this.propertySearch = propertySearch;
+		this.taxonomy = taxonomy;
+		this.resolved = CacheBuilder.newBuilder()
+				.maximumSize(cacheSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.removalListener(this::removed)
+				.build();
+	}
+	/**
+	 * Obtain the URI's of the effective properties of the class
+	 * @param uri The URI of the class
+	 * @return The property URI's, empty when the class is unknown
+	 * @throws IOException when a search fails
+	 */
+	public Set<String> resolve(String uri) throws IOException {
+		TaxonomyGraph current = taxonomy();
+		Set<String> properties = resolved.getIfPresent(uri);
+		if ( properties != null ) {
+			return properties;
+		}
+		long stamp = modifications.get();
+		try {
+			properties = compute(uri, current);
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Property resolution failed", e);
+		}
+		// not cached when computed with a replaced graph or while modified
+		if ( current == graph && stamp == modifications.get() ) {
+			resolved.put(uri, properties);
+			for (String property : properties) {
+				byProperty.compute(property, (key, classes) -> {
+					Set<String> result = classes != null ? classes : ConcurrentHashMap.newKeySet();
+					result.add(uri);
+					return result;
+				});
+			}
+			if ( current != graph || stamp != modifications.get() ) {
+				resolved.invalidate(uri);
+			}
+		}
+		return properties;
+	}
+	/**
+	 * Set the callback for a modified class, e.g. to request a reload of the taxonomy
+	 * @param callback The callback
+	 * @return
+	 */
+	public PropertyInheritance onClassModified(Runnable callback) {
+		this.classModified = callback;
+		return this;
+	}
+	/**
+	 * Report a modified (or removed) class, the class and all of its sub classes 
+	 * are resolved again.
+	 * @param uri The URI of the class
+	 */
+	public void invalidateClass(String uri) {
+		modifications.incrementAndGet();
+		resolved.invalidate(uri);
+		TaxonomyGraph current = graph;
+		if ( current != null ) {
+			resolved.invalidateAll(current.descendants(uri));
+		}
+		Runnable callback = classModified;
+		if ( callback != null ) {
+			// the parent relations may have changed
+			callback.run();
+		}
+	}
+	/**
+	 * Report a modified (or removed) property, all classes with the property 
+	 * in the effective set and the classes the property is assigned to are resolved again.
+	 * @param uri The URI of the property
+	 * @param conceptClass The classes the property is assigned to, may be <code>null</code>
+	 */
+	public void invalidateProperty(String uri, Collection<String> conceptClass) {
+		modifications.incrementAndGet();
+		Set<String> classes = byProperty.remove(uri);
+		if ( classes != null ) {
+			resolved.invalidateAll(classes);
+		}
+		if ( conceptClass != null ) {
+			for (String classUri : conceptClass) {
+				invalidateClass(classUri);
+			}
+		}
+	}
+	/**
+	 * Report a modified (or removed) property
+	 * @param uri The URI of the property
+	 */
+	public void invalidateProperty(String uri) {
+		invalidateProperty(uri, null);
+	}
+	/**
+	 * Remove all resolved sets, e.g. after reloading the taxonomy
+	 */
+	public void invalidateAll() {
+		modifications.incrementAndGet();
+		resolved.invalidateAll();
+	}
+	/**
+	 * Obtain the current graph, the resolved sets are removed when the graph changed
+	 */
+	private TaxonomyGraph taxonomy() throws IOException {
+		TaxonomyGraph current;
+		try {
+			current = taxonomy.call();
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Taxonomy not available", e);
+		}
+		if ( current == null ) {
+			throw new IOException("Taxonomy not available");
+		}
+		if ( current != graph ) {
+			synchronized (this) {
+				if ( current != graph ) {
+					graph = current;
+					invalidateAll();
+				}
+			}
+		}
+		return current;
+	}
+	/**
+	 * Remove the class of a removed set from the cached classes per property, unless 
+	 * the property is in the set cached in the meantime
+	 */
+	private void removed(RemovalNotification<String, Set<String>> notification) {
+		String uri = notification.getKey();
+		Set<String> properties = notification.getValue();
+		if ( uri == null || properties == null ) {
+			return;
+		}
+		for (String property : properties) {
+			byProperty.computeIfPresent(property, (key, classes) -> {
+				Set<String> current = resolved.getIfPresent(uri);
+				if ( current == null || !current.contains(property) ) {
+					classes.remove(uri);
+				}
+				return classes.isEmpty() ? null : classes;
+			});
+		}
+	}
+	private Set<String> compute(String uri, TaxonomyGraph graph) throws Exception {
+		List<String> classes = new ArrayList<>();
+		classes.add(uri);
+		classes.addAll(graph.ancestors(uri));
+		
+		Set<String> properties = new LinkedHashSet<>();
+		// properties assigned with the class
+		Search classQuery = new Search()
+				.filter(Search.termsFilter(IConcept.ID_FIELD, classes))
+				.fieldList(IConcept.ID_FIELD, IClassType.PROPERTIES_FIELD)
+				.forPage(0, classes.size());
+		CursorExport.forEachPage(classQuery, classSearch, documents -> {
+			for (Object document : documents) {
+				if ( document instanceof ClassType && ((ClassType) document).getProperties() != null ) {
+					properties.addAll(((ClassType) document).getProperties());
+				}
+			}
+		});
+		// properties pointing to the class
+		Search propertyQuery = new Search()
+				.filter(Search.termsFilter(IPropertyType.CLASSIFICATION_CLASS_FIELD, classes))
+				.fieldList(IConcept.ID_FIELD)
+				.forPage(0, CursorExport.PAGE_SIZE)
+				.cursor(Search.CURSOR_START);
+		CursorExport.forEachPage(propertyQuery, propertySearch, documents -> {
+			for (Object document : documents) {
+				if ( document instanceof IConcept ) {
+					properties.add(((IConcept) document).getUri());
+				}
+			}
+		});
+		return Collections.unmodifiableSet(properties);
+	}
+}
@@ -0,0 +1,62 @@
+package at.srfg.indexing.hierarchy;
+
+import java.util.List;
+/**
+ * Response for subtree queries on the {@link TaxonomyGraph}
+ */
+public class Subtree {
+	private String uri;
+	private int level;
+	private int count;
+	private List<String> descendants;
+	
+	public Subtree() {
+		
+	}
+	public Subtree(String uri, int level, int count, List<String> descendants) {
+		this.uri = uri;
+		this.level = level;
+		this.count = count;
+		this.descendants = descendants;
+	}
+	/**
+	 * The URI of the root of the subtree
+	 * @return
+	 */
+	public String getUri() {
+		return uri;
+	}
+	public void setUri(String uri) {
+		this.uri = uri;
+	}
+	/**
+	 * The level of the root of the subtree
+	 * @return
+	 */
+	public int getLevel() {
+		return level;
+	}
+	public void setLevel(int level) {
+		this.level = level;
+	}
+	/**
+	 * The number of all classes below the root, regardless of the requested depth
+	 * @return
+	 */
+	public int getCount() {
+		return count;
+	}
+	public void setCount(int count) {
+		this.count = count;
+	}
+	/**
+	 * The URI's of the classes below the root down to the requested depth, nearest first
+	 * @return
+	 */
+	public List<String> getDescendants() {
+		return descendants;
+	}
+	public void setDescendants(List<String> descendants) {
+		this.descendants = descendants;
+	}
+}
@@ -0,0 +1,371 @@
+package at.srfg.indexing.hierarchy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import at.srfg.indexing.model.common.ClassType;
+/**
+ * Immutable, compact read model of the class hierarchy.
+ * <p>
+ * The URI's of the classes are interned to consecutive <code>int</code> identifiers, 
+ * the parent and child relations are stored in compressed sparse row (CSR) format, e.g. 
+ * the parents of class <code>i</code> are the entries <code>offsets[i]</code> up to
+ * <code>offsets[i+1]</code> of the target array. With <code>offHeap</code>, the arrays
+ * are allocated as direct buffers outside of the java heap.
+ * </p>
+ * <p>
+ * Ancestor, descendant, subtree and lowest common ancestor queries traverse the arrays
+ * without accessing the index. Instances are safe for concurrent readers, use the 
+ * {@link TaxonomyGraphLoader} for periodic reloading.
+ * </p>
+ */
+public class TaxonomyGraph {
+	/**
+	 * An empty graph
+	 */
+	public static final TaxonomyGraph EMPTY = new Builder().build(false);
+	
+	private final String[] uris;
+	private final Map<String, Integer> ids;
+	private final IntBuffer parentOffsets;
+	private final IntBuffer parents;
+	private final IntBuffer childOffsets;
+	private final IntBuffer children;
+	/**
+	 * Level per class, roots at level 1
+	 */
+	private final IntBuffer levels;
+	
+	private TaxonomyGraph(String[] uris, Map<String, Integer> ids, int[] childOf, int[] parentOf, int edges, boolean offHeap) {
+		int size = uris.length;
+		this.uris = uris;
+		this.ids = ids;
+		int[] parentOffsets = new int[size + 1];
+		int[] childOffsets = new int[size + 1];
+		for (int e = 0; e < edges; e++) {
+			parentOffsets[childOf[e] + 1]++;
+			childOffsets[parentOf[e] + 1]++;
+		}
+		for (int i = 0; i < size; i++) {
+			parentOffsets[i + 1] += parentOffsets[i];
+			childOffsets[i + 1] += childOffsets[i];
+		}
+		int[] parents = new int[edges];
+		int[] children = new int[edges];
+		int[] parentFill = Arrays.copyOf(parentOffsets, size);
+		int[] childFill = Arrays.copyOf(childOffsets, size);
+		for (int e = 0; e < edges; e++) {
+			parents[parentFill[childOf[e]]++] = parentOf[e];
+			children[childFill[parentOf[e]]++] = childOf[e];
+		}
+		this.parentOffsets = buffer(parentOffsets, offHeap);
+		this.parents = buffer(parents, offHeap);
+		this.childOffsets = buffer(childOffsets, offHeap);
+		this.children = buffer(children, offHeap);
+		this.levels = buffer(levels(uris, parentOffsets, parents, childOffsets, children), offHeap);
+	}
+	/**
+	 * Create the graph from the parent relations of the classes
+	 * @param classes The classes
+	 * @param offHeap Whether to store the relations outside of the java heap
+	 * @return
+	 * @throws HierarchyCycleException when the relations contain a cycle
+	 */
+	public static TaxonomyGraph of(Collection<ClassType> classes, boolean offHeap) {
+		Builder builder = new Builder();
+		for (ClassType c : classes) {
+			builder.add(c);
+		}
+		return builder.build(offHeap);
+	}
+	/**
+	 * Number of classes
+	 * @return
+	 */
+	public int size() {
+		return uris.length;
+	}
+	/**
+	 * Number of parent relations
+	 * @return
+	 */
+	public int edges() {
+		return parents.limit();
+	}
+	public boolean contains(String uri) {
+		return ids.containsKey(uri);
+	}
+	/**
+	 * The level of the class, roots have level 1
+	 * @param uri
+	 * @return The level or <code>0</code> for an unknown class
+	 */
+	public int level(String uri) {
+		Integer id = ids.get(uri);
+		return id != null ? levels.get(id) : 0;
+	}
+	/**
+	 * The direct parents
+	 * @param uri
+	 * @return
+	 */
+	public List<String> parents(String uri) {
+		return neighbours(uri, parentOffsets, parents);
+	}
+	/**
+	 * The direct children
+	 * @param uri
+	 * @return
+	 */
+	public List<String> children(String uri) {
+		return neighbours(uri, childOffsets, children);
+	}
+	/**
+	 * All parents at any upper level, nearest first
+	 * @param uri
+	 * @return
+	 */
+	public List<String> ancestors(String uri) {
+		return traverse(uri, parentOffsets, parents, Integer.MAX_VALUE);
+	}
+	/**
+	 * All children at any lower level, nearest first
+	 * @param uri
+	 * @return
+	 */
+	public List<String> descendants(String uri) {
+		return descendants(uri, Integer.MAX_VALUE);
+	}
+	/**
+	 * The children down to the given depth, nearest first
+	 * @param uri
+	 * @param depth The number of levels, <code>1</code> for the direct children
+	 * @return
+	 */
+	public List<String> descendants(String uri, int depth) {
+		return traverse(uri, childOffsets, children, depth);
+	}
+	/**
+	 * The number of classes below the class
+	 * @param uri
+	 * @return
+	 */
+	public int subtreeCount(String uri) {
+		Integer id = ids.get(uri);
+		if ( id == null ) {
+			return 0;
+		}
+		return visit(id, childOffsets, children, Integer.MAX_VALUE, null);
+	}
+	/**
+	 * Find the lowest (deepest) class being an ancestor of (or equal to) both classes
+	 * @param first
+	 * @param second
+	 * @return The URI of the lowest common ancestor, <code>null</code> when the classes do not share an ancestor
+	 */
+	public String lowestCommonAncestor(String first, String second) {
+		Integer a = ids.get(first);
+		Integer b = ids.get(second);
+		if ( a == null || b == null ) {
+			return null;
+		}
+		BitSet ancestorsOfA = new BitSet(uris.length);
+		ancestorsOfA.set(a);
+		visit(a, parentOffsets, parents, Integer.MAX_VALUE, ancestorsOfA);
+		if ( ancestorsOfA.get(b)) {
+			return second;
+		}
+		BitSet ancestorsOfB = new BitSet(uris.length);
+		ancestorsOfB.set(b);
+		visit(b, parentOffsets, parents, Integer.MAX_VALUE, ancestorsOfB);
+		ancestorsOfA.and(ancestorsOfB);
+		int lowest = -1;
+		for (int i = ancestorsOfA.nextSetBit(0); i >= 0; i = ancestorsOfA.nextSetBit(i + 1)) {
+			if ( lowest < 0 || levels.get(i) > levels.get(lowest)) {
+				lowest = i;
+			}
+		}
+		return lowest < 0 ? null : uris[lowest];
+	}
+	private List<String> neighbours(String uri, IntBuffer offsets, IntBuffer targets) {
+		Integer id = ids.get(uri);
+		if ( id == null ) {
+			return Collections.emptyList();
+		}
+		int from = offsets.get(id);
+		int to = offsets.get(id + 1);
+		List<String> result = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			result.add(uris[targets.get(i)]);
+		}
+		return result;
+	}
+	private List<String> traverse(String uri, IntBuffer offsets, IntBuffer targets, int depth) {
+		Integer id = ids.get(uri);
+		if ( id == null ) {
+			return Collections.emptyList();
+		}
+		List<String> result = new ArrayList<>();
+		visit(id, offsets, targets, depth, null, result);
+		return result;
+	}
+	private int visit(int start, IntBuffer offsets, IntBuffer targets, int depth, BitSet visited) {
+		return visit(start, offsets, targets, depth, visited, null);
+	}
+	/**
+	 * Breadth first traversal
+	 * @param visited Collects the visited classes, may be <code>null</code>
+	 * @param result Collects the URI's of the visited classes, may be <code>null</code>
+	 * @return the number of visited classes (excluding the start)
+	 */
+	private int visit(int start, IntBuffer offsets, IntBuffer targets, int depth, BitSet visited, List<String> result) {
+		BitSet seen = visited != null ? visited : new BitSet(uris.length);
+		seen.set(start);
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		int levelEnd = tail;
+		int level = 0;
+		while (head < tail && level < depth) {
+			int current = queue[head++];
+			for (int i = offsets.get(current), end = offsets.get(current + 1); i < end; i++) {
+				int next = targets.get(i);
+				if (! seen.get(next)) {
+					seen.set(next);
+					if ( tail == queue.length ) {
+						queue = Arrays.copyOf(queue, queue.length * 2);
+					}
+					queue[tail++] = next;
+					if ( result != null ) {
+						result.add(uris[next]);
+					}
+				}
+			}
+			if ( head == levelEnd ) {
+				level++;
+				levelEnd = tail;
+			}
+		}
+		// the start is not counted
+		return tail - 1;
+	}
+	private static int[] levels(String[] uris, int[] parentOffsets, int[] parents, int[] childOffsets, int[] children) {
+		int size = uris.length;
+		int[] levels = new int[size];
+		int[] pending = new int[size];
+		int[] queue = new int[size];
+		int tail = 0;
+		for (int i = 0; i < size; i++) {
+			pending[i] = parentOffsets[i + 1] - parentOffsets[i];
+			if ( pending[i] == 0 ) {
+				levels[i] = 1;
+				queue[tail++] = i;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			int current = queue[head];
+			for (int i = childOffsets[current]; i < childOffsets[current + 1]; i++) {
+				int child = children[i];
+				levels[child] = Math.max(levels[child], levels[current] + 1);
+				if ( --pending[child] == 0 ) {
+					queue[tail++] = child;
+				}
+			}
+		}
+		if ( tail < size ) {
+			Set<String> cycle = new HashSet<>();
+			for (int i = 0; i < size; i++) {
+				if ( pending[i] > 0 ) {
+					cycle.add(uris[i]);
+				}
+			}
+			throw new HierarchyCycleException(cycle);
+		}
+		return levels;
+	}
+	private static IntBuffer buffer(int[] values, boolean offHeap) {
+		if (! offHeap ) {
+			return IntBuffer.wrap(values).asReadOnlyBuffer();
+		}
+		IntBuffer buffer = ByteBuffer.allocateDirect(Math.max(1, values.length) * Integer.BYTES)
+				.order(ByteOrder.nativeOrder())
+				.asIntBuffer();
+		buffer.put(values);
+		buffer.flip();
+		return buffer.asReadOnlyBuffer();
+	}
+	/**
+	 * Collects the classes and relations for a {@link TaxonomyGraph}
+	 */
+	public static class Builder {
+		private final Map<String, Integer> ids = new HashMap<>();
+		private final List<String> uris = new ArrayList<>();
+		private int[] childOf = new int[64];
+		private int[] parentOf = new int[64];
+		private int edges = 0;
+		/**
+		 * Add the class with its direct parents
+		 * @param classType
+		 * @return
+		 */
+		public Builder add(ClassType classType) {
+			int child = intern(classType.getUri());
+			if ( classType.getParents() != null ) {
+				for (String parent : classType.getParents()) {
+					edge(child, intern(parent));
+				}
+			}
+			return this;
+		}
+		/**
+		 * Add a direct parent relation
+		 * @param child
+		 * @param parent
+		 * @return
+		 */
+		public Builder add(String child, String parent) {
+			edge(intern(child), intern(parent));
+			return this;
+		}
+		private void edge(int child, int parent) {
+			if ( edges == childOf.length ) {
+				childOf = Arrays.copyOf(childOf, edges * 2);
+				parentOf = Arrays.copyOf(parentOf, edges * 2);
+			}
+			childOf[edges] = child;
+			parentOf[edges] = parent;
+			edges++;
+		}
+		private int intern(String uri) {
+			Integer id = ids.get(uri);
+			if ( id == null ) {
+				id = uris.size();
+				ids.put(uri, id);
+				uris.add(uri);
+			}
+			return id;
+		}
+		/**
+		 * Create the graph
+		 * @param offHeap Whether to store the relations outside of the java heap
+		 * @return
+		 * @throws HierarchyCycleException when the relations contain a cycle
+		 */
+		public TaxonomyGraph build(boolean offHeap) {
+			String[] interned = uris.toArray(new String[uris.size()]);
+			return new TaxonomyGraph(interned, new HashMap<>(ids), childOf, parentOf, edges, offHeap);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package at.srfg.indexing.hierarchy;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.support.CursorExport;
+import at.srfg.indexing.support.DaemonThreadFactory;
+import at.srfg.indexing.support.SearchFunction;
+/**
+ * Loads the {@link TaxonomyGraph} from the class collection and reloads it periodically. 
+ * <p>
+ * The classes are read page by page (see {@link CursorExport#forEachPage(Search, SearchFunction, CursorExport.PageConsumer)}),
+ * the new graph replaces the current graph once completely loaded. A failing reload keeps the current graph, 
+ * the failure is available with {@link #getLastFailure()}.
+ * </p>
+ * <p>
+ * The loader is constructed explicitly, e.g. as a managed component of the application, and 
+ * provided with {@link IndexingService#getTaxonomyGraph()}. The periodic reload is started with 
+ * {@link #start(long)}, a started loader is referenced by the scheduler until {@link #stop()} 
+ * is called, e.g. when the service is destroyed.
+ * </p>
+ */
+public class TaxonomyGraphLoader {
+	/**
+	 * Default refresh interval in seconds
+	 */
+	public static final long DEFAULT_REFRESH = 600;
+	/**
+	 * Number of classes requested per page
+	 */
+	public static final int PAGE_SIZE = 1000;
+	/**
+	 * Delay in seconds of a requested reload, see {@link #requestRefresh()}
+	 */
+	public static final long REQUEST_DELAY = 2;
+	
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("taxonomy-graph"));
+	
+	private final SearchFunction search;
+	private final boolean offHeap;
+	private volatile TaxonomyGraph graph;
+	private volatile Exception lastFailure;
+	private final AtomicBoolean requested = new AtomicBoolean();
+	private ScheduledFuture<?> schedule;
+	/**
+	 * Create the loader
+	 * @param search The search function for the class collection, e.g. {@link IndexingService#searchClass(Search)}
+	 * @param offHeap Whether to store the relations outside of the java heap
+	 */
+	public TaxonomyGraphLoader(SearchFunction search, boolean offHeap) {
+		this.search = search;
+		this.offHeap = offHeap;
+	}
+	/**
+	 * Schedule the periodic reload
+	 * @param refreshSeconds The interval in seconds
+	 * @return
+	 */
+	public synchronized TaxonomyGraphLoader start(long refreshSeconds) {
+		stop();
+		schedule = SCHEDULER.scheduleWithFixedDelay(this::refreshQuietly, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+		return this;
+	}
+	/**
+	 * Request a reload in the background, e.g. after modifying the parent relations. The 
+	 * requests within {@link #REQUEST_DELAY} seconds are served with a single reload.
+	 */
+	public void requestRefresh() {
+		if ( requested.compareAndSet(false, true)) {
+			SCHEDULER.schedule(() -> {
+				// requests arriving while loading need another reload 
+				requested.set(false);
+				refreshQuietly();
+			}, REQUEST_DELAY, TimeUnit.SECONDS);
+		}
+	}
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (IOException | RuntimeException e) {
+			// keep the current graph, the failure is recorded
+		}
+	}
+	/**
+	 * Stop the periodic reload
+	 */
+	public synchronized void stop() {
+		if ( schedule != null ) {
+			schedule.cancel(false);
+			schedule = null;
+		}
+	}
+	/**
+	 * Whether the periodic reload is scheduled
+	 * @return
+	 */
+	public synchronized boolean isStarted() {
+		return schedule != null;
+	}
+	/**
+	 * Obtain the failure of the last (scheduled) reload
+	 * @return The failure, <code>null</code> when the last reload succeeded
+	 */
+	public Exception getLastFailure() {
+		return lastFailure;
+	}
+	/**
+	 * Obtain the current graph, the graph is loaded on first access
+	 * @return
+	 * @throws IOException when the initial load fails
+	 */
+	public TaxonomyGraph get() throws IOException {
+		TaxonomyGraph current = graph;
+		if ( current == null ) {
+			synchronized (this) {
+				current = graph;
+				if ( current == null ) {
+					current = refresh();
+				}
+			}
+		}
+		return current;
+	}
+	/**
+	 * Load the graph from the index and replace the current graph
+	 * @return The new graph
+	 * @throws IOException when the search fails
+	 * @throws HierarchyCycleException when the index contains cyclic parent relations
+	 */
+	public TaxonomyGraph refresh() throws IOException {
+		try {
+			TaxonomyGraph loaded = load();
+			graph = loaded;
+			lastFailure = null;
+			return loaded;
+		} catch (IOException | RuntimeException e) {
+			lastFailure = e;
+			throw e;
+		}
+	}
+	private TaxonomyGraph load() throws IOException {
+		TaxonomyGraph.Builder builder = new TaxonomyGraph.Builder();
+		// only the parent relations are required
+		Search all = new Search("*:*")
+				.fieldList(IConcept.ID_FIELD, IClassType.PARENTS_FIELD)
+				.forPage(0, PAGE_SIZE)
+				.cursor(Search.CURSOR_START);
+		CursorExport.forEachPage(all, search, documents -> {
+			for (Object document : documents) {
+				if ( document instanceof ClassType ) {
+					builder.add((ClassType) document);
+				}
+			}
+		});
+		return builder.build(offHeap);
+	}
+}
@@ -0,0 +1,7 @@
+/**
+ * Computation and maintenance of the transitive class hierarchy, e.g. the 
+ * {@link at.srfg.indexing.model.common.IClassType#ALL_PARENTS_FIELD}, 
+ * {@link at.srfg.indexing.model.common.IClassType#ALL_CHILDREN_FIELD} and
+ * {@link at.srfg.indexing.model.common.IClassType#LEVEL_FIELD} of the class collection.
+ */
+package at.srfg.indexing.hierarchy;
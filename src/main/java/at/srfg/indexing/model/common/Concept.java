@@ -1,8 +1,6 @@
 package at.srfg.indexing.model.common;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 
@@ -12,11 +10,19 @@ import org.springframework.data.solr.core.mapping.Indexed;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import at.srfg.indexing.model.common.collection.LanguageMap;
+import at.srfg.indexing.model.common.collection.StringArraySet;
 /**
  * Base concept class for all SOLR Collection types. 
  * <p>
  * Subclasses must provide a 
  * </p>
+ * <p>
+ * The multilingual labels, descriptions and comments are kept in compact
+ * {@link LanguageMap}s, alternate and hidden labels per language and the
+ * languages in use in {@link StringArraySet}s.
+ * </p>
  * @author dglachs
  *
  */
@@ -145,7 +151,7 @@ public abstract class Concept implements IConcept {
 	 */
 	public void setLabel(String label, String language) {
 		if ( this.label == null) {
-			this.label = new HashMap<>();
+			this.label = new LanguageMap<>();
 		}
 		this.label.put(language, label);
 		// 
@@ -159,13 +165,15 @@ public abstract class Concept implements IConcept {
 	 */
 	public void addAlternateLabel(String language, String alternate) {
 		if (this.alternateLabel ==null) {
-			this.alternateLabel = new HashMap<>();
+			this.alternateLabel = new LanguageMap<>();
 		}
-		if ( !this.alternateLabel.containsKey(language)) {
-			this.alternateLabel.put(language, new HashSet<>());
+		Collection<String> labels = this.alternateLabel.get(language);
+		if ( labels == null ) {
+			labels = new StringArraySet();
+			this.alternateLabel.put(language, labels);
 		}
-		if (! this.alternateLabel.get(language).contains(alternate)) {
-			this.alternateLabel.get(language).add(alternate);
+		if (! labels.contains(alternate)) {
+			labels.add(alternate);
 		}
 		// 
 		addLanguage(language);
@@ -181,13 +189,15 @@ public abstract class Concept implements IConcept {
 	 */
 	public void addHiddenLabel(String language, String hidden) {
 		if (this.hiddenLabel ==null) {
-			this.hiddenLabel = new HashMap<>();
+			this.hiddenLabel = new LanguageMap<>();
 		}
-		if ( !this.hiddenLabel.containsKey(language)) {
-			this.hiddenLabel.put(language, new HashSet<>());
+		Collection<String> labels = this.hiddenLabel.get(language);
+		if ( labels == null ) {
+			labels = new StringArraySet();
+			this.hiddenLabel.put(language, labels);
 		}
-		if ( ! this.hiddenLabel.get(language).contains(hidden)) {
-			this.hiddenLabel.get(language).add(hidden);
+		if ( ! labels.contains(hidden)) {
+			labels.add(hidden);
 		}
 		// 
 		addLanguage(language);
@@ -198,7 +208,8 @@ public abstract class Concept implements IConcept {
 	 */
 	protected void addLanguage(String language) {
 		if ( this.languages == null) {
-			this.languages = new HashSet<String>();
+			// language codes are interned
+			this.languages = new StringArraySet(true);
 		}
 		if ( ! languages.contains(language))
 			this.languages.add(language);
@@ -218,7 +229,7 @@ public abstract class Concept implements IConcept {
 	 */
 	public void addComment(String language, String comment) {
 		if ( this.comment == null) {
-			this.comment = new HashMap<>();
+			this.comment = new LanguageMap<>();
 		}
 		this.comment.put(language, comment);
 		// be sure to have all stored languages in the language list
@@ -245,7 +256,7 @@ public abstract class Concept implements IConcept {
 	 */
 	public void addDescription(String language, String desc) {
 		if ( this.description == null) {
-			this.description = new HashMap<>();
+			this.description = new LanguageMap<>();
 		}
 		this.description.put(language, desc);
 		// be sure to have all stored languages in the language list
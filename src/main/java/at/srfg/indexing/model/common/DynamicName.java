@@ -1,24 +1,16 @@
 package at.srfg.indexing.model.common;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import org.apache.jena.ext.com.google.common.base.CaseFormat;
-import org.springframework.util.StringUtils;
-
+/**
+ * Helper for transforming qualifiers into valid dynamic field name parts. The
+ * results are cached, see {@link DynamicNameCache}.
+ */
 public interface DynamicName {
 	/**
 	 * Static (mixin) helper method transforming a qualifier into a valid dynamic field part
 	 * @param qualifier The qualifiers used when adding dynamic properties
 	 */
 	static String getDynamicFieldPart(String ... qualifier) {
-		List<String> parts = new ArrayList<>();
-		for ( String part : qualifier ) {
-			parts.add(getDynamicFieldPart(part));
-		}
-		return getDynamicFieldPart(String.join("_", parts));
-
-		
+		return DynamicNameCache.get(qualifier);
 	}
 	/**
 	 * Static Helper for creating dynamic field parts
@@ -26,14 +18,16 @@ public interface DynamicName {
 	 * @return
 	 */
 	static String getDynamicFieldPart(String part) {
-		if (! StringUtils.hasText(part)) {
-			// when no unit code specified - use "undefined";
-			return "undefined";
-		}		
-		String dynamicFieldPart = CaseFormat.UPPER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, part);
-		dynamicFieldPart = dynamicFieldPart.replaceAll("[^a-zA-Z0-9_ ]", "");
-		dynamicFieldPart = dynamicFieldPart.trim().replaceAll(" ", "_").toUpperCase();
-		dynamicFieldPart = CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, dynamicFieldPart);
-		return dynamicFieldPart;
+		return DynamicNameCache.get(part);
+	}
+	/**
+	 * Static helper appending the dynamic field part to the provided (reusable) buffer
+	 * @param part The qualifier part
+	 * @param target The buffer receiving the encoded part
+	 * @return The target buffer
+	 */
+	static StringBuilder appendDynamicFieldPart(CharSequence part, StringBuilder target) {
+		DynamicNameEncoder.encode(part, target);
+		return target;
 	}
 }
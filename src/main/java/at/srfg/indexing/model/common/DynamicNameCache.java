@@ -0,0 +1,181 @@
+package at.srfg.indexing.model.common;
+
+import java.util.Arrays;
+
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+import org.apache.jena.ext.com.google.common.cache.CacheStats;
+
+/**
+ * Bounded, thread safe cache for the dynamic field parts computed 
+ * by {@link DynamicName}. The encoded field part is a pure function of the 
+ * qualifier (tuple), so repeated qualifiers such as <i>weight</i>, <i>kg</i> 
+ * or <i>en</i> are encoded only once.
+ * <p>
+ * The cache is configured with the system properties
+ * <ul>
+ * <li><code>solr-model.dynamicName.cacheSize</code> - the maximum number of cached 
+ * qualifiers (default: {@value #DEFAULT_SIZE}), least recently used entries are evicted
+ * <li><code>solr-model.dynamicName.cacheEnabled</code> - <code>false</code> disables the cache
+ * </ul>
+ * or at runtime with {@link #configure(long)} and {@link #disable()}.
+ * </p>
+ */
+public final class DynamicNameCache {
+	/**
+	 * System property providing the maximum number of cached qualifiers
+	 */
+	public static final String SIZE_PROPERTY = "solr-model.dynamicName.cacheSize";
+	/**
+	 * System property for disabling the cache
+	 */
+	public static final String ENABLED_PROPERTY = "solr-model.dynamicName.cacheEnabled";
+	/**
+	 * Default maximum number of cached qualifiers
+	 */
+	public static final long DEFAULT_SIZE = 10000;
+	/**
+	 * The current cache, <code>null</code> when disabled
+	 */
+	private static volatile Cache<Object, String> cache = 
+			Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")) 
+				? build(Long.getLong(SIZE_PROPERTY, DEFAULT_SIZE)) 
+				: null;
+	
+	private DynamicNameCache() {
+		// static helper
+	}
+	/**
+	 * (Re)Configure the cache with the given maximum size, the
+	 * current content and the statistics are discarded.
+	 * @param maximumSize The maximum number of cached qualifiers, 
+	 * 	<code>0</code> or less disables the cache
+	 */
+	public static void configure(long maximumSize) {
+		cache = maximumSize > 0 ? build(maximumSize) : null;
+	}
+	/**
+	 * Disable the cache, each qualifier is encoded on request
+	 */
+	public static void disable() {
+		cache = null;
+	}
+	/**
+	 * Check whether the cache is active
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return cache != null;
+	}
+	/**
+	 * Remove all cached qualifiers
+	 */
+	public static void invalidateAll() {
+		Cache<Object, String> current = cache;
+		if ( current != null ) {
+			current.invalidateAll();
+		}
+	}
+	/**
+	 * The number of cached qualifiers
+	 * @return
+	 */
+	public static long size() {
+		Cache<Object, String> current = cache;
+		return current != null ? current.size() : 0;
+	}
+	/**
+	 * Number of lookups served from the cache
+	 * @return
+	 */
+	public static long hitCount() {
+		return stats().hitCount();
+	}
+	/**
+	 * Number of lookups requiring the encoding of the qualifier
+	 * @return
+	 */
+	public static long missCount() {
+		return stats().missCount();
+	}
+	/**
+	 * Number of qualifiers evicted due to the size limit
+	 * @return
+	 */
+	public static long evictionCount() {
+		return stats().evictionCount();
+	}
+	private static CacheStats stats() {
+		Cache<Object, String> current = cache;
+		return current != null ? current.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+	}
+	/**
+	 * Obtain the (cached) dynamic field part of a single qualifier
+	 * @param part
+	 * @return
+	 */
+	static String get(String part) {
+		Cache<Object, String> current = cache;
+		if ( current == null || part == null ) {
+			return DynamicNameEncoder.encode(part);
+		}
+		String encoded = current.getIfPresent(part);
+		if ( encoded == null ) {
+			encoded = DynamicNameEncoder.encode(part);
+			current.put(part, encoded);
+		}
+		return encoded;
+	}
+	/**
+	 * Obtain the (cached) dynamic field part of a qualifier tuple
+	 * @param qualifier
+	 * @return
+	 */
+	static String get(String ... qualifier) {
+		Cache<Object, String> current = cache;
+		if ( current == null ) {
+			return DynamicNameEncoder.encode(qualifier);
+		}
+		String encoded = current.getIfPresent(new Qualifier(qualifier));
+		if ( encoded == null ) {
+			encoded = DynamicNameEncoder.encode(qualifier);
+			// copy the parts, the caller may reuse the array
+			current.put(new Qualifier(qualifier.clone()), encoded);
+		}
+		return encoded;
+	}
+	private static Cache<Object, String> build(long maximumSize) {
+		return CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build();
+	}
+	/**
+	 * Cache key for a qualifier tuple. Distinct from the plain {@link String}
+	 * key of a single qualifier since a tuple is encoded twice.
+	 */
+	private static final class Qualifier {
+		private final String[] parts;
+		private final int hash;
+		
+		Qualifier(String[] parts) {
+			this.parts = parts;
+			this.hash = Arrays.hashCode(parts);
+		}
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !(obj instanceof Qualifier)) {
+				return false;
+			}
+			Qualifier other = (Qualifier) obj;
+			return hash == other.hash && Arrays.equals(parts, other.parts);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package at.srfg.indexing.model.common;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Single pass encoder for dynamic field name parts, see {@link DynamicName}.
+ * <p>
+ * The encoder produces the same result as the former chain of conversions
+ * <ol>
+ * <li>UPPER_CAMEL to UPPER_UNDERSCORE, e.g. a <code>_</code> is inserted before every 
+ * upper case character (except the first) and all characters are upper cased
+ * <li>removal of all characters except <code>a-z</code>, <code>A-Z</code>, <code>0-9</code>,
+ * <code>_</code> and blanks
+ * <li>trimming, remaining blanks are replaced by <code>_</code>
+ * <li>UPPER_UNDERSCORE to LOWER_CAMEL, e.g. the first word is lower cased, each following 
+ * word starts with an upper case character
+ * </ol>
+ * but scans the input only once and writes to a (per thread) reusable buffer.
+ * </p>
+ */
+final class DynamicNameEncoder {
+	/**
+	 * Value used when a qualifier part does not contain any text
+	 */
+	static final String UNDEFINED = "undefined";
+	/**
+	 * Buffers exceeding this capacity are not kept for reuse
+	 */
+	private static final int MAX_REUSED_CAPACITY = 1024;
+	
+	private static final ThreadLocal<StringBuilder> ENCODED = ThreadLocal.withInitial(() -> new StringBuilder(64));
+	private static final ThreadLocal<StringBuilder> JOINED = ThreadLocal.withInitial(() -> new StringBuilder(64));
+	
+	private DynamicNameEncoder() {
+		// static helper
+	}
+	/**
+	 * Encode the qualifier parts, each part is encoded, the encoded parts
+	 * are joined with <code>_</code> and the joined result is encoded again.
+	 * @param qualifier The qualifier parts
+	 * @return The dynamic field part
+	 */
+	static String encode(String ... qualifier) {
+		StringBuilder joined = buffer(JOINED);
+		for (int i = 0; i < qualifier.length; i++) {
+			if ( i > 0 ) {
+				joined.append('_');
+			}
+			encode(qualifier[i], joined);
+		}
+		return encode(joined);
+	}
+	/**
+	 * Encode a single qualifier part
+	 * @param part The qualifier part
+	 * @return The dynamic field part, <code>undefined</code> when no text provided
+	 */
+	static String encode(CharSequence part) {
+		StringBuilder encoded = buffer(ENCODED);
+		encode(part, encoded);
+		return encoded.toString();
+	}
+	/**
+	 * Encode a single qualifier part and append the result to the provided buffer.
+	 * @param part The qualifier part
+	 * @param out The buffer receiving the encoded part
+	 */
+	static void encode(CharSequence part, StringBuilder out) {
+		if (! StringUtils.hasText(part)) {
+			// when no unit code specified - use "undefined";
+			out.append(UNDEFINED);
+			return;
+		}
+		// true until the first non-blank character (blanks are trimmed)
+		boolean leading = true;
+		// blanks seen after text, they only separate words when followed by text
+		boolean pendingBlank = false;
+		// true until the first word separator, the first word is lower case
+		boolean firstWord = true;
+		// true after a separator, the next letter or digit starts a new word
+		boolean wordStart = false;
+		
+		for (int i = 0; i < part.length(); i++) {
+			char c = part.charAt(i);
+			boolean upper = c >= 'A' && c <= 'Z';
+			boolean text = upper || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+			boolean separator = c == '_' || (upper && i > 0);
+			if ( c == ' ') {
+				pendingBlank = !leading;
+				continue;
+			}
+			if ( !text && !separator ) {
+				// all other characters are removed
+				continue;
+			}
+			if ( pendingBlank || separator ) {
+				firstWord = false;
+				wordStart = true;
+				pendingBlank = false;
+			}
+			leading = false;
+			if ( text ) {
+				if ( wordStart && !firstWord) {
+					out.append(toUpper(c));
+					wordStart = false;
+				}
+				else {
+					out.append(toLower(c));
+				}
+			}
+		}
+	}
+	private static char toUpper(char c) {
+		return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+	}
+	private static char toLower(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+	private static StringBuilder buffer(ThreadLocal<StringBuilder> local) {
+		StringBuilder buffer = local.get();
+		if ( buffer.capacity() > MAX_REUSED_CAPACITY) {
+			buffer = new StringBuilder(64);
+			local.set(buffer);
+		}
+		buffer.setLength(0);
+		return buffer;
+	}
+
+}
@@ -1,5 +1,11 @@
 package at.srfg.indexing.model.common;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.solr.core.query.Field;
+import org.springframework.data.solr.core.query.SimpleField;
+
 /**
  * 
  * @author dglachs
@@ -40,4 +46,40 @@ public interface IClassType extends IConcept {
 	 */
 	String LEVEL_FIELD = "level";
 	
+	/**
+	 * Define the default field list, the transitive {@link #ALL_PARENTS_FIELD}, 
+	 * {@link #ALL_CHILDREN_FIELD} and the {@link #PROPERTIES_FIELD} are 
+	 * not part of the default list.
+	 * 
+	 * @return
+	 */
+	public static String[] defaultFieldNames() {
+		return new String[] {
+				TYPE_FIELD, 
+				LABEL_FIELD, 
+				ALTERNATE_LABEL_FIELD, 
+				HIDDEN_LABEL_FIELD, 
+				LANGUAGES_FIELD, 
+				LOCAL_NAME_FIELD, 
+				NAME_SPACE_FIELD, 
+				ID_FIELD, 
+				CODE_FIELD,
+				COMMENT_FIELD, 
+				DESCRIPTION_FIELD,
+				PARENTS_FIELD,
+				CHILDREN_FIELD,
+				LEVEL_FIELD
+		};
+	}
+	/**
+	 * The list of default {@link Field}s. 
+	 * @return
+	 */
+	public static List<Field> defaultFields() {
+		List<Field> f = new ArrayList<>();
+		for ( String s : defaultFieldNames()) {
+			f.add(new SimpleField(s));
+		}
+		return f;
+	}
 }
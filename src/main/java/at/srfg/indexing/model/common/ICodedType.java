@@ -1,5 +1,11 @@
 package at.srfg.indexing.model.common;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.solr.core.query.Field;
+import org.springframework.data.solr.core.query.SimpleField;
+
 public interface ICodedType extends IConcept {
 	/**
 	 * Name of the properties collection
@@ -18,5 +24,36 @@ public interface ICodedType extends IConcept {
 	 */
 	String LIST_ID_FIELD = "codedList";
 	
-
+	/**
+	 * Define the default field list 
+	 * 
+	 * @return
+	 */
+	public static String[] defaultFieldNames() {
+		return new String[] {
+				TYPE_FIELD, 
+				LIST_ID_FIELD,
+				CODE_FIELD,
+				LABEL_FIELD, 
+				ALTERNATE_LABEL_FIELD, 
+				HIDDEN_LABEL_FIELD, 
+				LANGUAGES_FIELD, 
+				LOCAL_NAME_FIELD, 
+				NAME_SPACE_FIELD, 
+				ID_FIELD, 
+				COMMENT_FIELD, 
+				DESCRIPTION_FIELD
+		};
+	}
+	/**
+	 * The list of default {@link Field}s. 
+	 * @return
+	 */
+	public static List<Field> defaultFields() {
+		List<Field> f = new ArrayList<>();
+		for ( String s : defaultFieldNames()) {
+			f.add(new SimpleField(s));
+		}
+		return f;
+	}
 }
@@ -8,11 +8,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import org.springframework.data.annotation.ReadOnlyProperty;
+
+import at.srfg.indexing.model.common.collection.DoubleValueSet;
+import at.srfg.indexing.model.common.collection.IntValueSet;
+import at.srfg.indexing.model.common.collection.MultiLingualValueSet;
 /**
  * Interface providing the functionality for indexing arbitrary dynamic properties. A
  * dynamic property is further qualified by key parts.
@@ -44,11 +45,49 @@ public interface ICustomPropertyAware {
 	 * @return
 	 */
 	default String mapDynamicKeyParts(String ... parts) {
-		String key = DynamicName.getDynamicFieldPart(parts);
-		// use @ as delimiter
-		getCustomPropertyKeys().put(key, String.join("@", parts));
+		String key = dynamicKey(parts);
+		String label = getCustomPropertyKeys().get(key);
+		if ( label == null || ! isJoinedLabel(label, parts)) {
+			// use @ as delimiter
+			getCustomPropertyKeys().put(key, String.join("@", parts));
+		}
 		return key;
 	}
+	/**
+	 * Compute the dynamic key for the qualifier parts. Other than
+	 * {@link #mapDynamicKeyParts(String...)}, the original labeling is not 
+	 * registered, so this method is free of side effects and is to be used
+	 * for read access.
+	 * @param parts
+	 * @return
+	 */
+	default String dynamicKey(String ... parts) {
+		return DynamicName.getDynamicFieldPart(parts);
+	}
+	/**
+	 * Check whether the label equals the qualifier parts joined with <code>@</code>
+	 * without creating the joined string
+	 * @param label
+	 * @param parts
+	 * @return
+	 */
+	static boolean isJoinedLabel(String label, String ... parts) {
+		int offset = 0;
+		for (int i = 0; i < parts.length; i++) {
+			if ( i > 0 ) {
+				if ( offset >= label.length() || label.charAt(offset) != '@') {
+					return false;
+				}
+				offset++;
+			}
+			String part = String.valueOf(parts[i]);
+			if (! label.startsWith(part, offset)) {
+				return false;
+			}
+			offset += part.length();
+		}
+		return offset == label.length();
+	}
 
 	/**
 	 * Setter for a customized boolean value. 
@@ -77,15 +116,20 @@ public interface ICustomPropertyAware {
 
 	}
 	default void addProperty(Double value, PropertyType customMeta, String ... qualifier) {
+		if ( value == null ) {
+			// nothing to add, do not register an empty property
+			return;
+		}
 		String key = mapDynamicKeyParts(qualifier);
 		
 		Collection<Double> values = getCustomDoubleValues().get(key);
 		if ( values == null ) {
-			// use a set to avoid duplicates
-			getCustomDoubleValues().put(key, new HashSet<Double>());
+			// use a (primitive) set to avoid duplicates
+			values = new DoubleValueSet();
+			getCustomDoubleValues().put(key, values);
 		}
 		// now add the value to the double map
-		getCustomDoubleValues().get(key).add(value);
+		values.add(value);
 		if ( customMeta !=null ) {
 			// handle custom property metadata
 			getCustomProperties().put(key, customMeta);
@@ -97,15 +141,20 @@ public interface ICustomPropertyAware {
 	}
 	
 	default void addProperty(Integer value, PropertyType customMeta, String ... qualifier) {
+		if ( value == null ) {
+			// nothing to add, do not register an empty property
+			return;
+		}
 		String key = mapDynamicKeyParts(qualifier);
 		
 		Collection<Integer> values = getCustomIntValues().get(key);
 		if ( values == null ) {
-			// use a set to avoid duplicates
-			getCustomIntValues().put(key, new HashSet<Integer>());
+			// use a (primitive) set to avoid duplicates
+			values = new IntValueSet();
+			getCustomIntValues().put(key, values);
 		}
 		// now add the value
-		getCustomIntValues().get(key).add(value);
+		values.add(value);
 		if ( customMeta !=null ) {
 			// handle custom property metadata
 			getCustomProperties().put(key, customMeta);
@@ -124,10 +173,12 @@ public interface ICustomPropertyAware {
 		String key = mapDynamicKeyParts(qualifier);
 		Collection<String> values = getCustomStringValues().get(key);
 		if ( values == null ) {
-			getCustomStringValues().put(key,  new HashSet<String>());
+			// keeps an index of the texts per language
+			values = new MultiLingualValueSet();
+			getCustomStringValues().put(key, values);
 		}
 		// The value is finally stored with <text>@<lang>
-		getCustomStringValues().get(key).add(String.format("%s@%s", text, lang));
+		values.add(MultiLingualValueSet.qualified(text, lang));
 	}
 	/**
 	 * Obtain a list of multilingual property values
@@ -156,40 +207,22 @@ public interface ICustomPropertyAware {
 		
 	}
 	default List<String> getMultiLingualProperties(String language, String ... qualifier) {
-		String key = mapDynamicKeyParts(qualifier);
+		String key = dynamicKey(qualifier);
 		Collection<String> values = getCustomStringValues().get(key);
-		if ( values != null && ! values.isEmpty() ) {
-			return values.stream().filter(new Predicate<String>() {
-				private String extractLanguage(String t) {
-					int delim = t.lastIndexOf("@");
-					if ( delim > 0 ) {
-						return t.substring(delim+1);
-					}
-					return t;
-				}
-				@Override
-				public boolean test(String t) {
-					if ( language.equals(extractLanguage(t))) {
-						return true;
-					}
-					return false;
-				}})
-			.map(new Function<String, String>() {
-				private String extractValue(String t) {
-					int delim = t.lastIndexOf("@");
-					if ( delim > 0 && t.length()>delim+1) {
-						return t.substring(0,delim);
-					}
-					return null;
+		if ( values instanceof MultiLingualValueSet ) {
+			// use the language index
+			return new ArrayList<>(((MultiLingualValueSet) values).getValues(language));
+		}
+		List<String> result = new ArrayList<>();
+		if ( values != null ) {
+			// values not added with addMultiLingualProperty, e.g. read from the index
+			for (String value : values) {
+				if ( language.equals(MultiLingualValueSet.language(value))) {
+					result.add(MultiLingualValueSet.text(value));
 				}
-				@Override
-				public String apply(String t) {
-					return extractValue(t);
-				}})
-			.collect(Collectors.toList());
+			}
 		}
-
-		return new ArrayList<>();
+		return result;
 	}
 	default void addProperty(String value, String ... qualifier) {
 		addProperty(value, null, qualifier);
@@ -227,7 +260,7 @@ public interface ICustomPropertyAware {
 	 * @return
 	 */
 	default Collection<String> getStringPropertyValues(String ... qualifier) {
-		String key = mapDynamicKeyParts(qualifier);
+		String key = dynamicKey(qualifier);
 		return getCustomStringValues().get(key);
 		
 	}
@@ -243,7 +276,7 @@ public interface ICustomPropertyAware {
 		return Optional.empty();
 	}
 	default Collection<Double> getDoublePropertyValues(String ... qualifier) {
-		String key = mapDynamicKeyParts(qualifier);
+		String key = dynamicKey(qualifier);
 		return getCustomDoubleValues().get(key);
 	}
 	default <T> Collection<T> getProperty(Class<T> clazz, String ... qualifier) {
@@ -251,16 +284,18 @@ public interface ICustomPropertyAware {
 		return values;
 	}
 	default Collection<Integer> getIntPropertyValues(String ... qualifier) {
-		String key = mapDynamicKeyParts(qualifier);
+		String key = dynamicKey(qualifier);
 		return getCustomIntValues().get(key);
 	}
 	/**
-	 * Getter for the custom Integer values. Must not return <code>null</code>
+	 * Getter for the custom Integer values. Must not return <code>null</code>. The values
+	 * added with {@link #addProperty(Integer, String...)} are kept in an {@link IntValueSet}
 	 * @return
 	 */
 	public Map<String, Collection<Integer>> getCustomIntValues();
 	/**
-	 * Getter for the custom double values. Must not return <code>null</code>
+	 * Getter for the custom double values. Must not return <code>null</code>. The values
+	 * added with {@link #addProperty(Double, String...)} are kept in a {@link DoubleValueSet}
 	 * @return
 	 */
 	public Map<String, Collection<Double>> getCustomDoubleValues();
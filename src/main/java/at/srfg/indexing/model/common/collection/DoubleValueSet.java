@@ -0,0 +1,145 @@
+package at.srfg.indexing.model.common.collection;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of numeric (double) values backed by a sorted primitive array. 
+ * Duplicates are detected the same way as with {@link Double#equals(Object)}, 
+ * the iteration order is ascending. 
+ * <p>
+ * The set does not permit <code>null</code> values.
+ * </p>
+ */
+public class DoubleValueSet extends AbstractSet<Double> {
+	private static final double[] EMPTY = new double[0];
+	
+	private double[] values = EMPTY;
+	private int size;
+	private int modCount;
+	
+	public DoubleValueSet() {
+		// default
+	}
+	public DoubleValueSet(Collection<Double> values) {
+		this();
+		addAll(values);
+	}
+	/**
+	 * Add a primitive value
+	 * @param value
+	 * @return <code>true</code> when not already present
+	 */
+	public boolean addDouble(double value) {
+		int pos = Arrays.binarySearch(values, 0, size, value);
+		if ( pos >= 0 ) {
+			return false;
+		}
+		int insert = -(pos + 1);
+		if ( size == values.length) {
+			values = Arrays.copyOf(values, size == 0 ? 2 : size + (size >> 1) + 1);
+		}
+		System.arraycopy(values, insert, values, insert + 1, size - insert);
+		values[insert] = value;
+		size++;
+		modCount++;
+		return true;
+	}
+	/**
+	 * Check for a primitive value
+	 * @param value
+	 * @return
+	 */
+	public boolean containsDouble(double value) {
+		return Arrays.binarySearch(values, 0, size, value) >= 0;
+	}
+	/**
+	 * Remove a primitive value
+	 * @param value
+	 * @return <code>true</code> when the value was present
+	 */
+	public boolean removeDouble(double value) {
+		int pos = Arrays.binarySearch(values, 0, size, value);
+		if ( pos < 0 ) {
+			return false;
+		}
+		removeAt(pos);
+		return true;
+	}
+	/**
+	 * Obtain a copy of the values as primitive array
+	 * @return
+	 */
+	public double[] toDoubleArray() {
+		return Arrays.copyOf(values, size);
+	}
+	private void removeAt(int pos) {
+		System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+		size--;
+		modCount++;
+	}
+	@Override
+	public boolean add(Double value) {
+		if ( value == null ) {
+			throw new NullPointerException("null values not permitted");
+		}
+		return addDouble(value.doubleValue());
+	}
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Double && containsDouble(((Double) o).doubleValue());
+	}
+	@Override
+	public boolean remove(Object o) {
+		return o instanceof Double && removeDouble(((Double) o).doubleValue());
+	}
+	@Override
+	public void clear() {
+		size = 0;
+		modCount++;
+	}
+	@Override
+	public int size() {
+		return size;
+	}
+	@Override
+	public Iterator<Double> iterator() {
+		return new Iterator<Double>() {
+			private int next;
+			private int last = -1;
+			private int expectedModCount = modCount;
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+			@Override
+			public Double next() {
+				if ( expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if ( next >= size ) {
+					throw new NoSuchElementException();
+				}
+				last = next++;
+				return values[last];
+			}
+			@Override
+			public void remove() {
+				if ( last < 0 ) {
+					throw new IllegalStateException();
+				}
+				if ( expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				removeAt(last);
+				next = last;
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+}
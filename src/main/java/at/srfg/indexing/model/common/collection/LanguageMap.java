@@ -0,0 +1,168 @@
+package at.srfg.indexing.model.common.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact map for language based values such as labels or descriptions.
+ * <p>
+ * The (usually very few) language codes are interned and kept in a small sorted array,
+ * the values in a parallel array. Lookups use a binary search, there are no
+ * entry objects and no hash table.
+ * </p>
+ * <p>
+ * Like {@link java.util.HashMap}, the map permits a <code>null</code> language
+ * (e.g. for labels added without language), it is ordered before all languages.
+ * </p>
+ * @param <V> The value type, e.g. {@link String} or a collection of labels
+ */
+public class LanguageMap<V> extends AbstractMap<String, V> {
+	private static final String[] NO_LANGUAGES = new String[0];
+	private static final Object[] NO_VALUES = new Object[0];
+	private static final Comparator<String> ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+	
+	private String[] languages = NO_LANGUAGES;
+	private Object[] values = NO_VALUES;
+	private int size;
+	private int modCount;
+	
+	public LanguageMap() {
+		// default
+	}
+	public LanguageMap(Map<String, ? extends V> other) {
+		putAll(other);
+	}
+	
+	private int indexOf(Object key) {
+		if ( key == null || key instanceof String ) {
+			return Arrays.binarySearch(languages, 0, size, (String) key, ORDER);
+		}
+		return -1;
+	}
+	@Override
+	public V get(Object key) {
+		int pos = indexOf(key);
+		return pos >= 0 ? value(pos) : null;
+	}
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+	@Override
+	public V put(String language, V value) {
+		int pos = indexOf(language);
+		if ( pos >= 0 ) {
+			V old = value(pos);
+			values[pos] = value;
+			return old;
+		}
+		int insert = -(pos + 1);
+		if ( size == languages.length ) {
+			int capacity = size + 2;
+			languages = Arrays.copyOf(languages, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		System.arraycopy(languages, insert, languages, insert + 1, size - insert);
+		System.arraycopy(values, insert, values, insert + 1, size - insert);
+		languages[insert] = language != null ? language.intern() : null;
+		values[insert] = value;
+		size++;
+		modCount++;
+		return null;
+	}
+	@Override
+	public V remove(Object key) {
+		int pos = indexOf(key);
+		if ( pos < 0 ) {
+			return null;
+		}
+		V old = value(pos);
+		removeAt(pos);
+		return old;
+	}
+	@Override
+	public void clear() {
+		Arrays.fill(languages, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+	@Override
+	public int size() {
+		return size;
+	}
+	private void removeAt(int pos) {
+		System.arraycopy(languages, pos + 1, languages, pos, size - pos - 1);
+		System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+		size--;
+		languages[size] = null;
+		values[size] = null;
+		modCount++;
+	}
+	@SuppressWarnings("unchecked")
+	private V value(int pos) {
+		return (V) values[pos];
+	}
+	@Override
+	public Set<Map.Entry<String, V>> entrySet() {
+		return new AbstractSet<Map.Entry<String,V>>() {
+			@Override
+			public Iterator<Map.Entry<String, V>> iterator() {
+				return new EntryIterator();
+			}
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+	
+	private class EntryIterator implements Iterator<Map.Entry<String, V>> {
+		private int next;
+		private int last = -1;
+		private int expectedModCount = modCount;
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+		@Override
+		public Map.Entry<String, V> next() {
+			if ( expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if ( next >= size ) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			final int pos = last;
+			return new AbstractMap.SimpleEntry<String, V>(languages[pos], value(pos)) {
+				private static final long serialVersionUID = 1L;
+				@Override
+				public V setValue(V value) {
+					values[pos] = value;
+					return super.setValue(value);
+				}
+			};
+		}
+		@Override
+		public void remove() {
+			if ( last < 0 ) {
+				throw new IllegalStateException();
+			}
+			if ( expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package at.srfg.indexing.model.common.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of multilingual values. Each value is stored in the index representation
+ * <code>&lt;text&gt;@&lt;lang&gt;</code>, in addition the set maintains an index of the 
+ * texts per language. The index is built on the first read access with 
+ * {@link #getValues(String)} and discarded with any modification of the set.
+ * <p>
+ * The index is immutable and published with a volatile field, concurrent read access
+ * (e.g. when rendering search results) is safe once the set is populated. Like 
+ * {@link java.util.HashSet}, modifications must be synchronized externally.
+ * </p>
+ */
+public class MultiLingualValueSet extends AbstractSet<String> {
+	/**
+	 * Delimiter between text and language
+	 */
+	public static final char DELIMITER = '@';
+	
+	private final Set<String> values = new LinkedHashSet<>();
+	/**
+	 * The texts per language, <code>null</code> until requested
+	 */
+	private volatile Map<String, List<String>> languageIndex;
+	
+	public MultiLingualValueSet() {
+		// default
+	}
+	public MultiLingualValueSet(Collection<String> values) {
+		this.values.addAll(values);
+	}
+	/**
+	 * Create the index representation of a multilingual value
+	 * @param text The text
+	 * @param language The language code such as <i>en</i>, <i>es</i>
+	 * @return <code>&lt;text&gt;@&lt;lang&gt;</code>
+	 */
+	public static String qualified(String text, String language) {
+		return text + DELIMITER + language;
+	}
+	/**
+	 * Extract the language from the index representation.
+	 * @param value The value in the form <code>&lt;text&gt;@&lt;lang&gt;</code>
+	 * @return The language, the value itself when no language is present
+	 */
+	public static String language(String value) {
+		int delim = value.lastIndexOf(DELIMITER);
+		if ( delim > 0 ) {
+			return value.substring(delim+1);
+		}
+		return value;
+	}
+	/**
+	 * Extract the text from the index representation
+	 * @param value The value in the form <code>&lt;text&gt;@&lt;lang&gt;</code>
+	 * @return The text, <code>null</code> when no text or language is present
+	 */
+	public static String text(String value) {
+		int delim = value.lastIndexOf(DELIMITER);
+		if ( delim > 0 && value.length()>delim+1) {
+			return value.substring(0,delim);
+		}
+		return null;
+	}
+	/**
+	 * Add a text for the given language
+	 * @param text
+	 * @param language
+	 * @return <code>true</code> when not already present
+	 */
+	public boolean add(String text, String language) {
+		return add(qualified(text, language));
+	}
+	/**
+	 * Obtain the texts of the given language
+	 * @param language The language code such as <i>en</i>, <i>es</i>
+	 * @return Unmodifiable list of texts, empty when no text present 
+	 */
+	public List<String> getValues(String language) {
+		List<String> texts = index().get(language);
+		return texts != null ? texts : Collections.emptyList();
+	}
+	/**
+	 * Obtain the languages in use
+	 * @return
+	 */
+	public Set<String> getLanguages() {
+		return index().keySet();
+	}
+	private Map<String, List<String>> index() {
+		Map<String, List<String>> index = languageIndex;
+		if ( index == null ) {
+			// concurrent readers may build the same index
+			index = buildIndex();
+			languageIndex = index;
+		}
+		return index;
+	}
+	private Map<String, List<String>> buildIndex() {
+		Map<String, List<String>> index = new HashMap<>();
+		for (String value : values) {
+			String language = language(value);
+			List<String> texts = index.get(language);
+			if ( texts == null ) {
+				texts = new ArrayList<>(1);
+				index.put(language, texts);
+			}
+			texts.add(text(value));
+		}
+		for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(index);
+	}
+	@Override
+	public boolean add(String value) {
+		if ( values.add(value)) {
+			languageIndex = null;
+			return true;
+		}
+		return false;
+	}
+	@Override
+	public boolean contains(Object o) {
+		return values.contains(o);
+	}
+	@Override
+	public boolean remove(Object o) {
+		if ( values.remove(o)) {
+			languageIndex = null;
+			return true;
+		}
+		return false;
+	}
+	@Override
+	public void clear() {
+		values.clear();
+		languageIndex = null;
+	}
+	@Override
+	public Iterator<String> iterator() {
+		final Iterator<String> iterator = values.iterator();
+		return new Iterator<String>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+			@Override
+			public String next() {
+				return iterator.next();
+			}
+			@Override
+			public void remove() {
+				iterator.remove();
+				languageIndex = null;
+			}
+		};
+	}
+	@Override
+	public int size() {
+		return values.size();
+	}
+}
@@ -0,0 +1,128 @@
+package at.srfg.indexing.model.common.collection;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Compact set of strings backed by an array, intended for the few 
+ * alternate or hidden labels per language and for the language codes
+ * of a concept. Lookups scan the array, the iteration order is the insertion
+ * order.
+ * <p>
+ * Like {@link java.util.HashSet}, the set permits a <code>null</code> value.
+ * </p>
+ */
+public class StringArraySet extends AbstractSet<String> {
+	private static final String[] EMPTY = new String[0];
+	
+	private final boolean intern;
+	private String[] values = EMPTY;
+	private int size;
+	private int modCount;
+	
+	public StringArraySet() {
+		this(false);
+	}
+	/**
+	 * Create a set, optionally interning the values. Use interning
+	 * for small vocabularies only, e.g. for language codes.
+	 * @param intern
+	 */
+	public StringArraySet(boolean intern) {
+		this.intern = intern;
+	}
+	public StringArraySet(Collection<String> values) {
+		this(false);
+		addAll(values);
+	}
+	
+	private int indexOf(Object o) {
+		for (int i = 0; i < size; i++) {
+			if ( Objects.equals(values[i], o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	@Override
+	public boolean add(String value) {
+		if ( indexOf(value) >= 0 ) {
+			return false;
+		}
+		if ( size == values.length) {
+			values = Arrays.copyOf(values, size + 2);
+		}
+		values[size++] = intern && value != null ? value.intern() : value;
+		modCount++;
+		return true;
+	}
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+	@Override
+	public boolean remove(Object o) {
+		int pos = indexOf(o);
+		if ( pos < 0 ) {
+			return false;
+		}
+		removeAt(pos);
+		return true;
+	}
+	private void removeAt(int pos) {
+		System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+		values[--size] = null;
+		modCount++;
+	}
+	@Override
+	public void clear() {
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+	@Override
+	public int size() {
+		return size;
+	}
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int next;
+			private int last = -1;
+			private int expectedModCount = modCount;
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+			@Override
+			public String next() {
+				if ( expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if ( next >= size ) {
+					throw new NoSuchElementException();
+				}
+				last = next++;
+				return values[last];
+			}
+			@Override
+			public void remove() {
+				if ( last < 0 ) {
+					throw new IllegalStateException();
+				}
+				if ( expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				removeAt(last);
+				next = last;
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+}
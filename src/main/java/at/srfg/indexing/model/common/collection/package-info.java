@@ -0,0 +1,6 @@
+/**
+ * Collection implementations backing the dynamic and multilingual
+ * fields of the domain models.
+ *   
+ */
+package at.srfg.indexing.model.common.collection;
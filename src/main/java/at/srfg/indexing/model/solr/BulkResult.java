@@ -0,0 +1,51 @@
+package at.srfg.indexing.model.solr;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+/**
+ * Result of a single document processed in a bulk request.
+ */
+@JsonInclude(value=Include.NON_NULL)
+public class BulkResult {
+	/**
+	 * Position of the document in the request (zero based)
+	 */
+	private final int index;
+	/**
+	 * The id/uri of the document, if available
+	 */
+	private final String uri;
+	/**
+	 * Success indicator
+	 */
+	private final boolean success;
+	/**
+	 * Error message for failed documents
+	 */
+	private final String message;
+	
+	private BulkResult(int index, String uri, boolean success, String message) {
+		this.index = index;
+		this.uri = uri;
+		this.success = success;
+		this.message = message;
+	}
+	public static BulkResult success(int index, String uri) {
+		return new BulkResult(index, uri, true, null);
+	}
+	public static BulkResult failure(int index, String uri, String message) {
+		return new BulkResult(index, uri, false, message);
+	}
+	public int getIndex() {
+		return index;
+	}
+	public String getUri() {
+		return uri;
+	}
+	public boolean isSuccess() {
+		return success;
+	}
+	public String getMessage() {
+		return message;
+	}
+}
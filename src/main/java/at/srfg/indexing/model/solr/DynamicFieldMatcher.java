@@ -0,0 +1,251 @@
+package at.srfg.indexing.model.solr;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import at.srfg.indexing.model.common.IConcept;
+import eu.nimble.service.model.solr.item.ICatalogueItem;
+/**
+ * Compiled matcher resolving concrete field names to the dynamic field pattern, e.g. 
+ * <code>en_label</code> to <code>*_label</code>.
+ * <p>
+ * Patterns with a leading wildcard are stored in a suffix trie, patterns with a trailing 
+ * wildcard in a prefix trie. A field name is resolved with one walk over each trie, 
+ * the longest matching pattern wins (as with Solr's dynamic fields), a suffix pattern 
+ * wins over a prefix pattern of the same length.
+ * </p>
+ * <p>
+ * The mapped name follows {@link IndexField#getMappedName()}: the pattern for fixed 
+ * dynamic fields (see {@link ICatalogueItem#isFixedDynamic(String)}), the dynamic part 
+ * for qualified dynamic fields (see {@link ICatalogueItem#isQualifiedDynamic(String)}) 
+ * and the field name otherwise.
+ * </p>
+ * Instances are immutable.
+ */
+public class DynamicFieldMatcher {
+	/**
+	 * Matcher for the dynamic fields of the model classes
+	 */
+	public static final DynamicFieldMatcher DEFAULT = compile(Arrays.asList(
+			IConcept.LABEL_FIELD, 
+			IConcept.LANGUAGE_ALL_LABELS_FIELD, 
+			IConcept.ALTERNATE_LABEL_FIELD, 
+			IConcept.HIDDEN_LABEL_FIELD, 
+			IConcept.LANGUAGE_TXT_FIELD, 
+			IConcept.COMMENT_FIELD, 
+			IConcept.DESCRIPTION_FIELD, 
+			ICatalogueItem.CURRENCY_FIELD, 
+			ICatalogueItem.PRICE_FIELD, 
+			ICatalogueItem.ESTIMATED_DELIVERY_TIME_FIELD, 
+			ICatalogueItem.ESTIMATED_DELIVERY_TIME_UNIT_FIELD, 
+			ICatalogueItem.PACKAGE_UNIT_FIELD, 
+			ICatalogueItem.PACKAGE_AMOUNT_FILED, 
+			ICatalogueItem.QUALIFIED_KEY_FIELD, 
+			ICatalogueItem.QUALIFIED_STRING_FIELD, 
+			ICatalogueItem.QUALIFIED_DOUBLE_FIELD, 
+			ICatalogueItem.QUALIFIED_BOOLEAN_FIELD));
+	
+	private enum Mapping { FIXED, QUALIFIED, NAME }
+	/**
+	 * A compiled pattern
+	 */
+	private static final class Pattern {
+		final String pattern;
+		final int literalLength;
+		final boolean leadingWildcard;
+		final Mapping mapping;
+		
+		Pattern(String pattern) {
+			this.pattern = pattern;
+			this.leadingWildcard = pattern.startsWith("*");
+			this.literalLength = pattern.length() - 1;
+			this.mapping = ICatalogueItem.isFixedDynamic(pattern) 
+					? Mapping.FIXED 
+					: ICatalogueItem.isQualifiedDynamic(pattern) ? Mapping.QUALIFIED : Mapping.NAME;
+		}
+	}
+	/**
+	 * Trie node with sorted keys
+	 */
+	private static final class Node {
+		private static final char[] NO_KEYS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+		char[] keys = NO_KEYS;
+		Node[] children = NO_CHILDREN;
+		Pattern pattern;
+		
+		Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i >= 0 ? children[i] : null;
+		}
+		Node addChild(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if ( i >= 0 ) {
+				return children[i];
+			}
+			int insert = -(i + 1);
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, insert);
+			System.arraycopy(children, 0, newChildren, 0, insert);
+			newKeys[insert] = c;
+			newChildren[insert] = new Node();
+			System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+			System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+			keys = newKeys;
+			children = newChildren;
+			return newChildren[insert];
+		}
+	}
+	/**
+	 * The resolved pattern of a field name
+	 */
+	public static final class Match {
+		private final String fieldName;
+		private final Pattern pattern;
+		private final String dynamicPart;
+		
+		private Match(String fieldName, Pattern pattern) {
+			this.fieldName = fieldName;
+			this.pattern = pattern;
+			this.dynamicPart = pattern.leadingWildcard
+					? fieldName.substring(0, fieldName.length() - pattern.literalLength)
+					: fieldName.substring(pattern.literalLength);
+		}
+		public String getFieldName() {
+			return fieldName;
+		}
+		/**
+		 * The dynamic field pattern, e.g. <code>*_label</code>
+		 * @return
+		 */
+		public String getPattern() {
+			return pattern.pattern;
+		}
+		/**
+		 * The part of the field name matching the wildcard, e.g. <code>en</code>
+		 * @return
+		 */
+		public String getDynamicPart() {
+			return dynamicPart;
+		}
+		/**
+		 * The mapped name, see {@link IndexField#getMappedName()}
+		 * @return
+		 */
+		public String getMappedName() {
+			switch (pattern.mapping) {
+			case FIXED:
+				return pattern.pattern;
+			case QUALIFIED:
+				return dynamicPart;
+			default:
+				return fieldName;
+			}
+		}
+	}
+	
+	private final Node suffixes;
+	private final Node prefixes;
+	
+	private DynamicFieldMatcher(Node suffixes, Node prefixes) {
+		this.suffixes = suffixes;
+		this.prefixes = prefixes;
+	}
+	/**
+	 * Compile the patterns, patterns without a leading or trailing wildcard are ignored
+	 * @param patterns The dynamic field patterns, e.g. <code>*_label</code> or <code>attr_*</code>
+	 * @return
+	 */
+	public static DynamicFieldMatcher compile(Collection<String> patterns) {
+		Node suffixes = new Node();
+		Node prefixes = new Node();
+		for (String pattern : patterns) {
+			if ( pattern == null || pattern.isEmpty()) {
+				continue;
+			}
+			Pattern compiled = new Pattern(pattern);
+			if ( compiled.leadingWildcard ) {
+				if ( pattern.indexOf('*', 1) >= 0 ) {
+					continue;
+				}
+				Node node = suffixes;
+				for (int i = pattern.length() - 1; i > 0; i--) {
+					node = node.addChild(pattern.charAt(i));
+				}
+				if ( node.pattern == null ) {
+					node.pattern = compiled;
+				}
+			}
+			else if ( pattern.indexOf('*') == pattern.length() - 1 ) {
+				Node node = prefixes;
+				for (int i = 0; i < pattern.length() - 1; i++) {
+					node = node.addChild(pattern.charAt(i));
+				}
+				if ( node.pattern == null ) {
+					node.pattern = compiled;
+				}
+			}
+		}
+		return new DynamicFieldMatcher(suffixes, prefixes);
+	}
+	/**
+	 * Resolve the field name
+	 * @param fieldName The concrete field name, e.g. <code>en_label</code>
+	 * @return The match or <code>null</code> when no pattern matches
+	 */
+	public Match match(String fieldName) {
+		Pattern best = suffixes.pattern;
+		Node node = suffixes;
+		for (int i = fieldName.length() - 1; i >= 0 && node != null; i--) {
+			node = node.child(fieldName.charAt(i));
+			if ( node != null && node.pattern != null ) {
+				best = node.pattern;
+			}
+		}
+		Pattern prefix = prefixes.pattern;
+		node = prefixes;
+		for (int i = 0; i < fieldName.length() && node != null; i++) {
+			node = node.child(fieldName.charAt(i));
+			if ( node != null && node.pattern != null ) {
+				prefix = node.pattern;
+			}
+		}
+		if ( prefix != null && (best == null || prefix.literalLength > best.literalLength)) {
+			best = prefix;
+		}
+		return best != null ? new Match(fieldName, best) : null;
+	}
+	/**
+	 * Create the field description for a concrete field name with the dynamic base, dynamic
+	 * part and mapped name resolved
+	 * @param fieldName The concrete field name
+	 * @return
+	 */
+	public IndexField indexField(String fieldName) {
+		IndexField field = new IndexField(fieldName);
+		Match match = match(fieldName);
+		if ( match != null ) {
+			field.resolved(match.getPattern(), match.getDynamicPart(), match.getMappedName());
+		}
+		return field;
+	}
+	/**
+	 * Resolve the dynamic part and mapped name of a field read from the index, the dynamic
+	 * base reported by the index is kept. Fields without a dynamic base or with a dynamic base 
+	 * unknown to the matcher are computed with {@link IndexField#getMappedName()}.
+	 * @param field The field description, e.g. from the schema
+	 * @return The field
+	 */
+	public IndexField resolve(IndexField field) {
+		if ( field.getDynamicBase() != null ) {
+			Match match = match(field.getFieldName());
+			if ( match != null && match.getPattern().equals(field.getDynamicBase())) {
+				field.resolved(match.getPattern(), match.getDynamicPart(), match.getMappedName());
+				return field;
+			}
+		}
+		field.getMappedName();
+		return field;
+	}
+}
@@ -0,0 +1,108 @@
+package at.srfg.indexing.model.solr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.common.util.NamedList;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+/**
+ * Single bucket of a JSON Facet API response, e.g. a range of a range facet
+ * or a value of a pivot facet with the nested buckets.
+ */
+@JsonInclude(value=Include.NON_NULL)
+public class FacetBucket {
+	private Object val;
+	private long count;
+	private Map<String, List<FacetBucket>> facets;
+
+	public FacetBucket() {
+		// default
+	}
+	public FacetBucket(Object val, long count) {
+		this.val = val;
+		this.count = count;
+	}
+	/**
+	 * The bucket value, the lower bound for range buckets
+	 * @return
+	 */
+	public Object getVal() {
+		return val;
+	}
+	public void setVal(Object val) {
+		this.val = val;
+	}
+	/**
+	 * The number of documents in the bucket
+	 * @return
+	 */
+	public long getCount() {
+		return count;
+	}
+	public void setCount(long count) {
+		this.count = count;
+	}
+	/**
+	 * The nested buckets keyed by facet name, <code>null</code> for leaf buckets
+	 * @return
+	 */
+	public Map<String, List<FacetBucket>> getFacets() {
+		return facets;
+	}
+	public void setFacets(Map<String, List<FacetBucket>> facets) {
+		this.facets = facets;
+	}
+	/**
+	 * Read the buckets of a single facet of the JSON Facet API response,
+	 * e.g. <code>{"buckets": [{"val": 0, "count": 3}, ...]}</code>
+	 * @param facet The facet, either a {@link Map} or a {@link NamedList} as returned by SolrJ
+	 * @return The buckets, empty when the facet has no buckets
+	 */
+	public static List<FacetBucket> buckets(Object facet) {
+		Map<String, Object> map = asMap(facet);
+		if ( map == null || !(map.get("buckets") instanceof List<?>)) {
+			return Collections.emptyList();
+		}
+		List<?> source = (List<?>) map.get("buckets");
+		List<FacetBucket> buckets = new ArrayList<>(source.size());
+		for (Object b : source) {
+			Map<String, Object> bucket = asMap(b);
+			if ( bucket == null ) {
+				continue;
+			}
+			Object count = bucket.get("count");
+			FacetBucket result = new FacetBucket(bucket.get("val"), count instanceof Number ? ((Number) count).longValue() : 0);
+			for (Map.Entry<String, Object> entry : bucket.entrySet()) {
+				Map<String, Object> nested = asMap(entry.getValue());
+				if ( nested != null && nested.containsKey("buckets")) {
+					if ( result.facets == null ) {
+						result.facets = new LinkedHashMap<>();
+					}
+					result.facets.put(entry.getKey(), buckets(nested));
+				}
+			}
+			buckets.add(result);
+		}
+		return buckets;
+	}
+	/**
+	 * Convert the SolrJ response structure to a map
+	 * @param value
+	 * @return The map or <code>null</code> when the value is not a map-like structure
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> asMap(Object value) {
+		if ( value instanceof NamedList<?>) {
+			return ((NamedList<Object>) value).asShallowMap();
+		}
+		if ( value instanceof Map<?, ?>) {
+			return (Map<String, Object>) value;
+		}
+		return null;
+	}
+}
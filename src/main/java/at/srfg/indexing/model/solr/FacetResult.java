@@ -1,5 +1,9 @@
 package at.srfg.indexing.model.solr;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -23,7 +27,7 @@ public class FacetResult extends IndexField {
 	 * @author dglachs
 	 *
 	 */
-	public class Entry implements Comparable<Entry> {
+	public static class Entry implements Comparable<Entry> {
 		final String label;
 		final long count;
 		public Entry(String l, long c) {
@@ -60,6 +64,59 @@ public class FacetResult extends IndexField {
 			}
 		}
 	}
+	/**
+	 * Read-only set of sorted entries backed by an array
+	 */
+	private static class SortedEntries extends AbstractSet<Entry> {
+		private final Entry[] entries;
+		private final int size;
+		
+		SortedEntries(Entry[] entries, int size) {
+			this.entries = entries;
+			this.size = size;
+		}
+		@Override
+		public Iterator<Entry> iterator() {
+			return new Iterator<Entry>() {
+				private int next = 0;
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+				@Override
+				public Entry next() {
+					if ( next >= size ) {
+						throw new NoSuchElementException();
+					}
+					return entries[next++];
+				}
+			};
+		}
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+	/**
+	 * Create the facet result from the collected entries. The entries are sorted once 
+	 * (see {@link Entry#compareTo(Entry)}), duplicates are removed.
+	 * @param name The facet field
+	 * @param entries The entries, the array is reused for the result
+	 * @param size The number of entries in the array
+	 * @return
+	 */
+	public static FacetResult of(String name, Entry[] entries, int size) {
+		Arrays.sort(entries, 0, size);
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if ( unique == 0 || entries[unique - 1].compareTo(entries[i]) != 0) {
+				entries[unique++] = entries[i];
+			}
+		}
+		FacetResult result = new FacetResult(name);
+		result.entry = new SortedEntries(entries, unique);
+		return result;
+	}
 	/**
 	 * Getter of the set of entries
 	 * @return
@@ -83,6 +140,9 @@ public class FacetResult extends IndexField {
 		if ( entry == null ) {
 			entry = new TreeSet<>();
 		}
+		else if ( entry instanceof SortedEntries ) {
+			entry = new TreeSet<>(entry);
+		}
 		if (!Strings.isNullOrEmpty(label)) {
 			entry.add(new Entry(label,count));
 		}
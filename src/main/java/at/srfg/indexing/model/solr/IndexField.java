@@ -39,6 +39,11 @@ public class IndexField {
 	 * The multi-lingual description obtained from the <code>property</code> index
 	 */
 	Map<String, String> description;
+	/**
+	 * The dynamic part and the mapped name, computed once per field
+	 */
+	private String dynamicPart;
+	private String mappedName;
 	public IndexField(String name) {
 		this.fieldName = name;
 	}
@@ -62,6 +67,16 @@ public class IndexField {
 	}
 	public void setDynamicBase(String dynamicBase) {
 		this.dynamicBase = dynamicBase;
+		this.dynamicPart = null;
+		this.mappedName = null;
+	}
+	/**
+	 * Set the dynamic base with the resolved names, see {@link DynamicFieldMatcher}
+	 */
+	void resolved(String dynamicBase, String dynamicPart, String mappedName) {
+		this.dynamicBase = dynamicBase;
+		this.dynamicPart = dynamicPart;
+		this.mappedName = mappedName;
 	}
 	/**
 	 * Method to inject {@link Concept#getUri()}, {@link Concept#getLabel()} and 
@@ -74,6 +89,12 @@ public class IndexField {
 		this.description = property.getComment();
 	}
 	public String getDynamicPart() {
+		if ( dynamicPart == null ) {
+			dynamicPart = dynamicPart();
+		}
+		return dynamicPart;
+	}
+	private String dynamicPart() {
 		if ( dynamicBase != null) {
 			boolean leadingStar = dynamicBase.startsWith("*");
 			String strippedWildcard = dynamicBase.replace("*", "");
@@ -92,6 +113,12 @@ public class IndexField {
 		return "";
 	}
 	public String getMappedName() {
+		if ( mappedName == null ) {
+			mappedName = mappedName();
+		}
+		return mappedName;
+	}
+	private String mappedName() {
 		if (getDynamicBase()!=null ) {
 			if ( ICatalogueItem.isFixedDynamic(getDynamicBase())) {
 				return getDynamicBase();
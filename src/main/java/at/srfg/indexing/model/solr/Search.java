@@ -1,7 +1,12 @@
 package at.srfg.indexing.model.solr;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.solr.core.query.SolrPageRequest;
@@ -10,6 +15,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
+
+import at.srfg.indexing.model.common.IConcept;
 /**
  * Object holding search parameters. 
  * <p>
@@ -22,6 +29,34 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  *     .facetField("field2)
  *     .facetLimit(5);
  * </pre>
+ * For exporting large result sets use cursor based paging
+ * <pre>
+ * new Search("*:*")
+ *     .sort("level asc")
+ *     .cursor(Search.CURSOR_START)
+ *     .forPage(0, 500);
+ * </pre>
+ * and continue with the {@link SearchResult#getNextCursor()} until it is <code>null</code>.
+ * </p> 
+ * <p>
+ * Range facets, pivot facets and per-field limits are computed with the JSON Facet API, 
+ * see {@link FacetedSearch#toJsonFacet()}
+ * <pre>
+ * new Search("*:*")
+ *     .facetField("classificationClass")
+ *     .facetLimit("classificationClass", 50)
+ *     .facetRange("EUR_price", 0, 1000, 100)
+ *     .facetPivot("classificationClass", "level");
+ * </pre>
+ * The buckets are reported with {@link SearchResult#getBuckets()}.
+ * </p> 
+ * <p>
+ * Restrict the returned fields (SOLR's <code>fl</code>) to avoid loading large fields, the 
+ * documents are populated with the requested fields only
+ * <pre>
+ * new Search("level:1")
+ *     .fieldList(IClassType.defaultFieldNames());
+ * </pre>
  * </p> 
  * @author dglachs
  *
@@ -32,12 +67,23 @@ public class Search {
 	private static final int ROWS = 10;
 	private static final int FACET_LIMIT = 15;
 	private static final int FACET_MINCOUNT = 1;
+	/**
+	 * The cursor for requesting the first page with cursor based paging
+	 */
+	public static final String CURSOR_START = "*";
+	/**
+	 * The unique key used as tie-breaker for cursor based paging
+	 */
+	public static final String UNIQUE_KEY = IConcept.ID_FIELD;
+	private static final String[] TERMS_SEPARATORS = new String[] {",", "|", " ", "\u001f"};
 	private String query = "*:*";
 	private List<String> filterQuery;
 	private int rows = ROWS;
 	private int start = START;
 	private FacetedSearch facet;
 	private List<String> sort;
+	private String cursor;
+	private List<String> fieldList;
 
 	public Search() {
 		// default
@@ -45,6 +91,28 @@ public class Search {
 	public Search(String query) {
 		this.query = query;
 	}
+	/**
+	 * Copy constructor, the lists are copied so that the copy is not 
+	 * affected by later modifications of the original
+	 * @param other The search to copy
+	 */
+	public Search(Search other) {
+		this.query = other.query;
+		this.filterQuery = other.filterQuery != null ? new ArrayList<>(other.filterQuery) : null;
+		this.rows = other.rows;
+		this.start = other.start;
+		this.sort = other.sort != null ? new ArrayList<>(other.sort) : null;
+		this.cursor = other.cursor;
+		this.fieldList = other.fieldList != null ? new ArrayList<>(other.fieldList) : null;
+		if ( other.facet != null ) {
+			this.facet = new FacetedSearch(other.facet.field != null ? new ArrayList<>(other.facet.field) : null);
+			this.facet.limit = other.facet.limit;
+			this.facet.minCount = other.facet.minCount;
+			this.facet.fieldLimit = other.facet.fieldLimit != null ? new LinkedHashMap<>(other.facet.fieldLimit) : null;
+			this.facet.range = other.facet.range != null ? new ArrayList<>(other.facet.range) : null;
+			this.facet.pivot = other.facet.pivot != null ? new ArrayList<>(other.facet.pivot) : null;
+		}
+	}
 	public Search(String query, List<String> filter) {
 		this(query);
 		this.filterQuery = filter;
@@ -101,13 +169,94 @@ public class Search {
 		facet.setLimit(limit);
 		return this;
 	}
+	/**
+	 * Override the facet limit for a single field
+	 * @param field The facet field
+	 * @param limit The maximum number of entries, <code>-1</code> for all entries
+	 * @return
+	 */
+	public Search facetLimit(String field, int limit) {
+		if ( facet == null ) {
+			facet = new FacetedSearch();
+		}
+		facet.addFieldLimit(field, limit);
+		return this;
+	}
+	/**
+	 * Request range buckets for a numeric field, e.g. <code>level</code>, 
+	 * a <code>*_price</code> or a <code>*_dvalues</code> field.
+	 * @param field The numeric field
+	 * @param start The lower bound of the first bucket (inclusive)
+	 * @param end The upper bound of the last bucket
+	 * @param gap The size of each bucket
+	 * @return
+	 */
+	public Search facetRange(String field, Number start, Number end, Number gap) {
+		if ( facet == null ) {
+			facet = new FacetedSearch();
+		}
+		facet.addRange(new RangeFacet(field, start, end, gap));
+		return this;
+	}
+	/**
+	 * Request nested buckets, the buckets of the first field contain the 
+	 * buckets of the second field and so forth.
+	 * @param field The fields, outermost first
+	 * @return
+	 */
+	public Search facetPivot(String ...field) {
+		if ( field != null && field.length > 0) {
+			if ( facet == null ) {
+				facet = new FacetedSearch();
+			}
+			facet.addPivot(String.join(",", field));
+		}
+		return this;
+	}
 	
 	public Search forPage(int start, int rows) {
 		this.start = start;
 		this.rows = rows;
 		return this;
 	}
+	/**
+	 * Use cursor based paging (deep paging), start with {@link #CURSOR_START} and continue
+	 * with the {@link SearchResult#getNextCursor()} of the previous page. The start 
+	 * is ignored with cursor based paging. 
+	 * @param cursor The cursor mark
+	 * @return
+	 */
+	public Search cursor(String cursor) {
+		this.cursor = cursor;
+		return this;
+	}
+	/**
+	 * Restrict the fields of the returned documents, e.g. with the 
+	 * <code>defaultFieldNames()</code> of the collection. Wildcards such 
+	 * as <code>*_label</code> are supported. 
+	 * @param field The field names
+	 * @return
+	 */
+	public Search fieldList(String ... field) {
+		if ( field != null && field.length > 0 ) {
+			if ( this.fieldList == null ) {
+				this.fieldList = new ArrayList<>();
+			}
+			for ( String f : field) {
+				this.fieldList.add(f);
+			}
+		}
+		return this;
+	}
 	public Search sort(String ... sort) {
+		if ( sort != null && sort.length > 0 ) {
+			if ( this.sort == null ) {
+				this.sort = new ArrayList<>();
+			}
+			for ( String s : sort) {
+				this.sort.add(s);
+			}
+		}
 		return this;
 	}
 	@JsonProperty(value="q")
@@ -124,6 +273,35 @@ public class Search {
 	@JsonProperty(value="sort")
 	public void setSort(List<String> sort) { this.sort = sort; }
 
+	/**
+	 * Getter for the field list, <code>null</code> for all fields
+	 * @return
+	 */
+	@JsonProperty(value="fl")
+	public List<String> getFieldList() {
+		return fieldList;
+	}
+	@JsonProperty(value="fl")
+	public void setFieldList(List<String> fieldList) {
+		this.fieldList = fieldList;
+	}
+	/**
+	 * Obtain the field list to use with the request. The documents are identified by 
+	 * the {@link #UNIQUE_KEY}, so it is added unless already present.
+	 * @return The field names, <code>null</code> for all fields
+	 */
+	@JsonIgnore
+	public List<String> getEffectiveFieldList() {
+		if ( fieldList == null || fieldList.isEmpty()) {
+			return null;
+		}
+		if ( fieldList.contains(UNIQUE_KEY) || fieldList.contains("*")) {
+			return fieldList;
+		}
+		List<String> effective = new ArrayList<>(fieldList);
+		effective.add(UNIQUE_KEY);
+		return effective;
+	}
 	@JsonProperty(value="fq")
 	public List<String> getFilterQuery() {
 		return filterQuery;
@@ -144,6 +322,50 @@ public class Search {
 	public void setStart(int start) {
 		this.start = start;
 	}
+	/**
+	 * Getter for the cursor mark, <code>null</code> unless cursor based paging is requested
+	 * @return
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+	/**
+	 * Check for cursor based paging
+	 * @return
+	 */
+	@JsonIgnore
+	public boolean isCursorPaging() {
+		return cursor != null;
+	}
+	/**
+	 * Obtain the sort clauses to use with the request. Cursor based paging requires 
+	 * the {@link #UNIQUE_KEY} as tie-breaker, so it is appended unless already present.
+	 * @return The sort clauses, e.g. <code>level asc</code>, <code>id asc</code>
+	 */
+	@JsonIgnore
+	public List<String> getEffectiveSort() {
+		if (! isCursorPaging()) {
+			return sort;
+		}
+		List<String> effective = new ArrayList<>();
+		boolean uniqueKey = false;
+		if ( sort != null ) {
+			for (String clause : sort) {
+				effective.add(clause);
+				String[] parts = clause.trim().split("\\s+");
+				if ( UNIQUE_KEY.equals(parts[0])) {
+					uniqueKey = true;
+				}
+			}
+		}
+		if (! uniqueKey) {
+			effective.add(UNIQUE_KEY + " asc");
+		}
+		return effective;
+	}
 	public FacetedSearch getFacet() {
 		return facet;
 	}
@@ -151,10 +373,74 @@ public class Search {
 		this.facet = facets;
 	}
 	
+	/**
+	 * Range facet for a numeric field
+	 */
+	public static class RangeFacet {
+		private String field;
+		private Number start;
+		private Number end;
+		private Number gap;
+		public RangeFacet() {
+			// default
+		}
+		public RangeFacet(String field, Number start, Number end, Number gap) {
+			this.field = field;
+			this.start = start;
+			this.end = end;
+			this.gap = gap;
+		}
+		public String getField() {
+			return field;
+		}
+		public void setField(String field) {
+			this.field = field;
+		}
+		public Number getStart() {
+			return start;
+		}
+		public void setStart(Number start) {
+			this.start = start;
+		}
+		public Number getEnd() {
+			return end;
+		}
+		public void setEnd(Number end) {
+			this.end = end;
+		}
+		public Number getGap() {
+			return gap;
+		}
+		public void setGap(Number gap) {
+			this.gap = gap;
+		}
+		@Override
+		public int hashCode() {
+			return Objects.hash(field, start, end, gap);
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if (! (obj instanceof RangeFacet)) {
+				return false;
+			}
+			RangeFacet other = (RangeFacet) obj;
+			return Objects.equals(field, other.field) 
+					&& Objects.equals(start, other.start) 
+					&& Objects.equals(end, other.end) 
+					&& Objects.equals(gap, other.gap);
+		}
+	}
+	@JsonInclude(value=Include.NON_NULL)
 	public class FacetedSearch {
 		private List<String> field = new ArrayList<>();
 		private int limit = FACET_LIMIT;
 		private int minCount = FACET_MINCOUNT;
+		private Map<String, Integer> fieldLimit;
+		private List<RangeFacet> range;
+		private List<String> pivot;
 		public FacetedSearch() {
 			// default
 		}
@@ -164,6 +450,24 @@ public class Search {
 		private void addFacet(String facet) {
 			field.add(facet);
 		}
+		private void addFieldLimit(String facet, int facetLimit) {
+			if ( fieldLimit == null ) {
+				fieldLimit = new LinkedHashMap<>();
+			}
+			fieldLimit.put(facet, facetLimit);
+		}
+		private void addRange(RangeFacet facet) {
+			if ( range == null ) {
+				range = new ArrayList<>();
+			}
+			range.add(facet);
+		}
+		private void addPivot(String facet) {
+			if ( pivot == null ) {
+				pivot = new ArrayList<>();
+			}
+			pivot.add(facet);
+		}
 		public List<String> getField() {
 			return field;
 		}
@@ -176,12 +480,138 @@ public class Search {
 		public void setLimit(int facetLimit) {
 			this.limit = facetLimit;
 		}
+		/**
+		 * Obtain the facet limit of a single field, the per-field limit 
+		 * when present, the global limit otherwise
+		 * @param facet The facet field
+		 * @return
+		 */
+		public int getLimit(String facet) {
+			if ( fieldLimit != null && fieldLimit.containsKey(facet)) {
+				return fieldLimit.get(facet);
+			}
+			return limit;
+		}
 		public int getMinCount() {
 			return minCount;
 		}
 		public void setMinCount(int facetMinCount) {
 			this.minCount = facetMinCount;
 		}
+		/**
+		 * Getter for the per-field limits, e.g. <code>{"classificationClass": 50}</code>
+		 * @return
+		 */
+		public Map<String, Integer> getFieldLimit() {
+			return fieldLimit;
+		}
+		public void setFieldLimit(Map<String, Integer> fieldLimit) {
+			this.fieldLimit = fieldLimit;
+		}
+		/**
+		 * Getter for the range facets, the buckets are keyed by field name
+		 * @return
+		 */
+		public List<RangeFacet> getRange() {
+			return range;
+		}
+		public void setRange(List<RangeFacet> range) {
+			this.range = range;
+		}
+		/**
+		 * Getter for the pivot facets, each pivot is a comma separated list of 
+		 * fields such as <code>classificationClass,level</code> and its buckets are keyed 
+		 * by this list.
+		 * @return
+		 */
+		public List<String> getPivot() {
+			return pivot;
+		}
+		public void setPivot(List<String> pivot) {
+			this.pivot = pivot;
+		}
+		/**
+		 * Check whether the JSON Facet API is required, e.g. for range or pivot facets
+		 * @return
+		 */
+		@JsonIgnore
+		public boolean isJsonFacet() {
+			return (range != null && !range.isEmpty()) 
+					|| (pivot != null && !pivot.isEmpty());
+		}
+		/**
+		 * Translate the facets to the JSON Facet API, the result is to be serialized
+		 * as <code>json.facet</code> parameter. Field facets are translated to
+		 * <code>terms</code> facets keyed by field name, range facets to <code>range</code> 
+		 * facets keyed with {@link Search#rangeFacetKey(String)}, so a field may be requested with both,
+		 * and pivot facets to nested <code>terms</code> facets keyed by the pivot.
+		 * The response is read with {@link SearchResult#withJsonFacets(FacetedSearch, Object)}.
+		 * @return The facet definitions
+		 */
+		public Map<String, Object> toJsonFacet() {
+			Map<String, Object> json = new LinkedHashMap<>();
+			if ( field != null ) {
+				for (String f : field) {
+					json.put(f, termsFacet(f));
+				}
+			}
+			if ( range != null ) {
+				for (RangeFacet r : range) {
+					Map<String, Object> facet = new LinkedHashMap<>();
+					facet.put("type", "range");
+					facet.put("field", r.getField());
+					facet.put("start", r.getStart());
+					facet.put("end", r.getEnd());
+					facet.put("gap", r.getGap());
+					json.put(rangeFacetKey(r.getField()), facet);
+				}
+			}
+			if ( pivot != null ) {
+				for (String p : pivot) {
+					String[] fields = p.split(",");
+					Map<String, Object> outer = null;
+					for (int i = fields.length - 1; i >= 0; i--) {
+						Map<String, Object> facet = termsFacet(fields[i].trim());
+						if ( outer != null ) {
+							Map<String, Object> nested = new LinkedHashMap<>();
+							nested.put(fields[i + 1].trim(), outer);
+							facet.put("facet", nested);
+						}
+						outer = facet;
+					}
+					json.put(p, outer);
+				}
+			}
+			return json;
+		}
+		private Map<String, Object> termsFacet(String facet) {
+			Map<String, Object> json = new LinkedHashMap<>();
+			json.put("type", "terms");
+			json.put("field", facet);
+			json.put("limit", getLimit(facet));
+			json.put("mincount", minCount);
+			return json;
+		}
+		@Override
+		public int hashCode() {
+			return Objects.hash(field, limit, minCount, fieldLimit, range, pivot);
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if (! (obj instanceof FacetedSearch)) {
+				return false;
+			}
+			FacetedSearch other = (FacetedSearch) obj;
+			return limit == other.limit 
+					&& minCount == other.minCount 
+					&& Objects.equals(field, other.field)
+					&& Objects.equals(fieldLimit, other.fieldLimit)
+					&& Objects.equals(range, other.range)
+					&& Objects.equals(pivot, other.pivot);
+		}
 	}
 	@JsonIgnore
 	public int getFacetLimit() {
@@ -191,6 +621,18 @@ public class Search {
 		}
 		return FACET_LIMIT;
 	}
+	/**
+	 * Obtain the facet limit of a single field, see {@link FacetedSearch#getLimit(String)}
+	 * @param field The facet field
+	 * @return
+	 */
+	@JsonIgnore
+	public int getFacetLimit(String field) {
+		if ( facet!=null) {
+			return facet.getLimit(field);
+		}
+		return FACET_LIMIT;
+	}
 	@JsonIgnore
 	public int getFacetMinCount() {
 		if ( facet!=null) {
@@ -207,8 +649,65 @@ public class Search {
 		return null;
 	}
 
+	/**
+	 * Obtain the key of the range facet on the field in the JSON Facet API request and response, 
+	 * distinct from the key of a field facet on the same field
+	 * @param field The field name
+	 * @return The field name with the suffix <code>:range</code>
+	 */
+	public static String rangeFacetKey(String field) {
+		return field + ":range";
+	}
+	/**
+	 * Create a filter query matching any of the provided terms in the given field, 
+	 * e.g. <code>{!terms f=id}urn:a,urn:b</code>. The separator is chosen 
+	 * not to collide with the terms.
+	 * @param field The field name
+	 * @param terms The terms, e.g. a list of URI's
+	 * @return The filter query
+	 * @throws IllegalArgumentException when each of the possible separators occurs in a term
+	 */
+	public static String termsFilter(String field, Collection<String> terms) {
+		for (String separator : TERMS_SEPARATORS) {
+			if ( terms.stream().noneMatch(t -> t.contains(separator))) {
+				StringBuilder filter = new StringBuilder("{!terms f=").append(field);
+				if (! separator.equals(TERMS_SEPARATORS[0])) {
+					filter.append(" separator=\"").append(separator).append('"');
+				}
+				return filter.append('}').append(String.join(separator, terms)).toString();
+			}
+		}
+		throw new IllegalArgumentException("No terms separator available, each of " 
+				+ Arrays.toString(TERMS_SEPARATORS) + " is contained in a term of field " + field);
+	}
 	@JsonIgnore
 	public Pageable getPage() {
+		if ( isCursorPaging()) {
+			// the cursor denotes the position
+			return new SolrPageRequest(0, rows);
+		}
 		return new SolrPageRequest(start, rows);
 	}
+	@Override
+	public int hashCode() {
+		return Objects.hash(query, filterQuery, rows, start, facet, sort, cursor, fieldList);
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if ( this == obj ) {
+			return true;
+		}
+		if (! (obj instanceof Search)) {
+			return false;
+		}
+		Search other = (Search) obj;
+		return rows == other.rows 
+				&& start == other.start 
+				&& Objects.equals(query, other.query)
+				&& Objects.equals(filterQuery, other.filterQuery)
+				&& Objects.equals(facet, other.facet)
+				&& Objects.equals(sort, other.sort)
+				&& Objects.equals(cursor, other.cursor)
+				&& Objects.equals(fieldList, other.fieldList);
+	}
 }
@@ -1,14 +1,19 @@
 package at.srfg.indexing.model.solr;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.jena.ext.com.google.common.base.Strings;
 import org.springframework.data.domain.Page;
 import org.springframework.data.solr.core.query.Field;
 import org.springframework.data.solr.core.query.result.FacetFieldEntry;
 import org.springframework.data.solr.core.query.result.FacetPage;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
 public class SearchResult<T> {
 	private long totalElements;
 	private long totalPages;
@@ -17,6 +22,15 @@ public class SearchResult<T> {
 	private List<T> result;
 	
 	private Map<String, FacetResult> facets;
+	/**
+	 * The range and pivot buckets of the JSON Facet API, keyed by facet name
+	 */
+	private Map<String, List<FacetBucket>> buckets;
+	/**
+	 * The cursor mark for the next page, <code>null</code> when not 
+	 * using cursor based paging or when there are no more results
+	 */
+	private String nextCursor;
 
 	public SearchResult() {
 
@@ -69,6 +83,92 @@ public class SearchResult<T> {
 		set.addEntry(label, count);
 	}
 
+	/**
+	 * Getter for the range and pivot buckets, see {@link Search#facetRange(String, Number, Number, Number)} 
+	 * and {@link Search#facetPivot(String...)}
+	 * @return The buckets keyed by facet name, <code>null</code> unless requested
+	 */
+	@JsonInclude(Include.NON_NULL)
+	public Map<String, List<FacetBucket>> getBuckets() {
+		return buckets;
+	}
+	public void setBuckets(Map<String, List<FacetBucket>> buckets) {
+		this.buckets = buckets;
+	}
+	/**
+	 * Read the <code>facets</code> section of a JSON Facet API response requested with 
+	 * {@link Search.FacetedSearch#toJsonFacet()}. Field facets are reported with {@link #getFacets()}, 
+	 * range and pivot facets with {@link #getBuckets()}, the range buckets keyed by field name.
+	 * @param request The requested facets
+	 * @param response The <code>facets</code> section, a {@link Map} or a SolrJ <code>NamedList</code>
+	 * @return
+	 */
+	public SearchResult<T> withJsonFacets(Search.FacetedSearch request, Object response) {
+		Map<String, Object> json = FacetBucket.asMap(response);
+		if ( json == null ) {
+			return this;
+		}
+		// response key -> bucket name
+		Map<String, String> nested = new HashMap<>();
+		if ( request.getRange() != null ) {
+			request.getRange().forEach(r -> nested.put(Search.rangeFacetKey(r.getField()), r.getField()));
+		}
+		if ( request.getPivot() != null ) {
+			request.getPivot().forEach(p -> nested.put(p, p));
+		}
+		for (Map.Entry<String, Object> facet : json.entrySet()) {
+			if ( FacetBucket.asMap(facet.getValue()) == null ) {
+				// e.g. the overall count
+				continue;
+			}
+			List<FacetBucket> content = FacetBucket.buckets(facet.getValue());
+			if ( nested.containsKey(facet.getKey())) {
+				if ( buckets == null ) {
+					buckets = new LinkedHashMap<>();
+				}
+				buckets.put(nested.get(facet.getKey()), content);
+			}
+			else if (! content.isEmpty()) {
+				FacetResult.Entry[] entries = new FacetResult.Entry[content.size()];
+				int size = 0;
+				for (FacetBucket bucket : content) {
+					if ( bucket.getVal() != null ) {
+						entries[size++] = new FacetResult.Entry(bucket.getVal().toString(), bucket.getCount());
+					}
+				}
+				if ( facets == null ) {
+					facets = new HashMap<String, FacetResult>();
+				}
+				facets.put(facet.getKey(), FacetResult.of(facet.getKey(), entries, size));
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Getter for the cursor mark of the next page, see {@link Search#cursor(String)}
+	 * @return The cursor mark, <code>null</code> when there are no more results
+	 */
+	@JsonInclude(Include.NON_NULL)
+	public String getNextCursor() {
+		return nextCursor;
+	}
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+	/**
+	 * Set the cursor mark for the next page as reported by SOLR. SOLR returns the 
+	 * requested cursor mark when all results are consumed, in this case the 
+	 * next cursor is set to <code>null</code>.
+	 * @param requested The cursor mark of the current request
+	 * @param next The next cursor mark as reported by SOLR
+	 * @return
+	 */
+	public SearchResult<T> withCursor(String requested, String next) {
+		this.nextCursor = next == null || next.equals(requested) ? null : next;
+		return this;
+	}
+
 	public long getTotalElements() {
 		return totalElements;
 	}
@@ -103,9 +203,29 @@ public class SearchResult<T> {
 	private void handleFacets(FacetPage<T> facetPage) {
 		for (Field field :  facetPage.getFacetFields()) {
 			Page<FacetFieldEntry> page = facetPage.getFacetResultPage(field);
-			//
-			for (FacetFieldEntry entry : page.getContent() ) {
-				this.addFacet(entry.getField().getName(), entry.getValue(), entry.getValueCount());
+			List<FacetFieldEntry> content = page.getContent();
+			if ( content.isEmpty()) {
+				continue;
+			}
+			// collect the entries and sort them once
+			FacetResult.Entry[] entries = new FacetResult.Entry[content.size()];
+			int size = 0;
+			for (FacetFieldEntry entry : content ) {
+				if (! Strings.isNullOrEmpty(entry.getValue())) {
+					entries[size++] = new FacetResult.Entry(entry.getValue(), entry.getValueCount());
+				}
+			}
+			if ( facets == null ) {
+				facets = new HashMap<String, FacetResult>();
+			}
+			FacetResult existing = facets.get(field.getName());
+			if ( existing == null ) {
+				facets.put(field.getName(), FacetResult.of(field.getName(), entries, size));
+			}
+			else {
+				for (int i = 0; i < size; i++) {
+					existing.addEntry(entries[i].getLabel(), entries[i].getCount());
+				}
 			}
 		}
 
@@ -0,0 +1,426 @@
+package at.srfg.indexing.model.solr;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.solr.core.mapping.Indexed;
+import org.springframework.data.solr.core.mapping.SolrDocument;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import at.srfg.indexing.model.solr.annotation.SolrJoin;
+/**
+ * Query rewriter resolving {@link SolrJoin} expressions. 
+ * <p>
+ * The domain classes annotated with {@link SolrDocument} are inspected once when 
+ * the rewriter is created, the resulting join table (join name &rarr; <code>fromIndex</code>, 
+ * <code>from</code>, <code>to</code>) is immutable and may be shared between threads.
+ * </p>
+ * <p>
+ * Query and filter expressions are rewritten in a single pass, e.g. the filter
+ * <code>concept_class.en_label:Pump*</code> on the {@link at.srfg.indexing.model.common.PropertyType} 
+ * collection becomes
+ * <pre>
+ * {!join to=classificationClass from=id fromIndex=concept_class}en_label:Pump*
+ * </pre>
+ * When the join expression is part of a larger query, the join is embedded as nested query, 
+ * e.g. <code>_query_:"{!join ...}en_label:Pump*"</code>.
+ * </p>
+ */
+public class SolrJoinRewriter {
+	/**
+	 * Resolved join metadata
+	 */
+	public static final class Join {
+		private final String name;
+		private final String fromIndex;
+		private final String from;
+		private final String to;
+		
+		Join(String name, String fromIndex, String from, String to) {
+			this.name = name;
+			this.fromIndex = fromIndex;
+			this.from = from;
+			this.to = to;
+		}
+		/**
+		 * The join name as used in the query
+		 */
+		public String getName() {
+			return name;
+		}
+		/**
+		 * The joined collection
+		 */
+		public String getFromIndex() {
+			return fromIndex;
+		}
+		/**
+		 * The field in the joined collection, usually the <code>id</code>
+		 */
+		public String getFrom() {
+			return from;
+		}
+		/**
+		 * The field in the searched collection holding the references
+		 */
+		public String getTo() {
+			return to;
+		}
+		/**
+		 * Render the join with the inner query
+		 * @param query The query in the joined collection
+		 * @return
+		 */
+		public String toQuery(String query) {
+			return new StringBuilder("{!join to=").append(to)
+					.append(" from=").append(from)
+					.append(" fromIndex=").append(fromIndex)
+					.append('}').append(query)
+					.toString();
+		}
+	}
+	/**
+	 * Renders a join expression found in a query
+	 */
+	@FunctionalInterface
+	public interface JoinRenderer {
+		/**
+		 * Render the join 
+		 * @param join The join metadata
+		 * @param query The query in the joined collection, e.g. <code>en_label:Pump*</code>
+		 * @return The query to use in the searched collection
+		 */
+		String render(Join join, String query);
+	}
+	/**
+	 * The default renderer, e.g. <code>{!join ...}query</code>
+	 */
+	public static final JoinRenderer JOIN = Join::toQuery;
+	/**
+	 * join name per searched collection
+	 */
+	private final Map<Class<?>, Map<String, Join>> joins;
+	
+	private SolrJoinRewriter(Map<Class<?>, Map<String, Join>> joins) {
+		this.joins = joins;
+	}
+	/**
+	 * Create the rewriter for the provided domain classes
+	 * @param documentTypes Classes annotated with {@link SolrDocument}
+	 * @return
+	 */
+	public static SolrJoinRewriter of(Class<?> ... documentTypes) {
+		Map<Class<?>, Map<String, Join>> joins = new HashMap<>();
+		for (Class<?> type : documentTypes) {
+			Map<String, Join> typeJoins = inspect(type);
+			if (! typeJoins.isEmpty()) {
+				joins.put(type, Collections.unmodifiableMap(typeJoins));
+			}
+		}
+		return new SolrJoinRewriter(Collections.unmodifiableMap(joins));
+	}
+	/**
+	 * Create the rewriter for all classes annotated with {@link SolrDocument} in 
+	 * the provided packages
+	 * @param basePackages The packages to scan
+	 * @return
+	 */
+	public static SolrJoinRewriter scan(String ... basePackages) {
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+		scanner.addIncludeFilter(new AnnotationTypeFilter(SolrDocument.class));
+		List<Class<?>> types = new ArrayList<>();
+		for (String basePackage : basePackages) {
+			for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+				types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), ClassUtils.getDefaultClassLoader()));
+			}
+		}
+		return of(types.toArray(new Class<?>[types.size()]));
+	}
+	/**
+	 * Obtain the joins available when searching the collection of the given type
+	 * @param type The domain class
+	 * @return The joins by join name, empty when there are no joins
+	 */
+	public Map<String, Join> getJoins(Class<?> type) {
+		Map<String, Join> typeJoins = joins.get(type);
+		return typeJoins != null ? typeJoins : Collections.emptyMap();
+	}
+	/**
+	 * Rewrite the query and the filter queries of the search
+	 * @param type The domain class of the searched collection
+	 * @param search The search, query and filter queries are replaced
+	 * @return The search
+	 */
+	public Search rewrite(Class<?> type, Search search) {
+		return rewrite(type, search, JOIN);
+	}
+	/**
+	 * Rewrite the query and the filter queries of the search
+	 * @param type The domain class of the searched collection
+	 * @param search The search, query and filter queries are replaced
+	 * @param renderer The renderer for the join expressions
+	 * @return The search
+	 */
+	public Search rewrite(Class<?> type, Search search, JoinRenderer renderer) {
+		Map<String, Join> typeJoins = getJoins(type);
+		if ( typeJoins.isEmpty()) {
+			return search;
+		}
+		search.setQuery(rewrite(typeJoins, search.getQuery(), renderer));
+		if ( search.getFilterQuery() != null ) {
+			List<String> filter = new ArrayList<>(search.getFilterQuery().size());
+			for (String fq : search.getFilterQuery()) {
+				filter.add(rewrite(typeJoins, fq, renderer));
+			}
+			search.setFilterQuery(filter);
+		}
+		return search;
+	}
+	/**
+	 * Rewrite a single query expression
+	 * @param type The domain class of the searched collection
+	 * @param query The query
+	 * @return The query with resolved joins
+	 */
+	public String rewrite(Class<?> type, String query) {
+		return rewrite(getJoins(type), query, JOIN);
+	}
+	
+	private static String rewrite(Map<String, Join> joins, String query, JoinRenderer renderer) {
+		if ( query == null || joins.isEmpty() || query.indexOf('.') < 0 || query.trim().startsWith("{!")) {
+			return query;
+		}
+		StringBuilder out = null;
+		int copied = 0;
+		int length = query.length();
+		int i = 0;
+		while (i < length) {
+			char c = query.charAt(i);
+			if ( c == '"') {
+				i = skipQuoted(query, i);
+				continue;
+			}
+			if ( c == '\\') {
+				i += 2;
+				continue;
+			}
+			if ( isClauseStart(query, i) ) {
+				int dot = scanName(query, i);
+				if ( dot < length && query.charAt(dot) == '.' && dot > i) {
+					Join join = joins.get(query.substring(i, dot));
+					int colon = scanField(query, dot + 1);
+					if ( join != null && colon < length && query.charAt(colon) == ':' && colon > dot + 1) {
+						int end = scanValue(query, colon + 1);
+						String inner = query.substring(dot + 1, end);
+						String rendered = renderer.render(join, inner);
+						if ( out == null ) {
+							out = new StringBuilder(length + 64);
+						}
+						out.append(query, copied, i);
+						if ( i == 0 && end == length ) {
+							// the join is the query
+							out.append(rendered);
+						}
+						else {
+							out.append("_query_:\"").append(escapeQuoted(rendered)).append('"');
+						}
+						copied = end;
+						i = end;
+						continue;
+					}
+				}
+			}
+			i++;
+		}
+		if ( out == null ) {
+			return query;
+		}
+		return out.append(query, copied, length).toString();
+	}
+	private static boolean isClauseStart(String query, int i) {
+		if ( i == 0 ) {
+			return true;
+		}
+		char prev = query.charAt(i - 1);
+		return Character.isWhitespace(prev) || prev == '(' || prev == '+' || prev == '-' || prev == '!';
+	}
+	private static int scanName(String query, int i) {
+		while (i < query.length()) {
+			char c = query.charAt(i);
+			if (! (Character.isLetterOrDigit(c) || c == '_' || c == '-')) {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+	private static int scanField(String query, int i) {
+		while (i < query.length()) {
+			char c = query.charAt(i);
+			if (! (Character.isLetterOrDigit(c) || c == '_' || c == '*' || c == '-' || c == '.')) {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+	/**
+	 * Find the end of the value following the field name
+	 */
+	private static int scanValue(String query, int i) {
+		int length = query.length();
+		if ( i >= length ) {
+			return i;
+		}
+		char c = query.charAt(i);
+		if ( c == '"') {
+			i = skipQuoted(query, i);
+		}
+		else if ( c == '(' || c == '[' || c == '{') {
+			i = skipGroup(query, i);
+		}
+		// plain value or suffix such as ~2 or ^3
+		int depth = 0;
+		while (i < length) {
+			c = query.charAt(i);
+			if ( c == '\\') {
+				i += 2;
+				continue;
+			}
+			if ( Character.isWhitespace(c)) {
+				break;
+			}
+			if ( c == '(') {
+				depth++;
+			}
+			else if ( c == ')') {
+				if ( depth == 0 ) {
+					break;
+				}
+				depth--;
+			}
+			i++;
+		}
+		return Math.min(i, length);
+	}
+	private static int skipQuoted(String query, int i) {
+		i++;
+		while (i < query.length()) {
+			char c = query.charAt(i);
+			if ( c == '\\') {
+				i += 2;
+				continue;
+			}
+			i++;
+			if ( c == '"') {
+				break;
+			}
+		}
+		return Math.min(i, query.length());
+	}
+	private static int skipGroup(String query, int i) {
+		int depth = 0;
+		while (i < query.length()) {
+			char c = query.charAt(i);
+			if ( c == '\\') {
+				i += 2;
+				continue;
+			}
+			if ( c == '"') {
+				i = skipQuoted(query, i);
+				continue;
+			}
+			if ( c == '(' || c == '[' || c == '{') {
+				depth++;
+			}
+			else if ( c == ')' || c == ']' || c == '}') {
+				depth--;
+			}
+			i++;
+			if ( depth == 0 ) {
+				break;
+			}
+		}
+		return Math.min(i, query.length());
+	}
+	private static String escapeQuoted(String value) {
+		StringBuilder escaped = new StringBuilder(value.length() + 8);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ( c == '"' || c == '\\') {
+				escaped.append('\\');
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+	/**
+	 * Collect the joins of a domain class
+	 */
+	private static Map<String, Join> inspect(Class<?> type) {
+		Map<String, Join> typeJoins = new HashMap<>();
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				SolrJoin solrJoin = field.getAnnotation(SolrJoin.class);
+				if ( solrJoin == null ) {
+					continue;
+				}
+				Class<?> joinedType = solrJoin.joinedType();
+				String fromIndex = collection(joinedType);
+				if ( fromIndex == null ) {
+					throw new IllegalArgumentException(String.format("Joined type %s of %s.%s is not a SolrDocument with collection", 
+							joinedType.getName(), type.getName(), field.getName()));
+				}
+				String from = StringUtils.hasText(solrJoin.joinedField()) ? solrJoin.joinedField() : idField(joinedType);
+				Join join = new Join(fromIndex, fromIndex, from, fieldName(field));
+				typeJoins.put(fromIndex, join);
+				for (String name : solrJoin.joinName()) {
+					if ( StringUtils.hasText(name)) {
+						typeJoins.put(name, new Join(name, fromIndex, from, join.getTo()));
+					}
+				}
+			}
+		}
+		return typeJoins;
+	}
+	private static String collection(Class<?> type) {
+		// the merged annotation resolves the (deprecated) solrCoreName alias
+		SolrDocument document = AnnotatedElementUtils.findMergedAnnotation(type, SolrDocument.class);
+		if ( document == null || ! StringUtils.hasText(document.collection())) {
+			return null;
+		}
+		return document.collection();
+	}
+	private static String idField(Class<?> type) {
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if ( field.isAnnotationPresent(Id.class)) {
+					return fieldName(field);
+				}
+			}
+		}
+		throw new IllegalArgumentException("No @Id field in " + type.getName());
+	}
+	private static String fieldName(Field field) {
+		Indexed indexed = field.getAnnotation(Indexed.class);
+		if ( indexed != null ) {
+			if ( StringUtils.hasText(indexed.name())) {
+				return indexed.name();
+			}
+			if ( StringUtils.hasText(indexed.value())) {
+				return indexed.value();
+			}
+		}
+		return field.getName();
+	}
+}
@@ -0,0 +1,143 @@
+package at.srfg.indexing.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.solr.BulkResult;
+/**
+ * Incremental processing of bulk requests. The documents are read one after the 
+ * other with Jackson's streaming parser, either from a JSON array or from a 
+ * newline delimited JSON (NDJSON) stream, and passed to a handler such as 
+ * {@link at.srfg.indexing.IndexingService#setClass(at.srfg.indexing.model.common.ClassType)}.
+ * <p>
+ * With a batch size larger than one, the documents are collected and passed to the handler 
+ * batch by batch, e.g. {@link at.srfg.indexing.IndexingService#setClassBatch(List)} storing 
+ * the batch with a single write. The response of the handler applies to all documents 
+ * of the batch.
+ * </p>
+ * <p>
+ * A document which cannot be mapped to the requested type is reported as failure, processing
+ * continues with the next document. Malformed JSON stops the processing, the results
+ * obtained so far are returned.
+ * </p>
+ * <p>
+ * The documents are read with the application's object mapper, unknown properties are 
+ * ignored.
+ * </p>
+ */
+public class BulkIngest {
+	/**
+	 * Media type for newline delimited JSON
+	 */
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+	/**
+	 * Handler for a single document or a batch of documents
+	 *
+	 * @param <T>
+	 */
+	@FunctionalInterface
+	public interface DocumentHandler<T> {
+		ResponseEntity<?> handle(T document) throws Exception;
+	}
+	
+	private BulkIngest() {
+		// static helper
+	}
+	/**
+	 * Read all documents from the stream and pass them one by one to the handler.
+	 * @param mapper The object mapper reading the documents
+	 * @param stream The request body, JSON array or NDJSON
+	 * @param type The document type
+	 * @param handler The handler storing a single document
+	 * @return The result per document
+	 * @throws IOException when the stream cannot be read
+	 */
+	public static <T extends IConcept> List<BulkResult> process(ObjectMapper mapper, InputStream stream, Class<T> type, DocumentHandler<T> handler) throws IOException {
+		return process(mapper, stream, type, 1, batch -> handler.handle(batch.get(0)));
+	}
+	/**
+	 * Read all documents from the stream and pass them batch by batch to the handler.
+	 * @param mapper The object mapper reading the documents
+	 * @param stream The request body, JSON array or NDJSON
+	 * @param type The document type
+	 * @param batchSize The maximum number of documents per batch
+	 * @param handler The handler storing a batch of documents, the batch list is reused once the handler returns
+	 * @return The result per document
+	 * @throws IOException when the stream cannot be read
+	 */
+	public static <T extends IConcept> List<BulkResult> process(ObjectMapper mapper, InputStream stream, Class<T> type, 
+			int batchSize, DocumentHandler<List<T>> handler) throws IOException {
+		List<BulkResult> results = new ArrayList<>();
+		List<T> batch = new ArrayList<>(Math.max(1, batchSize));
+		// the index of each document in the batch, mapping failures leave gaps
+		List<Integer> positions = new ArrayList<>(Math.max(1, batchSize));
+		int index = 0;
+		ObjectReader reader = mapper.readerFor(type).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		try (MappingIterator<T> documents = reader.readValues(stream)) {
+			while (documents.hasNextValue()) {
+				T document;
+				try {
+					document = documents.nextValue();
+				} catch (JsonParseException e) {
+					// malformed JSON, no way to continue
+					results.add(BulkResult.failure(index, null, e.getOriginalMessage()));
+					break;
+				} catch (JsonMappingException e) {
+					// the parser skips the rest of the failed document
+					results.add(BulkResult.failure(index++, null, e.getOriginalMessage()));
+					continue;
+				}
+				batch.add(document);
+				positions.add(index++);
+				if ( batch.size() >= batchSize ) {
+					handle(batch, positions, handler, results);
+				}
+			}
+		}
+		catch (JsonParseException e) {
+			results.add(BulkResult.failure(index, null, e.getOriginalMessage()));
+		}
+		// the documents read before a parse failure are stored
+		handle(batch, positions, handler, results);
+		// mapping failures are reported before the batch they belong to
+		results.sort(Comparator.comparingInt(BulkResult::getIndex));
+		return results;
+	}
+	/**
+	 * Pass the batch to the handler and clear it
+	 */
+	private static <T extends IConcept> void handle(List<T> batch, List<Integer> positions, DocumentHandler<List<T>> handler, List<BulkResult> results) {
+		if ( batch.isEmpty()) {
+			return;
+		}
+		String failure;
+		try {
+			ResponseEntity<?> response = handler.handle(batch);
+			failure = response.getStatusCode().is2xxSuccessful() && !Boolean.FALSE.equals(response.getBody()) 
+					? null 
+					: response.getStatusCode().getReasonPhrase();
+		} catch (Exception e) {
+			failure = e.getMessage();
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			String uri = batch.get(i).getUri();
+			int index = positions.get(i);
+			results.add(failure == null ? BulkResult.success(index, uri) : BulkResult.failure(index, uri, failure));
+		}
+		batch.clear();
+		positions.clear();
+	}
+}
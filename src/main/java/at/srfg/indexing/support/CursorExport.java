@@ -0,0 +1,145 @@
+package at.srfg.indexing.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+/**
+ * Export of a whole collection (or of all documents matching a query) as newline 
+ * delimited JSON (NDJSON). The documents are requested page by page with cursor 
+ * based paging (see {@link Search#cursor(String)}) and each page is written to the 
+ * response before the next page is requested, so at most one page is held in memory.
+ * <p>
+ * When the search function does not support cursor based paging, e.g. does not report 
+ * a {@link SearchResult#getNextCursor()} although more results exist, the export continues
+ * with offset based paging.
+ * </p>
+ */
+public class CursorExport {
+	/**
+	 * Media type for newline delimited JSON
+	 */
+	public static final String APPLICATION_NDJSON_VALUE = BulkIngest.APPLICATION_NDJSON_VALUE;
+	/**
+	 * Default number of documents per page
+	 */
+	public static final int PAGE_SIZE = 500;
+	
+	private CursorExport() {
+		// static helper
+	}
+	/**
+	 * Create the streaming response for the export
+	 * @param mapper The object mapper serializing the documents, e.g. the application's mapper
+	 * @param query The query
+	 * @param filterQuery The filter queries, may be <code>null</code>
+	 * @param pageSize The number of documents per page
+	 * @param search The search function
+	 * @return
+	 */
+	public static StreamingResponseBody export(ObjectMapper mapper, String query, List<String> filterQuery, int pageSize, SearchFunction search) {
+		return new StreamingResponseBody() {
+			@Override
+			public void writeTo(OutputStream outputStream) throws IOException {
+				Search page = new Search(query)
+						.forPage(0, pageSize > 0 ? pageSize : PAGE_SIZE)
+						.cursor(Search.CURSOR_START);
+				if ( filterQuery != null ) {
+					page.filter(filterQuery.toArray(new String[filterQuery.size()]));
+				}
+				export(mapper, page, search, outputStream);
+			}
+		};
+	}
+	/**
+	 * Write all documents matching the search to the stream, one JSON document per line. 
+	 * The stream is not closed.
+	 * @param mapper The object mapper serializing the documents
+	 * @param search The search, cursor based paging is used when a cursor is set
+	 * @param function The search function
+	 * @param outputStream The stream 
+	 * @return The number of exported documents
+	 * @throws IOException
+	 */
+	public static long export(ObjectMapper mapper, Search search, SearchFunction function, OutputStream outputStream) throws IOException {
+		long exported;
+		try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// one document per line
+			generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+			exported = forEachPage(search, function, documents -> {
+				for (Object document : documents) {
+					generator.writeObject(document);
+				}
+				generator.flush();
+			});
+			if ( exported > 0 ) {
+				generator.writeRaw('\n');
+			}
+		}
+		return exported;
+	}
+	/**
+	 * Process all documents matching the search page by page
+	 * @param search The search, cursor based paging is used when a cursor is set
+	 * @param function The search function
+	 * @param consumer The consumer processing each page
+	 * @return The number of processed documents
+	 * @throws IOException
+	 */
+	public static long forEachPage(Search search, SearchFunction function, PageConsumer consumer) throws IOException {
+		long processed = 0;
+		while (true) {
+			SearchResult<?> page = search(search, function);
+			List<?> documents = page.getResult();
+			if ( documents == null || documents.isEmpty()) {
+				break;
+			}
+			consumer.accept(documents);
+			processed += documents.size();
+			
+			if ( page.getNextCursor() != null ) {
+				search.cursor(page.getNextCursor());
+			}
+			else if ( processed < page.getTotalElements()) {
+				// no cursor support, continue with the next page
+				int next = search.isCursorPaging() ? 1 : search.getStart() + 1;
+				search.cursor(null).forPage(next, search.getRows());
+			}
+			else {
+				break;
+			}
+		}
+		return processed;
+	}
+	private static SearchResult<?> search(Search search, SearchFunction function) throws IOException {
+		try {
+			ResponseEntity<?> response = function.search(search);
+			if ( response.getStatusCode().is2xxSuccessful() && response.getBody() instanceof SearchResult<?>) {
+				return (SearchResult<?>) response.getBody();
+			}
+			throw new IOException("Export failed: " + response.getStatusCode());
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Export failed", e);
+		}
+	}
+	/**
+	 * Callback for {@link CursorExport#forEachPage(Search, SearchFunction, PageConsumer)}
+	 */
+	@FunctionalInterface
+	public interface PageConsumer {
+		void accept(List<?> documents) throws IOException;
+	}
+}
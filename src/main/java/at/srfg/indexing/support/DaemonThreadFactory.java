@@ -0,0 +1,22 @@
+package at.srfg.indexing.support;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Thread factory creating named daemon threads for the 
+ * background work of the helpers. 
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+	private final String prefix;
+	private final AtomicInteger count = new AtomicInteger();
+	
+	public DaemonThreadFactory(String prefix) {
+		this.prefix = prefix;
+	}
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
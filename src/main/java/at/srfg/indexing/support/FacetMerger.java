@@ -0,0 +1,273 @@
+package at.srfg.indexing.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToIntFunction;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.model.solr.FacetResult;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+/**
+ * Merges the facet counts of a {@link Search} executed against several collections
+ * (or shards), e.g. the tenant specific <code>property</code> collections.
+ * <p>
+ * The search is sent to all collections in parallel, each collection is asked for more
+ * entries than the requested facet limit (see {@link #overRequest(int)}) and the counts
+ * are summed per label. Labels among the merged top entries which were not reported by a
+ * collection with a truncated facet list are refined with a second search per collection
+ * and field, restricted with a <code>{!terms f=field}</code> filter to the missing labels. 
+ * The filter restricts the documents, only the counts of the missing labels are taken from 
+ * the refinement, the other labels of the (multi-valued) field are already counted.
+ * Finally the facet limits (including per-field limits) and the minimum count of the search 
+ * are applied to the sums.
+ * </p>
+ * <p>
+ * Only the field facets are merged, range and pivot facets as well as the documents of the 
+ * collections are not requested.
+ * </p>
+ */
+public class FacetMerger {
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new DaemonThreadFactory("facet-merger"));
+
+	private final List<SearchFunction> collections;
+	private final Executor executor;
+	/**
+	 * Create the merger for the given collections
+	 * @param collections The search functions, one per collection
+	 */
+	public FacetMerger(Collection<SearchFunction> collections) {
+		this(collections, EXECUTOR);
+	}
+	/**
+	 * Create the merger for the given collections
+	 * @param collections The search functions, one per collection
+	 * @param executor The executor running the searches
+	 */
+	public FacetMerger(Collection<SearchFunction> collections, Executor executor) {
+		this.collections = new ArrayList<>(collections);
+		this.executor = executor;
+	}
+	/**
+	 * Obtain the merged facets of the search.
+	 * @param search The search, the query, filters and facet settings are used
+	 * @return The merged facets, keyed by field name
+	 * @throws Exception When one of the searches fails, partial counts are not reported
+	 */
+	public Map<String, FacetResult> facets(Search search) throws Exception {
+		List<String> fields = search.getFacetFields();
+		if ( fields == null || fields.isEmpty() || collections.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		// mincount applies to the sums, each collection reports all counts
+		Search shardSearch = facetSearch(search)
+				.facetLimit(overRequest(search.getFacetLimit()))
+				.facetMinCount(1);
+		for (String field : fields) {
+			if ( search.getFacetLimit(field) != search.getFacetLimit()) {
+				shardSearch.facetLimit(field, overRequest(search.getFacetLimit(field)));
+			}
+		}
+		// range and pivot facets are not merged
+		shardSearch.getFacet().setRange(null);
+		shardSearch.getFacet().setPivot(null);
+		List<Map<String, FacetResult>> shardFacets = await(fanOut(shardSearch));
+
+		Map<String, Map<String, Long>> counts = sum(shardFacets);
+		refine(search, shardFacets, counts);
+		return select(counts, search::getFacetLimit, search.getFacetMinCount());
+	}
+	/**
+	 * Merge facets without refinement, e.g. when each collection reported all labels
+	 * @param facets The facets of each collection
+	 * @param limit The maximum number of entries per field, negative for all entries
+	 * @param minCount The minimum (summed) count of an entry
+	 * @return The merged facets, keyed by field name
+	 */
+	public static Map<String, FacetResult> merge(List<Map<String, FacetResult>> facets, int limit, int minCount) {
+		return select(sum(facets), field -> limit, minCount);
+	}
+	/**
+	 * The number of entries to request from each collection, more than the limit so that
+	 * less refinement is needed.
+	 * @param limit The requested facet limit
+	 * @return The limit for each collection
+	 */
+	static int overRequest(int limit) {
+		if ( limit < 0 ) {
+			return limit;
+		}
+		return (int) (limit * 1.5) + 10;
+	}
+	private List<CompletableFuture<Map<String, FacetResult>>> fanOut(Search search) {
+		List<CompletableFuture<Map<String, FacetResult>>> pending = new ArrayList<>(collections.size());
+		for (SearchFunction collection : collections) {
+			pending.add(submit(collection, search));
+		}
+		return pending;
+	}
+	private CompletableFuture<Map<String, FacetResult>> submit(SearchFunction collection, Search search) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return facetsOf(collection.search(search));
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+	/**
+	 * Refine the candidates for the top entries. A collection with less entries than requested
+	 * reported all of its labels, only truncated facet lists need to be refined.
+	 */
+	private void refine(Search search, List<Map<String, FacetResult>> shardFacets, Map<String, Map<String, Long>> counts) throws Exception {
+		Map<String, Set<String>> candidates = new HashMap<>();
+		for (Map.Entry<String, Map<String, Long>> field : counts.entrySet()) {
+			// collections report all labels without limit
+			if ( search.getFacetLimit(field.getKey()) >= 0 ) {
+				candidates.put(field.getKey(), top(field.getValue(), search.getFacetLimit(field.getKey())));
+			}
+		}
+		List<CompletableFuture<Map<String, FacetResult>>> pending = new ArrayList<>();
+		// the field and the missing labels of each refinement
+		List<String> refinedFields = new ArrayList<>();
+		List<Set<String>> refinedLabels = new ArrayList<>();
+		for (int i = 0; i < collections.size(); i++) {
+			Map<String, FacetResult> reported = shardFacets.get(i);
+			for (Map.Entry<String, Set<String>> field : candidates.entrySet()) {
+				FacetResult facet = reported.get(field.getKey());
+				if ( facet == null || facet.getEntry() == null || facet.getEntry().size() < overRequest(search.getFacetLimit(field.getKey()))) {
+					continue;
+				}
+				Set<String> missing = new HashSet<>(field.getValue());
+				for (FacetResult.Entry entry : facet.getEntry()) {
+					missing.remove(entry.getLabel());
+				}
+				if (! missing.isEmpty()) {
+					Search refinement = facetSearch(search);
+					refinement.setFacet(null);
+					refinement
+						.filter(Search.termsFilter(field.getKey(), missing))
+						.facetField(field.getKey())
+						.facetLimit(-1)
+						.facetMinCount(1);
+					pending.add(submit(collections.get(i), refinement));
+					refinedFields.add(field.getKey());
+					refinedLabels.add(missing);
+				}
+			}
+		}
+		List<Map<String, FacetResult>> refined = await(pending);
+		for (int i = 0; i < refined.size(); i++) {
+			FacetResult facet = refined.get(i).get(refinedFields.get(i));
+			if ( facet != null ) {
+				add(counts, facet, refinedLabels.get(i));
+			}
+		}
+	}
+	private static Search facetSearch(Search search) {
+		Search copy = new Search(search)
+				.forPage(0, 0)
+				.cursor(null);
+		copy.setSort(null);
+		return copy;
+	}
+	private static Map<String, Map<String, Long>> sum(List<Map<String, FacetResult>> facets) {
+		Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+		for (Map<String, FacetResult> collection : facets) {
+			for (FacetResult facet : collection.values()) {
+				add(counts, facet);
+			}
+		}
+		return counts;
+	}
+	private static void add(Map<String, Map<String, Long>> counts, FacetResult facet) {
+		add(counts, facet, null);
+	}
+	/**
+	 * Add the counts of the facet
+	 * @param labels The labels to add, all labels when <code>null</code>
+	 */
+	private static void add(Map<String, Map<String, Long>> counts, FacetResult facet, Set<String> labels) {
+		if ( facet.getEntry() == null ) {
+			return;
+		}
+		Map<String, Long> field = counts.computeIfAbsent(facet.getFieldName(), k -> new HashMap<>());
+		for (FacetResult.Entry entry : facet.getEntry()) {
+			if ( labels == null || labels.contains(entry.getLabel())) {
+				field.merge(entry.getLabel(), entry.getCount(), Long::sum);
+			}
+		}
+	}
+	private static Set<String> top(Map<String, Long> counts, int limit) {
+		FacetResult.Entry[] entries = entries(counts, 0);
+		Arrays.sort(entries);
+		Set<String> top = new HashSet<>();
+		for (int i = 0; i < Math.min(limit, entries.length); i++) {
+			top.add(entries[i].getLabel());
+		}
+		return top;
+	}
+	private static Map<String, FacetResult> select(Map<String, Map<String, Long>> counts, ToIntFunction<String> limits, int minCount) {
+		Map<String, FacetResult> result = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, Long>> field : counts.entrySet()) {
+			FacetResult.Entry[] entries = entries(field.getValue(), minCount);
+			if ( entries.length == 0 ) {
+				continue;
+			}
+			Arrays.sort(entries);
+			int limit = limits.applyAsInt(field.getKey());
+			int size = limit < 0 ? entries.length : Math.min(limit, entries.length);
+			result.put(field.getKey(), FacetResult.of(field.getKey(), entries, size));
+		}
+		return result;
+	}
+	private static FacetResult.Entry[] entries(Map<String, Long> counts, int minCount) {
+		List<FacetResult.Entry> entries = new ArrayList<>(counts.size());
+		for (Map.Entry<String, Long> count : counts.entrySet()) {
+			if ( count.getValue() >= minCount ) {
+				entries.add(new FacetResult.Entry(count.getKey(), count.getValue()));
+			}
+		}
+		return entries.toArray(new FacetResult.Entry[entries.size()]);
+	}
+	private static Map<String, FacetResult> facetsOf(ResponseEntity<?> response) {
+		if ( response.getStatusCode().is2xxSuccessful() && response.getBody() instanceof SearchResult<?>) {
+			Map<String, FacetResult> facets = ((SearchResult<?>) response.getBody()).getFacets();
+			return facets != null ? facets : Collections.emptyMap();
+		}
+		throw new IllegalStateException("Search failed: " + response.getStatusCode());
+	}
+	private static <T> List<T> await(List<CompletableFuture<T>> pending) throws Exception {
+		try {
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[pending.size()])).join();
+		} catch (CompletionException e) {
+			for (CompletableFuture<T> future : pending) {
+				future.cancel(true);
+			}
+			if ( e.getCause() instanceof Exception ) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		List<T> result = new ArrayList<>(pending.size());
+		for (CompletableFuture<T> future : pending) {
+			result.add(future.join());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,191 @@
+package at.srfg.indexing.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import at.srfg.indexing.model.solr.DynamicFieldMatcher;
+import at.srfg.indexing.model.solr.IndexField;
+/**
+ * In-memory catalog of the {@link IndexField}s of a single collection. 
+ * <p>
+ * Reading the field descriptions from the schema (Luke request) scans all fields of 
+ * the collection. The catalog reads them once and serves subsets from memory. The 
+ * catalog is reloaded in the background, either periodically (see {@link #start(long)}) 
+ * or after a number of modifications of the collection (see {@link #modified()}). 
+ * Readers keep using the current catalog while reloading. A failed reload keeps the 
+ * current catalog, the failure is available with {@link #getLastFailure()}.
+ * </p>
+ * Use one catalog per collection.
+ */
+public class IndexFieldCatalog {
+	/**
+	 * Default number of modifications triggering a reload
+	 */
+	public static final int DEFAULT_WRITE_THRESHOLD = 500;
+	
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("index-field-catalog"));
+	private static final ExecutorService LOADER = Executors.newCachedThreadPool(new DaemonThreadFactory("index-field-loader"));
+	
+	private final Callable<Collection<IndexField>> loader;
+	private final int writeThreshold;
+	private final AtomicInteger writes = new AtomicInteger();
+	private final AtomicBoolean loading = new AtomicBoolean();
+	private volatile Map<String, IndexField> fields;
+	private volatile Exception lastFailure;
+	private ScheduledFuture<?> schedule;
+	
+	public IndexFieldCatalog(Callable<Collection<IndexField>> loader) {
+		this(loader, DEFAULT_WRITE_THRESHOLD);
+	}
+	/**
+	 * Create the catalog
+	 * @param loader Reads all fields of the collection from the index
+	 * @param writeThreshold The number of modifications triggering a reload, not positive for no reload
+	 */
+	public IndexFieldCatalog(Callable<Collection<IndexField>> loader, int writeThreshold) {
+		this.loader = loader;
+		this.writeThreshold = writeThreshold;
+	}
+	/**
+	 * Schedule the periodic reload
+	 * @param refreshSeconds The interval in seconds
+	 * @return
+	 */
+	public synchronized IndexFieldCatalog start(long refreshSeconds) {
+		stop();
+		schedule = SCHEDULER.scheduleWithFixedDelay(this::reloadAsync, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+		return this;
+	}
+	/**
+	 * Stop the periodic reload
+	 */
+	public synchronized void stop() {
+		if ( schedule != null ) {
+			schedule.cancel(false);
+			schedule = null;
+		}
+	}
+	/**
+	 * Whether the periodic reload is scheduled
+	 * @return
+	 */
+	public synchronized boolean isStarted() {
+		return schedule != null;
+	}
+	/**
+	 * The failure of the last reload
+	 * @return The failure or <code>null</code> when the last reload succeeded
+	 */
+	public Exception getLastFailure() {
+		return lastFailure;
+	}
+	/**
+	 * Obtain the fields, the catalog is loaded on first access
+	 * @param fieldNames The requested field names, all fields when <code>null</code> or empty
+	 * @return The fields in catalog order, unknown field names are ignored
+	 * @throws Exception when the initial load fails
+	 */
+	public List<IndexField> getFields(Collection<String> fieldNames) throws Exception {
+		Map<String, IndexField> current = fields();
+		if ( fieldNames == null || fieldNames.isEmpty()) {
+			return new ArrayList<>(current.values());
+		}
+		List<IndexField> result = new ArrayList<>(fieldNames.size());
+		for (String fieldName : fieldNames) {
+			IndexField field = current.get(fieldName);
+			if ( field != null ) {
+				result.add(field);
+			}
+		}
+		return result;
+	}
+	/**
+	 * Obtain a single field
+	 * @param fieldName
+	 * @return The field or <code>null</code> when not present
+	 * @throws Exception when the initial load fails
+	 */
+	public IndexField getField(String fieldName) throws Exception {
+		return fields().get(fieldName);
+	}
+	/**
+	 * Report a modification of the collection, a reload is started in the background
+	 * once the number of modifications reaches the threshold
+	 */
+	public void modified() {
+		if ( writeThreshold > 0 && writes.incrementAndGet() >= writeThreshold ) {
+			reloadAsync();
+		}
+	}
+	/**
+	 * Reload the catalog, the failure is recorded
+	 * @throws Exception
+	 */
+	public void reload() throws Exception {
+		writes.set(0);
+		try {
+			Collection<IndexField> loadedFields = loader.call();
+			Set<String> dynamicBases = new HashSet<>();
+			for (IndexField field : loadedFields) {
+				if ( field.getDynamicBase() != null ) {
+					dynamicBases.add(field.getDynamicBase());
+				}
+			}
+			// compute the derived names once, with one walk per field
+			DynamicFieldMatcher matcher = DynamicFieldMatcher.compile(dynamicBases);
+			Map<String, IndexField> loaded = new LinkedHashMap<>();
+			for (IndexField field : loadedFields) {
+				loaded.put(field.getFieldName(), matcher.resolve(field));
+			}
+			fields = Collections.unmodifiableMap(loaded);
+			lastFailure = null;
+		} catch (Exception e) {
+			lastFailure = e;
+			throw e;
+		}
+	}
+	/**
+	 * Start a reload in the background unless a reload is running, a failure 
+	 * is available with {@link #getLastFailure()}
+	 */
+	public void reloadAsync() {
+		if ( loading.compareAndSet(false, true)) {
+			LOADER.execute(() -> {
+				try {
+					reload();
+				} catch (Exception e) {
+					// keep the current catalog, the failure is recorded
+				} finally {
+					loading.set(false);
+				}
+			});
+		}
+	}
+	private Map<String, IndexField> fields() throws Exception {
+		Map<String, IndexField> current = fields;
+		if ( current == null ) {
+			synchronized (this) {
+				current = fields;
+				if ( current == null ) {
+					reload();
+					current = fields;
+				}
+			}
+		}
+		return current;
+	}
+}
@@ -0,0 +1,237 @@
+package at.srfg.indexing.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.ext.com.google.common.cache.Cache;
+import org.apache.jena.ext.com.google.common.cache.CacheBuilder;
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.model.solr.SolrJoinRewriter;
+import at.srfg.indexing.model.solr.SolrJoinRewriter.Join;
+import at.srfg.indexing.model.solr.SolrJoinRewriter.JoinRenderer;
+/**
+ * Planner for join expressions in {@link Search} queries and filters.
+ * <p>
+ * In {@link Mode#JOIN} mode, the join expressions are rewritten to Solr's <code>{!join}</code> 
+ * query parser, see {@link SolrJoinRewriter}. 
+ * </p>
+ * <p>
+ * In {@link Mode#PUSHDOWN} mode, the inner query is executed against the joined collection first.
+ * When the number of matching documents does not exceed the threshold, the join is replaced with 
+ * a terms filter on the resolved identifiers, e.g.
+ * <pre>
+ * {!terms f=classificationClass}urn:a,urn:b
+ * </pre>
+ * Resolved identifier sets are cached per collection and inner query, call {@link #invalidate(String)} 
+ * whenever the joined collection is modified, e.g. with 
+ * {@link at.srfg.indexing.CachingIndexingService#withJoinPushdown(JoinPushdown)}. Without 
+ * invalidation, a modification of the joined collection is not reflected in the pushed down 
+ * joins until the cached set expires (see {@link #DEFAULT_CACHE_TTL}). An inner search racing 
+ * with an invalidation does not populate the cache. Joins exceeding the threshold, joins on other
+ * fields than the <code>id</code> and failing inner searches fall back to <code>{!join}</code>.
+ * </p>
+ */
+public class JoinPushdown {
+	/**
+	 * The execution mode for join expressions
+	 */
+	public enum Mode {
+		/**
+		 * Always use <code>{!join}</code>
+		 */
+		JOIN,
+		/**
+		 * Resolve small inner result sets to a terms filter
+		 */
+		PUSHDOWN
+	}
+	/**
+	 * Default maximum number of resolved identifiers
+	 */
+	public static final int DEFAULT_THRESHOLD = 1000;
+	/**
+	 * Default number of cached inner queries
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 1000;
+	/**
+	 * Default lifetime of a resolved identifier set in seconds, the maximum staleness of 
+	 * pushed down joins when the joined collection is modified without {@link #invalidate(String)}
+	 */
+	public static final long DEFAULT_CACHE_TTL = 300;
+	/**
+	 * Query matching no documents, used for empty identifier sets
+	 */
+	static final String MATCH_NONE = "-*:*";
+	
+	private final SolrJoinRewriter rewriter;
+	private final Map<String, SearchFunction> collections = new HashMap<>();
+	private final Cache<List<String>, Optional<List<String>>> resolved;
+	/**
+	 * The number of invalidations per collection, an inner search only populates the 
+	 * cache when the collection was not invalidated while searching
+	 */
+	private final Map<String, AtomicLong> modifications = new ConcurrentHashMap<>();
+	private final int threshold;
+	private volatile Mode mode = Mode.PUSHDOWN;
+	/**
+	 * Create the planner with the default threshold and cache settings
+	 * @param rewriter The rewriter providing the join metadata
+	 */
+	public JoinPushdown(SolrJoinRewriter rewriter) {
+		this(rewriter, DEFAULT_THRESHOLD, DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL);
+	}
+	/**
+	 * Create the planner
+	 * @param rewriter The rewriter providing the join metadata
+	 * @param threshold The maximum number of identifiers for a terms filter
+	 * @param cacheSize The maximum number of cached inner queries
+	 * @param ttlSeconds The lifetime of a resolved identifier set
+	 */
+	public JoinPushdown(SolrJoinRewriter rewriter, int threshold, long cacheSize, long ttlSeconds) {
+		this.rewriter = rewriter;
+		this.threshold = threshold;
+		this.resolved = CacheBuilder.newBuilder()
+				.maximumSize(cacheSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.build();
+	}
+	/**
+	 * Register the search function for a joined collection, e.g. 
+	 * <code>pushdown.register(ClassType.COLLECTION, service::searchClass)</code>. Joins 
+	 * to collections without search function are not pushed down.
+	 * @param collection The collection name, used as <code>fromIndex</code>
+	 * @param search The search function
+	 * @return
+	 */
+	public JoinPushdown register(String collection, SearchFunction search) {
+		synchronized (collections) {
+			collections.put(collection, search);
+		}
+		return this;
+	}
+	public Mode getMode() {
+		return mode;
+	}
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+	public int getThreshold() {
+		return threshold;
+	}
+	/**
+	 * Rewrite the join expressions in query and filter queries of the search
+	 * @param type The domain class of the searched collection
+	 * @param search The search to rewrite
+	 * @return The search
+	 */
+	public Search plan(Class<?> type, Search search) {
+		if ( mode == Mode.JOIN ) {
+			return rewriter.rewrite(type, search);
+		}
+		return rewriter.rewrite(type, search, renderer());
+	}
+	/**
+	 * Remove the cached identifier sets resolved from the collection
+	 * @param collection The modified collection
+	 */
+	public void invalidate(String collection) {
+		modifications(collection).incrementAndGet();
+		resolved.asMap().keySet().removeIf(key -> key.get(0).equals(collection));
+	}
+	/**
+	 * Remove all cached identifier sets
+	 */
+	public void invalidateAll() {
+		synchronized (collections) {
+			collections.keySet().forEach(collection -> modifications(collection).incrementAndGet());
+		}
+		resolved.invalidateAll();
+	}
+	private AtomicLong modifications(String collection) {
+		return modifications.computeIfAbsent(collection, k -> new AtomicLong());
+	}
+	/**
+	 * The renderer resolving joins to terms filters
+	 */
+	JoinRenderer renderer() {
+		return (join, query) -> {
+			Optional<List<String>> ids = resolve(join, query);
+			if (! ids.isPresent()) {
+				return join.toQuery(query);
+			}
+			if ( ids.get().isEmpty()) {
+				return MATCH_NONE;
+			}
+			return Search.termsFilter(join.getTo(), ids.get());
+		};
+	}
+	private Optional<List<String>> resolve(Join join, String query) {
+		SearchFunction search;
+		synchronized (collections) {
+			search = collections.get(join.getFromIndex());
+		}
+		if ( search == null || !IConcept.ID_FIELD.equals(join.getFrom())) {
+			return Optional.empty();
+		}
+		List<String> key = Arrays.asList(join.getFromIndex(), query);
+		Optional<List<String>> ids = resolved.getIfPresent(key);
+		if ( ids != null ) {
+			return ids;
+		}
+		AtomicLong counter = modifications(join.getFromIndex());
+		long stamp = counter.get();
+		try {
+			ids = search(search, query);
+		} catch (Exception e) {
+			// inner search failed, use the join
+			return Optional.empty();
+		}
+		if ( counter.get() == stamp ) {
+			resolved.put(key, ids);
+			if ( counter.get() != stamp ) {
+				// invalidated while storing
+				resolved.invalidate(key);
+			}
+		}
+		return ids;
+	}
+	private Optional<List<String>> search(SearchFunction search, String query) throws Exception {
+		// one more than the threshold to detect overflow
+		ResponseEntity<?> response = search.search(new Search(query)
+				.fieldList(IConcept.ID_FIELD)
+				.forPage(0, threshold + 1));
+		if (! response.getStatusCode().is2xxSuccessful() || !(response.getBody() instanceof SearchResult<?>)) {
+			throw new IllegalStateException("Search failed: " + response.getStatusCode());
+		}
+		SearchResult<?> result = (SearchResult<?>) response.getBody();
+		if ( result.getTotalElements() > threshold ) {
+			return Optional.empty();
+		}
+		if ( result.getResult() == null ) {
+			return Optional.of(Collections.emptyList());
+		}
+		List<String> ids = new ArrayList<>(result.getResult().size());
+		for (Object document : result.getResult()) {
+			if ( document instanceof IConcept ) {
+				ids.add(((IConcept) document).getUri());
+			}
+			else {
+				// identifier not accessible
+				return Optional.empty();
+			}
+		}
+		return Optional.of(Collections.unmodifiableList(ids));
+	}
+}
@@ -0,0 +1,13 @@
+package at.srfg.indexing.support;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.model.solr.Search;
+/**
+ * A search endpoint, e.g. {@link at.srfg.indexing.IndexingService#searchClass(Search)}, 
+ * the response body is expected to be a {@link at.srfg.indexing.model.solr.SearchResult}.
+ */
+@FunctionalInterface
+public interface SearchFunction {
+	ResponseEntity<?> search(Search search) throws Exception;
+}
@@ -0,0 +1,171 @@
+package at.srfg.indexing.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.solr.SearchResult;
+/**
+ * Streaming serialization of a {@link SearchResult}. The JSON written is the same as
+ * serializing the {@link SearchResult} with Jackson, but the documents are written one
+ * by one as they are read from the Solr response and need not be collected in the result list.
+ * <p>
+ * The writer is used in three steps
+ * <pre>
+ * try (SearchResultWriter writer = new SearchResultWriter(mapper, outputStream)) {
+ *     // totalElements, totalPages, pageSize and currentPage
+ *     writer.start(header);
+ *     for ( ... each document read ... ) {
+ *         writer.write(document);
+ *     }
+ *     // facets, buckets and nextCursor
+ *     writer.finish(header);
+ * }
+ * </pre>
+ * which fits e.g. SolrJ's <code>StreamingResponseCallback</code>, where the number of
+ * documents is reported before the documents. Use {@link #stream(ObjectMapper, SearchResult, Iterator)}
+ * when the documents are available as iterator. The streamed search endpoints of 
+ * {@link at.srfg.indexing.IndexingService}, e.g. <code>streamProperties</code>, use 
+ * {@link #stream(ObjectMapper, ResponseEntity)}.
+ * </p>
+ * <p>
+ * Use the application's object mapper, so that documents and facets are serialized with 
+ * the same settings as the other responses. Closing the writer does not close the stream.
+ * </p>
+ */
+public class SearchResultWriter implements Closeable {
+
+	private final JsonGenerator generator;
+	private boolean started = false;
+	private boolean finished = false;
+	/**
+	 * Create the writer
+	 * @param mapper The object mapper serializing documents and facets
+	 * @param outputStream The response stream
+	 * @throws IOException
+	 */
+	public SearchResultWriter(ObjectMapper mapper, OutputStream outputStream) throws IOException {
+		this.generator = mapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+		// an aborted result must not look complete
+		this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+		// the response stream is closed by the container
+		this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+	/**
+	 * Create the streaming response for the given header and documents.
+	 * @param mapper The object mapper serializing documents and facets
+	 * @param header The result providing paging information, facets and cursor, the result list is ignored
+	 * @param documents The documents, consumed while writing
+	 * @return
+	 */
+	public static StreamingResponseBody stream(ObjectMapper mapper, SearchResult<?> header, Iterator<?> documents) {
+		return new StreamingResponseBody() {
+			@Override
+			public void writeTo(OutputStream outputStream) throws IOException {
+				write(mapper, header, documents, outputStream);
+			}
+		};
+	}
+	/**
+	 * Create the streaming response for a search response, e.g. of 
+	 * {@link at.srfg.indexing.IndexingService#searchProperties(at.srfg.indexing.model.solr.Search)}. 
+	 * A response without a {@link SearchResult} is passed on with its status and headers only.
+	 * @param mapper The object mapper serializing documents and facets
+	 * @param response The search response
+	 * @return
+	 */
+	public static ResponseEntity<StreamingResponseBody> stream(ObjectMapper mapper, ResponseEntity<?> response) {
+		if ( response.getBody() instanceof SearchResult ) {
+			SearchResult<?> result = (SearchResult<?>) response.getBody();
+			Iterator<?> documents = result.getResult() != null ? result.getResult().iterator() : Collections.emptyIterator();
+			return ResponseEntity.status(response.getStatusCode())
+					.headers(response.getHeaders())
+					.body(stream(mapper, result, documents));
+		}
+		return ResponseEntity.status(response.getStatusCode())
+				.headers(response.getHeaders())
+				.build();
+	}
+	/**
+	 * Write the result with the given documents to the stream, the stream is not closed
+	 * @param mapper The object mapper serializing documents and facets
+	 * @param header The result providing paging information, facets and cursor, the result list is ignored
+	 * @param documents The documents, consumed while writing
+	 * @param outputStream The response stream
+	 * @throws IOException
+	 */
+	public static void write(ObjectMapper mapper, SearchResult<?> header, Iterator<?> documents, OutputStream outputStream) throws IOException {
+		try (SearchResultWriter writer = new SearchResultWriter(mapper, outputStream)) {
+			writer.start(header);
+			while (documents.hasNext()) {
+				writer.write(documents.next());
+			}
+			writer.finish(header);
+		}
+	}
+	/**
+	 * Write the paging information and open the result list
+	 * @param header The result providing the paging information
+	 * @throws IOException
+	 */
+	public void start(SearchResult<?> header) throws IOException {
+		if ( started ) {
+			throw new IllegalStateException("Result already started");
+		}
+		started = true;
+		generator.writeStartObject();
+		generator.writeNumberField("totalElements", header.getTotalElements());
+		generator.writeNumberField("totalPages", header.getTotalPages());
+		generator.writeNumberField("pageSize", header.getPageSize());
+		generator.writeNumberField("currentPage", header.getCurrentPage());
+		generator.writeArrayFieldStart("result");
+	}
+	/**
+	 * Write a single document
+	 * @param document The document
+	 * @throws IOException
+	 */
+	public void write(Object document) throws IOException {
+		if ( !started || finished ) {
+			throw new IllegalStateException("Result not started or already finished");
+		}
+		generator.writeObject(document);
+	}
+	/**
+	 * Close the result list and write facets, buckets and the next cursor
+	 * @param trailer The result providing facets, buckets and cursor
+	 * @throws IOException
+	 */
+	public void finish(SearchResult<?> trailer) throws IOException {
+		if ( !started || finished ) {
+			throw new IllegalStateException("Result not started or already finished");
+		}
+		finished = true;
+		generator.writeEndArray();
+		generator.writeObjectField("facets", trailer.getFacets());
+		if ( trailer.getBuckets() != null ) {
+			generator.writeObjectField("buckets", trailer.getBuckets());
+		}
+		if ( trailer.getNextCursor() != null ) {
+			generator.writeStringField("nextCursor", trailer.getNextCursor());
+		}
+		generator.writeEndObject();
+		generator.flush();
+	}
+	/**
+	 * Close the generator, the output stream is flushed but not closed
+	 */
+	@Override
+	public void close() throws IOException {
+		generator.close();
+	}
+}
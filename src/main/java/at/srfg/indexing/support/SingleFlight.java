@@ -0,0 +1,98 @@
+package at.srfg.indexing.support;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+/**
+ * Coalescing of concurrent identical calls. 
+ * <p>
+ * The first caller for a key executes the call, callers arriving with an equal key
+ * while the call is in flight wait for and receive the same result (or exception).
+ * Once completed, the next caller for the key executes the call again, results are 
+ * not cached.
+ * </p>
+ * The keys must be immutable while in flight.
+ * @param <K> The key type
+ * @param <V> The result type
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong executed = new AtomicLong();
+	private final AtomicLong shared = new AtomicLong();
+	/**
+	 * Execute the call or join an identical call in flight
+	 * @param key The key identifying the call
+	 * @param call The call
+	 * @return The result
+	 * @throws Exception The exception of the call
+	 */
+	public V execute(K key, Callable<V> call) throws Exception {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+		if ( existing != null ) {
+			shared.incrementAndGet();
+			return await(existing);
+		}
+		executed.incrementAndGet();
+		try {
+			V result = call.call();
+			flight.complete(result);
+			return result;
+		} catch (Exception | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+	/**
+	 * Detach the calls in flight matching the predicate, e.g. after a modification. The 
+	 * waiting callers still receive the result, later callers execute a new call.
+	 * @param predicate
+	 */
+	public void forget(Predicate<K> predicate) {
+		inFlight.keySet().removeIf(predicate);
+	}
+	/**
+	 * Number of calls currently in flight
+	 * @return
+	 */
+	public int inFlight() {
+		return inFlight.size();
+	}
+	/**
+	 * Number of executed calls
+	 * @return
+	 */
+	public long executedCount() {
+		return executed.get();
+	}
+	/**
+	 * Number of callers served by a call of another caller
+	 * @return
+	 */
+	public long sharedCount() {
+		return shared.get();
+	}
+	private static <V> V await(CompletableFuture<V> flight) throws Exception {
+		try {
+			return flight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if ( cause instanceof Exception ) {
+				throw (Exception) cause;
+			}
+			if ( cause instanceof Error ) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+}
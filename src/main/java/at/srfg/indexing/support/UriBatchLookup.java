@@ -0,0 +1,219 @@
+package at.srfg.indexing.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+/**
+ * Lookup of large URI lists. The list is split into chunks, each chunk is resolved with 
+ * a single search using a <code>{!terms f=id}</code> filter (see {@link Search#termsFilter(String, Collection)}).
+ * The chunks are searched in parallel and the documents are streamed to the client as soon 
+ * as a chunk completes. 
+ * <p>
+ * The response is a JSON object 
+ * <pre>
+ * {
+ *   "result": [ ... documents in order of arrival ... ],
+ *   "missing": [ ... uris not found ... ],
+ *   "failed": [ ... uris of failed chunks ... ]
+ * }
+ * </pre>
+ * A failing chunk does not fail the request, its URI's are reported in <code>failed</code>.
+ * </p>
+ * <p>
+ * The chunks are searched with the executor provided on construction, {@link #getDefault()}
+ * uses a shared pool of {@link #PARALLELISM} threads with a bounded queue. When the queue
+ * is full, the requesting thread searches the chunk itself.
+ * </p>
+ * <p>
+ * The documents are serialized with the object mapper provided on construction, use the 
+ * application's mapper. {@link #getDefault()} uses a mapper with Spring's default settings.
+ * </p>
+ */
+public class UriBatchLookup {
+	/**
+	 * Number of URI's resolved with a single search
+	 */
+	public static final int CHUNK_SIZE = 200;
+	/**
+	 * Number of chunks searched in parallel
+	 */
+	public static final int PARALLELISM = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+	/**
+	 * Number of chunks waiting for a thread of the default executor
+	 */
+	public static final int QUEUE_CAPACITY = 16 * PARALLELISM;
+	
+	private static final UriBatchLookup DEFAULT = new UriBatchLookup(
+			Jackson2ObjectMapperBuilder.json().build(),
+			boundedExecutor(PARALLELISM, QUEUE_CAPACITY, "uri-batch-lookup"));
+	
+	private final ObjectMapper mapper;
+	private final Executor executor;
+	/**
+	 * Create the lookup searching the chunks with the given executor 
+	 * @param mapper The object mapper serializing the documents
+	 * @param executor The executor, should be bounded, see {@link #boundedExecutor(int, int, String)}
+	 */
+	public UriBatchLookup(ObjectMapper mapper, Executor executor) {
+		this.mapper = mapper;
+		this.executor = executor;
+	}
+	/**
+	 * The lookup using the shared default executor and a mapper with Spring's default settings
+	 * @return
+	 */
+	public static UriBatchLookup getDefault() {
+		return DEFAULT;
+	}
+	/**
+	 * The lookup using the shared default executor and the given mapper
+	 * @param mapper The object mapper serializing the documents
+	 * @return
+	 */
+	public static UriBatchLookup getDefault(ObjectMapper mapper) {
+		return mapper == DEFAULT.mapper ? DEFAULT : new UriBatchLookup(mapper, DEFAULT.executor);
+	}
+	public ObjectMapper getObjectMapper() {
+		return mapper;
+	}
+	/**
+	 * Create an executor with the given number of daemon threads and a bounded queue. When 
+	 * the queue is full, the task is executed by the submitting thread.
+	 * @param threads The maximum number of threads, idle threads are released
+	 * @param queueCapacity The maximum number of waiting tasks
+	 * @param name The thread name prefix
+	 * @return
+	 */
+	public static ThreadPoolExecutor boundedExecutor(int threads, int queueCapacity, String name) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<>(queueCapacity), new DaemonThreadFactory(name), 
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	/**
+	 * Create the streaming response for the lookup of the given URI's
+	 * @param uris The URI's to resolve
+	 * @param search The search function for a single chunk
+	 * @return
+	 */
+	public StreamingResponseBody lookup(Collection<String> uris, SearchFunction search) {
+		return new StreamingResponseBody() {
+			@Override
+			public void writeTo(OutputStream outputStream) throws IOException {
+				lookup(uris, search, outputStream);
+			}
+		};
+	}
+	/**
+	 * Resolve the URI's and write the result to the stream
+	 * @param uris
+	 * @param search
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public void lookup(Collection<String> uris, SearchFunction search, OutputStream outputStream) throws IOException {
+		Set<String> missing = new LinkedHashSet<>(uris);
+		List<String> failed = new ArrayList<>();
+		CompletionService<List<?>> completion = new ExecutorCompletionService<>(executor);
+		List<Future<List<?>>> pending = new ArrayList<>();
+		List<List<String>> chunks = chunks(missing, CHUNK_SIZE);
+		for (List<String> chunk : chunks) {
+			pending.add(completion.submit(() -> searchChunk(chunk, search)));
+		}
+		
+		try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+			// the response stream is closed by the container
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("result");
+			for (int i = 0; i < chunks.size(); i++) {
+				Future<List<?>> done = completion.take();
+				try {
+					for (Object document : done.get()) {
+						generator.writeObject(document);
+						if ( document instanceof IConcept) {
+							missing.remove(((IConcept) document).getUri());
+						}
+					}
+				} catch (ExecutionException e) {
+					failed.addAll(chunks.get(pending.indexOf(done)));
+				}
+				generator.flush();
+			}
+			generator.writeEndArray();
+			missing.removeAll(failed);
+			writeArray(generator, "missing", missing);
+			writeArray(generator, "failed", failed);
+			generator.writeEndObject();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Lookup interrupted", e);
+		} finally {
+			// client gone or interrupted - stop pending searches
+			for (Future<List<?>> future : pending) {
+				future.cancel(true);
+			}
+		}
+	}
+	private static void writeArray(JsonGenerator generator, String name, Collection<String> values) throws IOException {
+		generator.writeArrayFieldStart(name);
+		for (String value : values) {
+			generator.writeString(value);
+		}
+		generator.writeEndArray();
+	}
+	private static List<?> searchChunk(List<String> chunk, SearchFunction search) throws Exception {
+		Search query = new Search()
+				.filter(Search.termsFilter(IConcept.ID_FIELD, chunk))
+				.forPage(0, chunk.size());
+		ResponseEntity<?> response = search.search(query);
+		if ( response.getStatusCode().is2xxSuccessful() && response.getBody() instanceof SearchResult<?>) {
+			List<?> result = ((SearchResult<?>) response.getBody()).getResult();
+			return result != null ? result : new ArrayList<>();
+		}
+		throw new IllegalStateException("Search failed: " + response.getStatusCode());
+	}
+	/**
+	 * Split the values into chunks of the given size
+	 * @param values
+	 * @param size
+	 * @return
+	 */
+	static List<List<String>> chunks(Collection<String> values, int size) {
+		List<List<String>> chunks = new ArrayList<>();
+		List<String> chunk = null;
+		for (String value : values) {
+			if ( chunk == null || chunk.size() == size) {
+				chunk = new ArrayList<>(size);
+				chunks.add(chunk);
+			}
+			chunk.add(value);
+		}
+		return chunks;
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Helpers providing the default behaviour of the {@link at.srfg.indexing.IndexingService}
+ * endpoints.
+ *   
+ */
+package at.srfg.indexing.support;
@@ -0,0 +1,131 @@
+package org.solr.data.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.CachingIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.solr.BulkResult;
+import at.srfg.indexing.support.BulkIngest;
+import junit.framework.TestCase;
+
+public class BulkIngestTest extends TestCase {
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	private static InputStream body(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+	private List<BulkResult> process(String body, List<ClassType> stored) throws Exception {
+		return BulkIngest.process(mapper, body(body), ClassType.class, 
+				c -> { stored.add(c); return ResponseEntity.ok(!c.getUri().endsWith("fail")); });
+	}
+	
+	public void testArrayAndNdjson() throws Exception {
+		List<ClassType> stored = new ArrayList<>();
+		List<BulkResult> array = process("[{\"uri\":\"urn:a\"},{\"uri\":\"urn:b\",\"level\":2}]", stored);
+		List<BulkResult> ndjson = process("{\"uri\":\"urn:c\"}\n{\"uri\":\"urn:fail\"}\n", stored);
+		assertEquals(2, array.size());
+		assertTrue(array.get(1).isSuccess());
+		assertEquals("urn:b", array.get(1).getUri());
+		assertEquals(2, ndjson.size());
+		assertTrue(ndjson.get(0).isSuccess());
+		assertFalse(ndjson.get(1).isSuccess());
+		assertEquals(4, stored.size());
+		assertEquals(Integer.valueOf(2), stored.get(1).getLevel());
+	}
+	
+	public void testMappingFailureContinues() throws Exception {
+		List<ClassType> stored = new ArrayList<>();
+		List<BulkResult> results = process("{\"uri\":\"urn:a\",\"level\":\"x\"}\n{\"uri\":\"urn:b\"}\n{\"uri\":", stored);
+		assertEquals(3, results.size());
+		assertFalse(results.get(0).isSuccess());
+		assertTrue(results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		assertEquals(1, stored.size());
+	}
+	
+	public void testUnknownProperties() throws Exception {
+		// the application's mapper is used, unknown properties are ignored regardless of its settings
+		ObjectMapper application = new ObjectMapper().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		List<ClassType> stored = new ArrayList<>();
+		List<BulkResult> results = BulkIngest.process(application, body("{\"uri\":\"urn:a\",\"unknown\":1}"), ClassType.class, 
+				c -> { stored.add(c); return ResponseEntity.ok(true); });
+		assertTrue(results.get(0).isSuccess());
+		assertEquals("urn:a", stored.get(0).getUri());
+		assertTrue(application.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+	}
+	
+	public void testBatches() throws Exception {
+		List<Integer> batches = new ArrayList<>();
+		String body = "{\"uri\":\"urn:a\"}\n{\"uri\":\"urn:b\",\"level\":\"x\"}\n{\"uri\":\"urn:c\"}\n"
+				+ "{\"uri\":\"urn:d\"}\n{\"uri\":\"urn:fail\"}\n{\"uri\":\"urn:e\"}\n";
+		List<BulkResult> results = BulkIngest.process(mapper, body(body), ClassType.class, 2, batch -> {
+			batches.add(batch.size());
+			for (ClassType c : batch) {
+				if ( c.getUri().endsWith("fail")) {
+					return ResponseEntity.badRequest().build();
+				}
+			}
+			return ResponseEntity.ok(true);
+		});
+		// the mapping failure does not split the batch
+		assertEquals(Arrays.asList(2, 2, 1), batches);
+		assertEquals(6, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(i, results.get(i).getIndex());
+		}
+		assertTrue(results.get(0).isSuccess());
+		assertFalse(results.get(1).isSuccess());
+		assertTrue(results.get(2).isSuccess());
+		assertEquals("urn:c", results.get(2).getUri());
+		// the response applies to the whole batch
+		assertFalse(results.get(3).isSuccess());
+		assertFalse(results.get(4).isSuccess());
+		assertTrue(results.get(5).isSuccess());
+	}
+	
+	public void testBatchEndpoint() throws Exception {
+		List<String> stored = new ArrayList<>();
+		List<Integer> batches = new ArrayList<>();
+		IndexingService backend = (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class},
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+				case "setClass":
+					stored.add(((ClassType) args[0]).getUri());
+					return ResponseEntity.ok(true);
+				case "setClassBatch":
+					batches.add(((List<?>) args[0]).size());
+					return ResponseEntity.ok(true);
+				case "getBulkBatchSize":
+					return 2;
+				case "getObjectMapper":
+					return mapper;
+				case "getPropertyInheritance":
+					return null;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		// the cache forwards the batch to the backend
+		IndexingService service = new CachingIndexingService(backend);
+		ResponseEntity<?> response = service.setClasses(body("[{\"uri\":\"urn:a\"},{\"uri\":\"urn:b\"},{\"uri\":\"urn:c\"}]"));
+		List<?> results = (List<?>) response.getBody();
+		assertEquals(3, results.size());
+		for (Object result : results) {
+			assertTrue(((BulkResult) result).isSuccess());
+		}
+		assertEquals(Arrays.asList(2, 1), batches);
+		assertTrue(stored.isEmpty());
+	}
+}
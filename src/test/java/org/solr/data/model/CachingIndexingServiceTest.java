@@ -0,0 +1,172 @@
+package org.solr.data.model;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.CachingIndexingService;
+import at.srfg.indexing.CoalescingIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.hierarchy.PropertyInheritance;
+import at.srfg.indexing.hierarchy.TaxonomyGraph;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IPropertyType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.SearchResult;
+import junit.framework.TestCase;
+
+public class CachingIndexingServiceTest extends TestCase {
+	private final AtomicInteger lookups = new AtomicInteger();
+	/**
+	 * Current label of the single stored property 
+	 */
+	private final AtomicReference<String> label = new AtomicReference<>("v0");
+	/**
+	 * The resolver of the decorated service
+	 */
+	private PropertyInheritance rootInheritance;
+	private final AtomicInteger resolutions = new AtomicInteger();
+	private final AtomicInteger classLookups = new AtomicInteger();
+	
+	private IndexingService backend() {
+		return (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class}, 
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+				case "getProperty":
+					lookups.incrementAndGet();
+					if (! "p".equals(args[0])) {
+						return ResponseEntity.notFound().build();
+					}
+					PropertyType p = new PropertyType();
+					p.setUri("p");
+					p.setLocalName(label.get());
+					return ResponseEntity.ok(p);
+				case "setProperty":
+					label.set(((PropertyType) args[0]).getLocalName());
+					return ResponseEntity.ok(Boolean.TRUE);
+				case "getClass":
+					classLookups.incrementAndGet();
+					ClassType c = new ClassType();
+					c.setUri((String) args[0]);
+					return ResponseEntity.ok(c);
+				case "setClass":
+					return ResponseEntity.ok(Boolean.TRUE);
+				case "getPropertyInheritance":
+					// null when inherited properties are not in use
+					return rootInheritance;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+				}
+			});
+	}
+	
+	public void testCaching() throws Exception {
+		CachingIndexingService service = new CachingIndexingService(backend(), 100, 60);
+		assertEquals("v0", ((PropertyType) service.getProperty("p").getBody()).getLocalName());
+		assertEquals("v0", ((PropertyType) service.getProperty("p").getBody()).getLocalName());
+		assertEquals(1, lookups.get());
+		// not found is not cached
+		service.getProperty("x");
+		service.getProperty("x");
+		assertEquals(3, lookups.get());
+		
+		PropertyType update = new PropertyType();
+		update.setUri("p");
+		update.setLocalName("v1");
+		service.setProperty(update);
+		assertEquals("v1", ((PropertyType) service.getProperty("p").getBody()).getLocalName());
+		assertEquals(4, lookups.get());
+		assertEquals(1, service.getCacheStats().get(IPropertyType.COLLECTION).hitCount());
+		assertEquals(4, service.getCacheStats().get(IPropertyType.COLLECTION).missCount());
+	}
+	
+	public void testConcurrentWriters() throws Exception {
+		CachingIndexingService service = new CachingIndexingService(backend(), 100, 60);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 6; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 2000; i++) {
+					service.getProperty("p");
+				}
+				return null;
+			}));
+		}
+		for (int t = 0; t < 2; t++) {
+			int writer = t;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 500; i++) {
+					PropertyType update = new PropertyType();
+					update.setUri("p");
+					update.setLocalName("w" + writer + "-" + i);
+					service.setProperty(update);
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		// after all writers finished, the cache must reflect the last write
+		assertEquals(label.get(), ((PropertyType) service.getProperty("p").getBody()).getLocalName());
+	}
+	public void testHierarchyModification() throws Exception {
+		CachingIndexingService service = new CachingIndexingService(backend(), 100, 60);
+		service.getClass("parent");
+		service.getClass("parent");
+		assertEquals(1, classLookups.get());
+		// the new child changes the transitive children of the cached parent
+		ClassType child = new ClassType();
+		child.setUri("child");
+		child.addParent("parent");
+		service.setClass(child);
+		service.getClass("parent");
+		assertEquals(2, classLookups.get());
+	}
+	private PropertyInheritance inheritance() throws Exception {
+		ClassType c = new ClassType();
+		c.setUri("c");
+		c.setProperties(Arrays.asList("p"));
+		TaxonomyGraph graph = new TaxonomyGraph.Builder().add(c).build(false);
+		return new PropertyInheritance(search -> {
+			resolutions.incrementAndGet();
+			return ResponseEntity.ok(new SearchResult<>(Arrays.asList(c)));
+		}, search -> ResponseEntity.ok(new SearchResult<>(Collections.emptyList())), () -> graph, 10);
+	}
+	private void assertInvalidated(IndexingService service, PropertyInheritance expected) throws Exception {
+		PropertyInheritance inheritance = service.getPropertyInheritance();
+		assertSame(expected, inheritance);
+		inheritance.resolve("c");
+		inheritance.resolve("c");
+		assertEquals(1, resolutions.get());
+		PropertyType update = new PropertyType();
+		update.setUri("p");
+		update.setConceptClass(Arrays.asList("c"));
+		service.setProperty(update);
+		inheritance.resolve("c");
+		assertEquals(2, resolutions.get());
+	}
+	public void testInheritanceOfDelegate() throws Exception {
+		rootInheritance = inheritance();
+		// the caching service is wrapped by another decorator
+		IndexingService service = new CoalescingIndexingService(new CachingIndexingService(backend(), 100, 60));
+		assertInvalidated(service, rootInheritance);
+	}
+	public void testInjectedInheritance() throws Exception {
+		PropertyInheritance injected = inheritance();
+		IndexingService service = new CoalescingIndexingService(new CachingIndexingService(backend(), 100, 60, injected));
+		assertInvalidated(service, injected);
+	}
+}
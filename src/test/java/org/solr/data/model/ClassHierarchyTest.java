@@ -0,0 +1,159 @@
+package org.solr.data.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.data.solr.core.query.PartialUpdate;
+import org.springframework.data.solr.core.query.UpdateField;
+
+import at.srfg.indexing.hierarchy.ClassHierarchy;
+import at.srfg.indexing.hierarchy.HierarchyCycleException;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IClassType;
+import junit.framework.TestCase;
+
+public class ClassHierarchyTest extends TestCase {
+	
+	private static ClassType classType(String uri, String ... parents) {
+		ClassType c = new ClassType();
+		c.setUri(uri);
+		c.setParents(Arrays.asList(parents));
+		return c;
+	}
+	
+	public void testCompute() {
+		ClassHierarchy hierarchy = ClassHierarchy.of(Stream.of(
+				classType("a"), classType("b", "a"), classType("c", "b"), classType("d", "a", "c")));
+		hierarchy.compute();
+		assertEquals(Integer.valueOf(1), hierarchy.getLevel("a"));
+		assertEquals(Integer.valueOf(4), hierarchy.getLevel("d"));
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), hierarchy.getAllParents("d"));
+		assertEquals(new HashSet<>(Arrays.asList("b", "c", "d")), hierarchy.getAllChildren("a"));
+		assertEquals(new HashSet<>(Arrays.asList("b", "d")), hierarchy.getChildren("a"));
+		
+		ClassType d = new ClassType();
+		d.setUri("d");
+		hierarchy.applyTo(d);
+		assertEquals(Integer.valueOf(4), d.getLevel());
+		assertEquals(4, hierarchy.updates().size());
+	}
+	
+	public void testCycle() {
+		ClassHierarchy hierarchy = ClassHierarchy.of(Stream.of(
+				classType("a", "c"), classType("b", "a"), classType("c", "b"), classType("d")));
+		try {
+			hierarchy.compute();
+			fail("cycle not detected");
+		} catch (HierarchyCycleException e) {
+			assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), e.getUris());
+		}
+		hierarchy = ClassHierarchy.of(Stream.of(classType("a"), classType("b", "a")));
+		hierarchy.compute();
+		try {
+			hierarchy.update("a", Arrays.asList("b"));
+			fail("cycle not detected");
+		} catch (HierarchyCycleException e) {
+			// unchanged
+			assertEquals(Integer.valueOf(2), hierarchy.getLevel("b"));
+		}
+	}
+	
+	public void testMinimalUpdate() {
+		ClassHierarchy hierarchy = ClassHierarchy.of(Stream.of(
+				classType("r1"), classType("r2"), classType("a", "r1"), classType("b", "a"), classType("x", "r2")));
+		hierarchy.compute();
+		List<PartialUpdate> updates = hierarchy.update("x", Arrays.asList("r2"));
+		assertTrue(updates.isEmpty());
+		// move a (with b) below r2
+		updates = hierarchy.update("a", Arrays.asList("r2"));
+		Map<String, PartialUpdate> byId = new HashMap<>();
+		for (PartialUpdate update : updates) {
+			byId.put(update.getIdField().getValue().toString(), update);
+		}
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "r1", "r2")), byId.keySet());
+		// level of a and b is unchanged
+		assertNull(field(byId.get("b"), IClassType.LEVEL_FIELD));
+		assertEquals(new HashSet<>(Arrays.asList("r2", "a")), new HashSet<>((Collection<?>) field(byId.get("b"), IClassType.ALL_PARENTS_FIELD)));
+		assertNull(field(byId.get("r2"), IClassType.PARENTS_FIELD));
+	}
+	
+	public void testRandomUpdates() {
+		Random random = new Random(42);
+		int size = 300;
+		List<ClassType> classes = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			// parents always have a lower index - no cycles
+			ClassType c = classType("c" + i);
+			for (int p = 0; i > 0 && p < random.nextInt(3); p++) {
+				c.addParent("c" + random.nextInt(i));
+			}
+			classes.add(c);
+		}
+		ClassHierarchy incremental = ClassHierarchy.of(classes.stream());
+		incremental.compute();
+		Map<String, Map<String, Object>> documents = new HashMap<>();
+		apply(documents, incremental.updates());
+		
+		for (int step = 0; step < 200; step++) {
+			int i = 1 + random.nextInt(size - 1);
+			Set<String> parents = new HashSet<>();
+			for (int p = 0; p < random.nextInt(3); p++) {
+				parents.add("c" + random.nextInt(i));
+			}
+			if ( step % 50 == 49 ) {
+				apply(documents, incremental.remove("c" + i));
+				documents.remove("c" + i);
+				classes.removeIf(c -> c.getUri().equals("c" + i));
+				for (ClassType c : classes) {
+					c.getParents().remove("c" + i);
+				}
+				continue;
+			}
+			apply(documents, incremental.update("c" + i, parents));
+			for (ClassType c : classes) {
+				if ( c.getUri().equals("c" + i)) {
+					c.setParents(parents);
+				}
+			}
+			
+		}
+		ClassHierarchy full = ClassHierarchy.of(classes.stream());
+		full.compute();
+		assertEquals(full.size(), incremental.size());
+		for (ClassType c : classes) {
+			String uri = c.getUri();
+			assertEquals(full.getAllParents(uri), incremental.getAllParents(uri));
+			assertEquals(full.getAllChildren(uri), incremental.getAllChildren(uri));
+			assertEquals(full.getLevel(uri), incremental.getLevel(uri));
+			Map<String, Object> document = documents.get(uri);
+			assertEquals(full.getAllParents(uri), new HashSet<>((Collection<?>) document.get(IClassType.ALL_PARENTS_FIELD)));
+			assertEquals(full.getAllChildren(uri), new HashSet<>((Collection<?>) document.get(IClassType.ALL_CHILDREN_FIELD)));
+			assertEquals(full.getChildren(uri), new HashSet<>((Collection<?>) document.get(IClassType.CHILDREN_FIELD)));
+			assertEquals(full.getLevel(uri), document.get(IClassType.LEVEL_FIELD));
+		}
+	}
+	private static Object field(PartialUpdate update, String name) {
+		for (UpdateField field : update.getUpdates()) {
+			if ( field.getName().equals(name)) {
+				return field.getValue();
+			}
+		}
+		return null;
+	}
+	private static void apply(Map<String, Map<String, Object>> documents, List<PartialUpdate> updates) {
+		for (PartialUpdate update : updates) {
+			Map<String, Object> document = documents.computeIfAbsent(update.getIdField().getValue().toString(), k -> new HashMap<>());
+			for (UpdateField field : update.getUpdates()) {
+				document.put(field.getName(), field.getValue());
+			}
+		}
+	}
+}
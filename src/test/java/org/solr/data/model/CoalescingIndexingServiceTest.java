@@ -0,0 +1,81 @@
+package org.solr.data.model;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.CoalescingIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.model.solr.Search;
+import junit.framework.TestCase;
+
+public class CoalescingIndexingServiceTest extends TestCase {
+	private final AtomicInteger calls = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+	
+	private IndexingService backend() {
+		return (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class}, 
+			(proxy, method, args) -> {
+				calls.incrementAndGet();
+				release.await(5, TimeUnit.SECONDS);
+				if ( "searchProperties".equals(method.getName()) && ((Search) args[0]).getRows() < 0) {
+					throw new IllegalArgumentException("rows");
+				}
+				return ResponseEntity.ok(method.getName() + ":" + args[0]);
+			});
+	}
+	
+	public void testSearchEquality() {
+		Search a = new Search("*:*").filter("a:b").facetField("f").facetLimit(5).sort("id asc").forPage(1, 20);
+		Search b = new Search("*:*").filter("a:b").facetField("f").facetLimit(5).sort("id asc").forPage(1, 20);
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		Search copy = new Search(a);
+		assertEquals(a, copy);
+		copy.filter("c:d");
+		assertFalse(a.equals(copy));
+		assertFalse(a.equals(b.facetMinCount(2)));
+		assertFalse(a.equals(new Search(a).cursor(Search.CURSOR_START)));
+	}
+	
+	public void testCoalescing() throws Exception {
+		CoalescingIndexingService service = new CoalescingIndexingService(backend());
+		ExecutorService executor = Executors.newFixedThreadPool(12);
+		List<Future<ResponseEntity<?>>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(executor.submit(() -> service.getProperty("urn:p")));
+		}
+		futures.add(executor.submit(() -> service.searchProperties(new Search("x").facetField("a"))));
+		futures.add(executor.submit(() -> service.getProperty("urn:q")));
+		// wait until all callers arrived
+		long deadline = System.currentTimeMillis() + 5000;
+		while (service.getFlights().executedCount() + service.getFlights().sharedCount() < 12 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+		for (int i = 0; i < 10; i++) {
+			assertEquals("getProperty:urn:p", futures.get(i).get().getBody());
+		}
+		assertEquals("getProperty:urn:q", futures.get(11).get().getBody());
+		futures.get(10).get();
+		assertEquals(3, calls.get());
+		assertEquals(9, service.getFlights().sharedCount());
+		assertEquals(0, service.getFlights().inFlight());
+		
+		try {
+			service.searchProperties(new Search().forPage(0, -1));
+			fail("exception not propagated");
+		} catch (IllegalArgumentException e) {
+			assertEquals(0, service.getFlights().inFlight());
+		}
+		executor.shutdown();
+	}
+}
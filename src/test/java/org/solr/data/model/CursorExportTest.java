@@ -0,0 +1,120 @@
+package org.solr.data.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.support.CursorExport;
+import at.srfg.indexing.support.SearchFunction;
+import junit.framework.TestCase;
+
+public class CursorExportTest extends TestCase {
+	private static final int TOTAL = 5;
+	private final ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * The cursor or the start of each search
+	 */
+	private final List<String> requested = new ArrayList<>();
+
+	private static ClassType document(int i) {
+		ClassType c = new ClassType();
+		c.setUri("urn:c" + i);
+		return c;
+	}
+	private static List<ClassType> documents(int from, int to) {
+		List<ClassType> documents = new ArrayList<>();
+		for (int i = from; i < Math.min(to, TOTAL); i++) {
+			documents.add(document(i));
+		}
+		return documents;
+	}
+	/**
+	 * Index supporting cursor paging, the cursor is the position of the next document
+	 */
+	private final SearchFunction cursorIndex = search -> {
+		assertTrue(search.isCursorPaging());
+		assertEquals(Arrays.asList("id asc"), search.getEffectiveSort());
+		requested.add(search.getCursor());
+		int from = Search.CURSOR_START.equals(search.getCursor()) ? 0 : Integer.parseInt(search.getCursor());
+		int to = Math.min(from + search.getRows(), TOTAL);
+		SearchResult<ClassType> result = new SearchResult<>(documents(from, to));
+		result.setTotalElements(TOTAL);
+		// Solr returns the requested cursor when all documents are read
+		return ResponseEntity.ok(result.withCursor(search.getCursor(),
+				to == from ? search.getCursor() : String.valueOf(to)));
+	};
+	/**
+	 * Index ignoring the cursor, e.g. a search function not supporting cursor paging
+	 */
+	private final SearchFunction offsetIndex = search -> {
+		requested.add(search.isCursorPaging() ? search.getCursor() : String.valueOf(search.getStart()));
+		int from = search.getStart() * search.getRows();
+		SearchResult<ClassType> result = new SearchResult<>(documents(from, from + search.getRows()));
+		result.setTotalElements(TOTAL);
+		return ResponseEntity.ok(result);
+	};
+	private List<String> uris(Search search, SearchFunction function) throws Exception {
+		List<String> uris = new ArrayList<>();
+		long processed = CursorExport.forEachPage(search, function, documents -> {
+			for (Object document : documents) {
+				uris.add(((ClassType) document).getUri());
+			}
+		});
+		assertEquals(uris.size(), processed);
+		return uris;
+	}
+
+	public void testCursor() throws Exception {
+		List<String> uris = uris(new Search().forPage(0, 2).cursor(Search.CURSOR_START), cursorIndex);
+		assertEquals(Arrays.asList("urn:c0", "urn:c1", "urn:c2", "urn:c3", "urn:c4"), uris);
+		// the last page is empty
+		assertEquals(Arrays.asList("*", "2", "4", "5"), requested);
+	}
+	public void testOffsetFallback() throws Exception {
+		List<String> uris = uris(new Search().forPage(0, 2).cursor(Search.CURSOR_START), offsetIndex);
+		assertEquals(Arrays.asList("urn:c0", "urn:c1", "urn:c2", "urn:c3", "urn:c4"), uris);
+		// stops when the total is reached
+		assertEquals(Arrays.asList("*", "1", "2"), requested);
+	}
+	public void testNdjson() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CursorExport.export(mapper, null, null, 2, cursorIndex).writeTo(out);
+		String ndjson = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(ndjson.endsWith("}\n"));
+		String[] lines = ndjson.split("\n", -1);
+		// trailing newline
+		assertEquals(TOTAL + 1, lines.length);
+		assertEquals("", lines[TOTAL]);
+		for (int i = 0; i < TOTAL; i++) {
+			JsonNode node = mapper.readTree(lines[i]);
+			assertTrue(node.isObject());
+			assertEquals("urn:c" + i, node.get("uri").asText());
+		}
+	}
+	public void testEmpty() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SearchFunction empty = search -> ResponseEntity.ok(new SearchResult<>(Collections.emptyList()));
+		assertEquals(0, CursorExport.export(mapper, new Search().cursor(Search.CURSOR_START), empty, out));
+		assertEquals(0, out.size());
+	}
+	public void testFailure() {
+		SearchFunction failing = search -> ResponseEntity.badRequest().build();
+		try {
+			CursorExport.export(mapper, new Search().cursor(Search.CURSOR_START), failing, new ByteArrayOutputStream());
+			fail("Failure not reported");
+		} catch (Exception e) {
+			assertTrue(e.getMessage().contains("400"));
+		}
+	}
+}
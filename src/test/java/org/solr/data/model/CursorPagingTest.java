@@ -0,0 +1,66 @@
+package org.solr.data.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.springframework.data.domain.Pageable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import junit.framework.TestCase;
+
+public class CursorPagingTest extends TestCase {
+
+	public void testEffectiveSort() {
+		// no cursor, sort unchanged
+		assertNull(new Search().getEffectiveSort());
+		assertEquals(Arrays.asList("level asc"), new Search().sort("level asc").getEffectiveSort());
+		// unique key appended
+		assertEquals(Arrays.asList("id asc"), new Search().cursor(Search.CURSOR_START).getEffectiveSort());
+		Search search = new Search().sort("level asc").cursor(Search.CURSOR_START);
+		assertEquals(Arrays.asList("level asc", "id asc"), search.getEffectiveSort());
+		// appended once, the requested sort is not modified
+		assertEquals(Arrays.asList("level asc", "id asc"), search.getEffectiveSort());
+		assertEquals(Arrays.asList("level asc"), search.getSort());
+		// present unique key is kept, regardless of direction and spacing
+		assertEquals(Arrays.asList("id desc", "level asc"),
+				new Search().sort("id desc", "level asc").cursor("AoE=").getEffectiveSort());
+		assertEquals(Arrays.asList(" id   asc"), new Search().sort(" id   asc").cursor("AoE=").getEffectiveSort());
+		// a field starting with the unique key is no tie-breaker
+		assertEquals(Arrays.asList("idx asc", "id asc"), new Search().sort("idx asc").cursor("AoE=").getEffectiveSort());
+	}
+	public void testPage() {
+		Pageable page = new Search().forPage(3, 50).getPage();
+		assertEquals(3, page.getPageNumber());
+		assertEquals(50, page.getPageSize());
+		// the start is ignored with cursor paging
+		Search search = new Search().forPage(3, 50).cursor("AoE=");
+		assertTrue(search.isCursorPaging());
+		page = search.getPage();
+		assertEquals(0, page.getPageNumber());
+		assertEquals(0, page.getOffset());
+		assertEquals(50, page.getPageSize());
+	}
+	public void testCopyAndJson() throws Exception {
+		Search search = new Search("*:*").sort("level asc").cursor("AoE=");
+		Search copy = new Search(search);
+		assertEquals(search, copy);
+		copy.cursor("AoF=");
+		assertFalse(search.equals(copy));
+		ObjectMapper mapper = new ObjectMapper();
+		Search read = mapper.readValue(mapper.writeValueAsString(search), Search.class);
+		assertEquals("AoE=", read.getCursor());
+		assertEquals(search, read);
+		assertFalse(mapper.writeValueAsString(search).contains("effectiveSort"));
+	}
+	public void testNextCursor() {
+		SearchResult<Object> result = new SearchResult<>(Collections.emptyList());
+		assertEquals("AoF=", result.withCursor("AoE=", "AoF=").getNextCursor());
+		// same cursor returned: no more results
+		assertNull(result.withCursor("AoF=", "AoF=").getNextCursor());
+		assertNull(result.withCursor(Search.CURSOR_START, null).getNextCursor());
+		assertEquals("AoE=", result.withCursor(Search.CURSOR_START, "AoE=").getNextCursor());
+	}
+}
@@ -0,0 +1,107 @@
+package org.solr.data.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+
+import at.srfg.indexing.model.common.ICustomPropertyAware;
+import at.srfg.indexing.model.common.PropertyType;
+import junit.framework.TestCase;
+
+public class CustomPropertyAwareTest extends TestCase {
+	/**
+	 * Minimal implementation with plain maps
+	 */
+	static class Item implements ICustomPropertyAware {
+		private final Map<String, Collection<Integer>> customIntValues = new HashMap<>();
+		private final Map<String, Collection<Double>> customDoubleValues = new HashMap<>();
+		private final Map<String, Collection<String>> customStringValues = new HashMap<>();
+		private final Map<String, Boolean> customBooleanValue = new HashMap<>();
+		private final Map<String, String> customPropertyKeys = new HashMap<>();
+		private final Map<String, PropertyType> customProperties = new HashMap<>();
+
+		@Override
+		public String getUri() {
+			return "urn:item";
+		}
+		@Override
+		public Map<String, Collection<Integer>> getCustomIntValues() {
+			return customIntValues;
+		}
+		@Override
+		public Map<String, Collection<Double>> getCustomDoubleValues() {
+			return customDoubleValues;
+		}
+		@Override
+		public Map<String, Collection<String>> getCustomStringValues() {
+			return customStringValues;
+		}
+		@Override
+		public Map<String, Boolean> getCustomBooleanValue() {
+			return customBooleanValue;
+		}
+		@Override
+		public Map<String, String> getCustomPropertyKeys() {
+			return customPropertyKeys;
+		}
+		@Override
+		public Map<String, PropertyType> getCustomProperties() {
+			return customProperties;
+		}
+	}
+
+	public void testReadWithoutSideEffects() {
+		Item item = new Item();
+		item.addProperty(1.5, "weight", "kg");
+		item.addProperty(3, "count");
+		item.addProperty("red", "color");
+		item.addMultiLingualProperty("Rot", Locale.GERMAN, "color", "label");
+		Map<String, String> keys = new HashMap<>(item.getCustomPropertyKeys());
+		assertEquals(4, keys.size());
+
+		// existing qualifiers
+		assertEquals(Arrays.asList(1.5), Arrays.asList(item.getDoublePropertyValues("weight", "kg").toArray()));
+		assertEquals(Arrays.asList(3), Arrays.asList(item.getIntPropertyValues("count").toArray()));
+		assertEquals("red", item.getStringPropertyValue("color").get());
+		assertEquals(Arrays.asList("Rot"), item.getMultiLingualProperties(Locale.GERMAN, "color", "label"));
+		// unknown qualifiers
+		assertNull(item.getDoublePropertyValues("height", "m"));
+		assertNull(item.getIntPropertyValues("size"));
+		assertNull(item.getStringPropertyValues("shape"));
+		assertFalse(item.getMultiLingualProperty(Locale.ENGLISH, "shape", "label").isPresent());
+
+		assertEquals(keys, item.getCustomPropertyKeys());
+	}
+	public void testMultiLingualProperties() {
+		Item item = new Item();
+		item.addMultiLingualProperty("red", Locale.ENGLISH, "color");
+		item.addMultiLingualProperty("crimson", "en", "color");
+		item.addMultiLingualProperty("rot", Locale.GERMAN, "color");
+		item.addMultiLingualProperty("red", "en", "color");
+		assertEquals(Arrays.asList("red", "crimson"), item.getMultiLingualProperties(Locale.ENGLISH, "color"));
+		assertEquals("rot", item.getMultiLingualProperty("de", "color").get());
+		assertTrue(item.getMultiLingualProperties("es", "color").isEmpty());
+		// returned list is a copy
+		item.getMultiLingualProperties("en", "color").clear();
+		assertEquals(2, item.getMultiLingualProperties("en", "color").size());
+		// values read from the index are plain collections
+		item.setStringPropertyValues(new HashSet<>(Arrays.asList("blue@en", "blau@de")), "shade");
+		assertEquals(Arrays.asList("blue"), item.getMultiLingualProperties("en", "shade"));
+		assertTrue(item.getMultiLingualProperties("fr", "shade").isEmpty());
+	}
+	public void testNullNumbers() {
+		Item item = new Item();
+		item.addProperty((Double) null, "weight");
+		item.addProperty((Integer) null, new PropertyType(), "count");
+		assertTrue(item.getCustomDoubleValues().isEmpty());
+		assertTrue(item.getCustomIntValues().isEmpty());
+		assertTrue(item.getCustomPropertyKeys().isEmpty());
+		assertTrue(item.getCustomProperties().isEmpty());
+		item.addProperty(2, "count");
+		item.addProperty((Integer) null, "count");
+		assertEquals(1, item.getIntPropertyValues("count").size());
+	}
+}
@@ -0,0 +1,80 @@
+package org.solr.data.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import at.srfg.indexing.model.solr.DynamicFieldMatcher;
+import at.srfg.indexing.model.solr.DynamicFieldMatcher.Match;
+import at.srfg.indexing.model.solr.IndexField;
+import junit.framework.TestCase;
+
+public class DynamicFieldMatcherTest extends TestCase {
+	
+	public void testLongestPattern() {
+		DynamicFieldMatcher matcher = DynamicFieldMatcher.compile(Arrays.asList("*_label", "*_labels", "*l", "attr_*", "attr_x*", "*", "no_wildcard", "a*b"));
+		assertEquals("*_labels", matcher.match("en_labels").getPattern());
+		assertEquals("*_label", matcher.match("en_label").getPattern());
+		assertEquals("*l", matcher.match("total").getPattern());
+		assertEquals("attr_x*", matcher.match("attr_xyz").getPattern());
+		assertEquals("yz", matcher.match("attr_xyz").getDynamicPart());
+		assertEquals("attr_*", matcher.match("attr_abc").getPattern());
+		assertEquals("*", matcher.match("no_wildcard").getPattern());
+		assertNull(DynamicFieldMatcher.compile(Arrays.asList("*_label")).match("id"));
+	}
+	
+	public void testMappedName() {
+		Match label = DynamicFieldMatcher.DEFAULT.match("en_label");
+		assertEquals("*_label", label.getMappedName());
+		Match value = DynamicFieldMatcher.DEFAULT.match("weight_dvalues");
+		assertEquals("weight", value.getMappedName());
+		IndexField field = DynamicFieldMatcher.DEFAULT.indexField("price_eur_price");
+		assertEquals("*_price", field.getDynamicBase());
+		assertEquals("price_eur", field.getDynamicPart());
+		assertEquals("id", DynamicFieldMatcher.DEFAULT.indexField("id").getMappedName());
+	}
+	
+	public void testResolve() {
+		IndexField value = new IndexField("weight_dvalues");
+		value.setDataType("pdouble");
+		value.setDynamicBase("*_dvalues");
+		assertSame(value, DynamicFieldMatcher.DEFAULT.resolve(value));
+		assertEquals("*_dvalues", value.getDynamicBase());
+		assertEquals("weight", value.getDynamicPart());
+		assertEquals("weight", value.getMappedName());
+		assertEquals("pdouble", value.getDataType());
+		// the dynamic base reported by the index is kept
+		IndexField unknown = new IndexField("en_custom");
+		unknown.setDynamicBase("*_custom");
+		DynamicFieldMatcher.DEFAULT.resolve(unknown);
+		assertEquals("*_custom", unknown.getDynamicBase());
+		assertEquals("en", unknown.getDynamicPart());
+		// static fields are not matched
+		IndexField label = new IndexField("en_label");
+		DynamicFieldMatcher.DEFAULT.resolve(label);
+		assertNull(label.getDynamicBase());
+		assertEquals("en_label", label.getMappedName());
+	}
+	
+	public void testLegacyEquivalence() {
+		List<String> patterns = Arrays.asList("*_label", "*_labels", "*_svalues", "*_dvalues", "*_key", "*_price", 
+				"*_currency", "*_text", "attr_*", "*_bvalue");
+		DynamicFieldMatcher matcher = DynamicFieldMatcher.compile(patterns);
+		Random random = new Random(11);
+		String[] parts = {"en", "de", "weight", "attr", "_", "x", "label", "values"};
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder name = new StringBuilder();
+			for (int p = 0; p < 1 + random.nextInt(3); p++) {
+				name.append(parts[random.nextInt(parts.length)]);
+			}
+			String suffix = patterns.get(random.nextInt(patterns.size()));
+			String fieldName = suffix.startsWith("*") ? name + suffix.substring(1) : suffix.replace("*", "") + name;
+			Match match = matcher.match(fieldName);
+			assertNotNull(fieldName, match);
+			IndexField legacy = new IndexField(fieldName);
+			legacy.setDynamicBase(match.getPattern());
+			assertEquals(fieldName, legacy.getDynamicPart(), match.getDynamicPart());
+			assertEquals(fieldName, legacy.getMappedName(), match.getMappedName());
+		}
+	}
+}
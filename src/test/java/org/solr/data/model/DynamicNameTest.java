@@ -0,0 +1,108 @@
+package org.solr.data.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jena.ext.com.google.common.base.CaseFormat;
+import org.springframework.util.StringUtils;
+
+import at.srfg.indexing.model.common.DynamicName;
+import at.srfg.indexing.model.common.DynamicNameCache;
+import junit.framework.TestCase;
+
+/**
+ * Verifies the single pass encoder in {@link DynamicName} against 
+ * the former regex/CaseFormat based implementation
+ */
+public class DynamicNameTest extends TestCase {
+	private static final String ALPHABET = 
+			"abcxyzABCXYZ019_ _  -.,;:#@/()[]%°³·äöüÄÖÜßéÉıİ\t\n  ";
+	private static final String[] SAMPLES = new String[] {
+			"Net weight", "Max. operating temperature", "Nominal voltage (AC)", "IP protection class",
+			"0173-1#02-AAO677#002", "°C", "N·m", "m³/h", "kg", "KGM", "ABC", "aBC", "_abc", "abc_", "__",
+			" Abc", "!Abc", "a  b", "  ", "", null, "!!!", "netWeight", "net_weight", "NET_WEIGHT", 
+			"x1Y2z3", "1abc", "_1abc", "a_B", "a__b", "A B", "Gross Weight (kg)"
+	};
+	
+	public void testSamples() {
+		for (String sample : SAMPLES) {
+			assertEquals(String.valueOf(sample), legacy(sample), DynamicName.getDynamicFieldPart(sample));
+			for (String unit : SAMPLES ) {
+				assertEquals(sample + "/" + unit, legacy(sample, unit), DynamicName.getDynamicFieldPart(sample, unit));
+			}
+		}
+		assertEquals(legacy(new String[0]), DynamicName.getDynamicFieldPart(new String[0]));
+	}
+	
+	public void testRandomEquivalence() {
+		Random random = new Random(20181017L);
+		for (int i = 0; i < 50000; i++) {
+			String part = random(random);
+			assertEquals(part, legacy(part), DynamicName.getDynamicFieldPart(part));
+			String[] parts = new String[1 + random.nextInt(3)];
+			for (int p = 0; p < parts.length; p++) {
+				parts[p] = random(random);
+			}
+			assertEquals(String.join("|", parts), legacy(parts), DynamicName.getDynamicFieldPart(parts));
+		}
+	}
+	
+	public void testCache() {
+		try {
+			DynamicNameCache.configure(2);
+			assertEquals("netWeightKg", DynamicName.getDynamicFieldPart("Net weight", "kg"));
+			assertEquals("netWeightKg", DynamicName.getDynamicFieldPart("Net weight", "kg"));
+			assertEquals("netWeight", DynamicName.getDynamicFieldPart("Net weight"));
+			assertEquals(1, DynamicNameCache.hitCount());
+			assertEquals(2, DynamicNameCache.missCount());
+			DynamicName.getDynamicFieldPart("Length");
+			DynamicName.getDynamicFieldPart("Width");
+			assertEquals(2, DynamicNameCache.size());
+			assertTrue(DynamicNameCache.evictionCount() > 0);
+			DynamicNameCache.disable();
+			assertEquals("netWeightKg", DynamicName.getDynamicFieldPart("Net weight", "kg"));
+			assertEquals(0, DynamicNameCache.hitCount());
+		} finally {
+			DynamicNameCache.configure(DynamicNameCache.DEFAULT_SIZE);
+		}
+	}
+	
+	public void testAppend() {
+		StringBuilder buffer = new StringBuilder("prefix_");
+		DynamicName.appendDynamicFieldPart("Net weight", buffer);
+		assertEquals("prefix_netWeight", buffer.toString());
+	}
+	
+	private static String random(Random random) {
+		int length = random.nextInt(16);
+		StringBuilder b = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			b.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return b.toString();
+	}
+	/**
+	 * The former implementation of {@link DynamicName#getDynamicFieldPart(String...)}
+	 */
+	private static String legacy(String ... qualifier) {
+		List<String> parts = new ArrayList<>();
+		for ( String part : qualifier ) {
+			parts.add(legacy(part));
+		}
+		return legacy(String.join("_", parts));
+	}
+	/**
+	 * The former implementation of {@link DynamicName#getDynamicFieldPart(String)}
+	 */
+	private static String legacy(String part) {
+		if (! StringUtils.hasText(part)) {
+			return "undefined";
+		}		
+		String dynamicFieldPart = CaseFormat.UPPER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, part);
+		dynamicFieldPart = dynamicFieldPart.replaceAll("[^a-zA-Z0-9_ ]", "");
+		dynamicFieldPart = dynamicFieldPart.trim().replaceAll(" ", "_").toUpperCase();
+		dynamicFieldPart = CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, dynamicFieldPart);
+		return dynamicFieldPart;
+	}
+}
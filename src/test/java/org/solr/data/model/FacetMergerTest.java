@@ -0,0 +1,205 @@
+package org.solr.data.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.model.solr.FacetResult;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.support.FacetMerger;
+import at.srfg.indexing.support.SearchFunction;
+import junit.framework.TestCase;
+
+public class FacetMergerTest extends TestCase {
+	private static final String FIELD = "color";
+	private final AtomicInteger searches = new AtomicInteger();
+	private final CountDownLatch started = new CountDownLatch(2);
+	/**
+	 * Collection of single valued documents with the given label counts
+	 */
+	private SearchFunction collection(Map<String, Long> counts) {
+		List<Set<String>> documents = new ArrayList<>();
+		for (Map.Entry<String, Long> count : counts.entrySet()) {
+			for (long i = 0; i < count.getValue(); i++) {
+				documents.add(Collections.singleton(count.getKey()));
+			}
+		}
+		return documents(documents);
+	}
+	/**
+	 * Collection reporting the top facet entries of the given documents, each document 
+	 * holds the labels of the (multi-valued) field. The terms filter restricts the documents.
+	 */
+	private SearchFunction documents(List<Set<String>> documents) {
+		return search -> {
+			searches.incrementAndGet();
+			started.countDown();
+			// both collections are searched concurrently
+			if (! started.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Sequential fan-out");
+			}
+			Set<String> restrict = null;
+			if ( search.getFilterQuery() != null ) {
+				for (String fq : search.getFilterQuery()) {
+					if ( fq.startsWith("{!terms f=" + FIELD + "}")) {
+						restrict = new HashSet<>(Arrays.asList(fq.substring(fq.indexOf('}') + 1).split(",")));
+					}
+				}
+			}
+			Map<String, Long> counts = new HashMap<>();
+			for (Set<String> document : documents) {
+				if ( restrict == null || ! Collections.disjoint(restrict, document)) {
+					for (String label : document) {
+						counts.merge(label, 1L, Long::sum);
+					}
+				}
+			}
+			List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+			entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+			SearchResult<Object> result = new SearchResult<>(Collections.emptyList());
+			int reported = 0;
+			for (Map.Entry<String, Long> entry : entries) {
+				if ( search.getFacetLimit() >= 0 && reported >= search.getFacetLimit()) {
+					break;
+				}
+				if ( entry.getValue() >= search.getFacetMinCount()) {
+					result.addFacet(FIELD, entry.getKey(), entry.getValue());
+					reported++;
+				}
+			}
+			return ResponseEntity.ok(result);
+		};
+	}
+	private static Map<String, Long> counts(String prefix, int size, long first) {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			counts.put(prefix + i, first - i);
+		}
+		return counts;
+	}
+
+	public void testRefinement() throws Exception {
+		// limit 2 requests 13 entries from each collection
+		Map<String, Long> a = counts("a", 12, 80);
+		a.put("top", 100L);
+		a.put("x", 50L);
+		Map<String, Long> b = counts("b", 13, 94);
+		b.put("x", 95L);
+		b.put("top", 40L);
+		FacetMerger merger = new FacetMerger(Arrays.asList(collection(a), collection(b)));
+
+		Map<String, FacetResult> facets = merger.facets(new Search("*:*").facetField(FIELD).facetLimit(2));
+		Iterator<FacetResult.Entry> entries = facets.get(FIELD).getEntry().iterator();
+		FacetResult.Entry first = entries.next();
+		assertEquals("x", first.getLabel());
+		assertEquals(145, first.getCount());
+		FacetResult.Entry second = entries.next();
+		assertEquals("top", second.getLabel());
+		assertEquals(140, second.getCount());
+		assertFalse(entries.hasNext());
+		// one search per collection, one refinement per collection
+		assertEquals(4, searches.get());
+	}
+	public void testMultiValuedRefinement() throws Exception {
+		// limit 2 requests 13 entries from each collection, a reports top and a0 to a11
+		List<Set<String>> a = new ArrayList<>();
+		a.add(new HashSet<>(Arrays.asList("top", "x")));
+		for (int i = 0; i < 19; i++) {
+			a.add(Collections.singleton("top"));
+		}
+		for (int i = 0; i < 13; i++) {
+			for (int d = 0; d < 19 - i; d++) {
+				a.add(Collections.singleton("a" + i));
+			}
+		}
+		List<Set<String>> b = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			b.add(Collections.singleton("x"));
+		}
+		for (int i = 0; i < 5; i++) {
+			b.add(Collections.singleton("top"));
+		}
+		FacetMerger merger = new FacetMerger(Arrays.asList(documents(a), documents(b)));
+
+		Map<String, FacetResult> facets = merger.facets(new Search("*:*").facetField(FIELD).facetLimit(2));
+		Iterator<FacetResult.Entry> entries = facets.get(FIELD).getEntry().iterator();
+		FacetResult.Entry first = entries.next();
+		assertEquals("x", first.getLabel());
+		assertEquals(31, first.getCount());
+		// the refinement of x reports top as well, top is counted once
+		FacetResult.Entry second = entries.next();
+		assertEquals("top", second.getLabel());
+		assertEquals(25, second.getCount());
+		assertFalse(entries.hasNext());
+		// only a is refined
+		assertEquals(3, searches.get());
+	}
+	public void testComplete() throws Exception {
+		Map<String, Long> a = new HashMap<>();
+		a.put("red", 3L);
+		a.put("blue", 1L);
+		Map<String, Long> b = new HashMap<>();
+		b.put("blue", 1L);
+		b.put("green", 1L);
+		FacetMerger merger = new FacetMerger(Arrays.asList(collection(a), collection(b)));
+
+		Map<String, FacetResult> facets = merger.facets(new Search("*:*").facetField(FIELD).facetMinCount(2));
+		List<String> labels = new ArrayList<>();
+		for (FacetResult.Entry entry : facets.get(FIELD).getEntry()) {
+			labels.add(entry.getLabel() + "=" + entry.getCount());
+		}
+		// green is below the minimum count, no refinement required
+		assertEquals(Arrays.asList("red=3", "blue=2"), labels);
+		assertEquals(2, searches.get());
+	}
+	public void testFieldLimit() throws Exception {
+		Map<String, Long> a = counts("a", 3, 10);
+		Map<String, Long> b = counts("a", 3, 10);
+		FacetMerger merger = new FacetMerger(Arrays.asList(collection(a), collection(b)));
+
+		Map<String, FacetResult> facets = merger.facets(new Search("*:*").facetField(FIELD).facetLimit(FIELD, 1));
+		assertEquals(1, facets.get(FIELD).getEntry().size());
+		assertEquals(20, facets.get(FIELD).getEntry().iterator().next().getCount());
+	}
+	public void testMerge() {
+		SearchResult<Object> a = new SearchResult<>(Collections.emptyList());
+		a.addFacet(FIELD, "red", 2);
+		a.addFacet(FIELD, "blue", 5);
+		SearchResult<Object> b = new SearchResult<>(Collections.emptyList());
+		b.addFacet(FIELD, "red", 4);
+		b.addFacet("size", "xl", 1);
+
+		Map<String, FacetResult> facets = FacetMerger.merge(Arrays.asList(a.getFacets(), b.getFacets()), 1, 1);
+		assertEquals(1, facets.get(FIELD).getEntry().size());
+		FacetResult.Entry top = facets.get(FIELD).getEntry().iterator().next();
+		assertEquals("red", top.getLabel());
+		assertEquals(6, top.getCount());
+		assertEquals(1, facets.get("size").getEntry().size());
+	}
+	public void testFailure() {
+		SearchFunction failing = search -> {
+			started.countDown();
+			throw new IllegalArgumentException("unavailable");
+		};
+		FacetMerger merger = new FacetMerger(Arrays.asList(collection(new HashMap<>()), failing));
+		try {
+			merger.facets(new Search("*:*").facetField(FIELD));
+			fail("Partial counts reported");
+		} catch (Exception e) {
+			assertEquals("unavailable", e.getMessage());
+		}
+	}
+}
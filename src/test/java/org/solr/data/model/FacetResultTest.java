@@ -0,0 +1,51 @@
+package org.solr.data.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.solr.FacetResult;
+import at.srfg.indexing.model.solr.FacetResult.Entry;
+import junit.framework.TestCase;
+
+public class FacetResultTest extends TestCase {
+	
+	public void testSortedEntries() throws Exception {
+		Random random = new Random(5);
+		for (int round = 0; round < 50; round++) {
+			FacetResult legacy = new FacetResult("field");
+			int size = random.nextInt(200);
+			Entry[] entries = new Entry[size];
+			for (int i = 0; i < size; i++) {
+				String label = "l" + random.nextInt(150);
+				long count = random.nextInt(20);
+				legacy.addEntry(label, count);
+				entries[i] = new Entry(label, count);
+			}
+			FacetResult sorted = FacetResult.of("field", entries, size);
+			assertEquals(legacy.getEntry().size(), sorted.getEntry().size());
+			Iterator<Entry> expected = legacy.getEntry().iterator();
+			for (Entry entry : sorted.getEntry()) {
+				Entry e = expected.next();
+				assertEquals(e.getLabel(), entry.getLabel());
+				assertEquals(e.getCount(), entry.getCount());
+			}
+			ObjectMapper mapper = new ObjectMapper();
+			assertEquals(mapper.writeValueAsString(legacy), mapper.writeValueAsString(sorted));
+		}
+	}
+	
+	public void testAddEntry() {
+		FacetResult result = FacetResult.of("field", new Entry[] {new Entry("b", 1), new Entry("a", 1)}, 2);
+		result.addEntry("c", 5);
+		result.addEntry("", 7);
+		List<String> labels = new ArrayList<>();
+		for (Entry entry : result.getEntry()) {
+			labels.add(entry.getLabel());
+		}
+		assertEquals("[c, a, b]", labels.toString());
+	}
+}
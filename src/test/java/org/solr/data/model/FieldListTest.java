@@ -0,0 +1,49 @@
+package org.solr.data.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.common.ICodedType;
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.solr.Search;
+import junit.framework.TestCase;
+
+public class FieldListTest extends TestCase {
+
+	public void testEffectiveFieldList() {
+		assertNull(new Search().getEffectiveFieldList());
+		assertEquals(Arrays.asList(IConcept.LABEL_FIELD, IConcept.ID_FIELD),
+				new Search().fieldList(IConcept.LABEL_FIELD).getEffectiveFieldList());
+		assertEquals(Arrays.asList(IConcept.ID_FIELD, IConcept.LABEL_FIELD),
+				new Search().fieldList(IConcept.ID_FIELD, IConcept.LABEL_FIELD).getEffectiveFieldList());
+		assertEquals(Arrays.asList("*"), new Search().fieldList("*").getEffectiveFieldList());
+	}
+	public void testJson() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		Search search = new Search("level:1").fieldList(IClassType.defaultFieldNames());
+		String json = mapper.writeValueAsString(search);
+		assertTrue(json.contains("\"fl\":["));
+		Search read = mapper.readValue(json, Search.class);
+		assertEquals(search.getFieldList(), read.getFieldList());
+		assertFalse(mapper.writeValueAsString(new Search()).contains("\"fl\""));
+	}
+	public void testCopy() {
+		Search search = new Search().fieldList(IConcept.ID_FIELD);
+		Search copy = new Search(search);
+		assertEquals(search, copy);
+		copy.fieldList(IConcept.LABEL_FIELD);
+		assertFalse(search.equals(copy));
+		assertEquals(1, search.getFieldList().size());
+	}
+	public void testDefaultFieldNames() {
+		List<String> classFields = Arrays.asList(IClassType.defaultFieldNames());
+		assertTrue(classFields.contains(IClassType.PARENTS_FIELD));
+		assertFalse(classFields.contains(IClassType.ALL_PARENTS_FIELD));
+		assertFalse(classFields.contains(IClassType.ALL_CHILDREN_FIELD));
+		assertEquals(classFields.size(), IClassType.defaultFields().size());
+		assertTrue(Arrays.asList(ICodedType.defaultFieldNames()).contains(ICodedType.LIST_ID_FIELD));
+	}
+}
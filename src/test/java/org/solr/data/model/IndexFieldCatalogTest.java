@@ -0,0 +1,101 @@
+package org.solr.data.model;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.FieldCatalogIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.model.solr.IndexField;
+import at.srfg.indexing.support.IndexFieldCatalog;
+import junit.framework.TestCase;
+
+public class IndexFieldCatalogTest extends TestCase {
+	private final AtomicInteger loads = new AtomicInteger();
+	private final AtomicBoolean failing = new AtomicBoolean();
+	
+	private List<IndexField> load() {
+		loads.incrementAndGet();
+		if ( failing.get()) {
+			throw new IllegalStateException("Solr unavailable");
+		}
+		List<IndexField> fields = new ArrayList<>();
+		IndexField label = new IndexField("en_label");
+		label.setDynamicBase("*_label");
+		fields.add(label);
+		IndexField value = new IndexField("weight_dvalues");
+		value.setDynamicBase("*_dvalues");
+		fields.add(value);
+		fields.add(new IndexField("id"));
+		return fields;
+	}
+	
+	public void testCatalog() throws Exception {
+		IndexFieldCatalog catalog = new IndexFieldCatalog(this::load, 3);
+		assertEquals(3, catalog.getFields(null).size());
+		List<IndexField> subset = catalog.getFields(Arrays.asList("weight_dvalues", "unknown", "en_label"));
+		assertEquals(2, subset.size());
+		assertEquals("weight", subset.get(0).getMappedName());
+		assertEquals("*_label", subset.get(1).getMappedName());
+		assertEquals("en", subset.get(1).getDynamicPart());
+		assertEquals("id", catalog.getField("id").getMappedName());
+		assertEquals(1, loads.get());
+		
+		catalog.modified();
+		catalog.modified();
+		assertEquals(1, loads.get());
+		catalog.modified();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (loads.get() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(2, loads.get());
+	}
+	
+	public void testFailure() throws Exception {
+		IndexFieldCatalog catalog = new IndexFieldCatalog(this::load, 1);
+		assertEquals(3, catalog.getFields(null).size());
+		assertNull(catalog.getLastFailure());
+		failing.set(true);
+		catalog.modified();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (catalog.getLastFailure() == null && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals("Solr unavailable", catalog.getLastFailure().getMessage());
+		// the current catalog is kept
+		assertEquals(3, catalog.getFields(null).size());
+		failing.set(false);
+		catalog.reload();
+		assertNull(catalog.getLastFailure());
+	}
+	
+	public void testStop() {
+		IndexingService backend = (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class},
+			(proxy, method, args) -> ResponseEntity.ok(load()));
+		FieldCatalogIndexingService service = new FieldCatalogIndexingService(backend, 3600, 10);
+		assertTrue(service.getClassFields().isStarted());
+		assertTrue(service.getCodeFields().isStarted());
+		assertTrue(service.getPropertyFields().isStarted());
+		service.stop();
+		assertFalse(service.getClassFields().isStarted());
+		assertFalse(service.getCodeFields().isStarted());
+		assertFalse(service.getPropertyFields().isStarted());
+		assertEquals(0, loads.get());
+	}
+	
+	public void testMemoizedNames() {
+		IndexField field = new IndexField("en_label");
+		field.setDynamicBase("*_label");
+		assertEquals("en", field.getDynamicPart());
+		field.setDynamicBase("*_svalues");
+		assertEquals("", field.getDynamicPart());
+		field.setDynamicBase("en_*");
+		assertEquals("label", field.getDynamicPart());
+	}
+}
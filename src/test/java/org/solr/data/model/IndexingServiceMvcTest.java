@@ -0,0 +1,163 @@
+package org.solr.data.model;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.DelegatingIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.hierarchy.PropertyInheritance;
+import at.srfg.indexing.hierarchy.TaxonomyGraph;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.CodedType;
+import at.srfg.indexing.model.common.Concept;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.support.CursorExport;
+import at.srfg.indexing.support.UriBatchLookup;
+import junit.framework.TestCase;
+
+/**
+ * Calls the default endpoints of {@link IndexingService} through Spring MVC
+ */
+public class IndexingServiceMvcTest extends TestCase {
+	private final ObjectMapper mapper = new ObjectMapper();
+	private MockMvc mvc;
+	/**
+	 * The controller, MVC detects the handler methods of annotated classes only
+	 */
+	@RestController
+	static class Controller extends DelegatingIndexingService {
+		Controller(IndexingService delegate) {
+			super(delegate);
+		}
+	}
+	/**
+	 * Resolve the URI's of a terms filter with new documents of the given type
+	 */
+	private static SearchResult<Concept> search(Search search, Class<? extends Concept> type) throws Exception {
+		if ( search.isCursorPaging()) {
+			// export, a single page
+			List<Concept> documents = new ArrayList<>();
+			if ( Search.CURSOR_START.equals(search.getCursor())) {
+				for (String uri : new String[] {"urn:a", "urn:b"}) {
+					Concept document = type.newInstance();
+					document.setUri(uri);
+					documents.add(document);
+				}
+			}
+			return new SearchResult<>(documents).withCursor(search.getCursor(), "AoE=");
+		}
+		String fq = search.getFilterQuery().get(0);
+		List<Concept> documents = new ArrayList<>();
+		for (String uri : fq.substring(fq.indexOf('}') + 1).split(",")) {
+			if (! uri.contains("missing")) {
+				Concept document = type.newInstance();
+				document.setUri(uri);
+				documents.add(document);
+			}
+		}
+		return new SearchResult<>(documents);
+	}
+	@Override
+	protected void setUp() throws Exception {
+		ClassType parent = new ClassType();
+		parent.setUri("urn:a");
+		parent.setProperties(Arrays.asList("urn:p1"));
+		ClassType child = new ClassType();
+		child.setUri("urn:b");
+		child.addParent("urn:a");
+		TaxonomyGraph graph = new TaxonomyGraph.Builder().add(parent).add(child).build(false);
+		PropertyInheritance inheritance = new PropertyInheritance(
+				search -> ResponseEntity.ok(new SearchResult<>(Arrays.asList(parent, child))), 
+				search -> ResponseEntity.ok(new SearchResult<>(Collections.emptyList())), 
+				() -> graph, 10);
+		IndexingService backend = (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class},
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+				case "searchClass":
+					return ResponseEntity.ok(search((Search) args[0], ClassType.class));
+				case "searchCode":
+					return ResponseEntity.ok(search((Search) args[0], CodedType.class));
+				case "searchProperties":
+					return ResponseEntity.ok(search((Search) args[0], PropertyType.class));
+				case "getUriBatchLookup":
+					return new UriBatchLookup(mapper, Runnable::run);
+				case "getObjectMapper":
+					return mapper;
+				case "getPropertyInheritance":
+					return inheritance;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		mvc = MockMvcBuilders.standaloneSetup(new Controller(backend)).build();
+	}
+	private MockHttpServletResponse stream(MockHttpServletRequestBuilder builder) throws Exception {
+		MvcResult result = mvc.perform(builder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+	private JsonNode lookup(String path, String body) throws Exception {
+		return mapper.readTree(stream(post(path).contentType(MediaType.APPLICATION_JSON).content(body)).getContentAsString());
+	}
+	public void testLookup() throws Exception {
+		for (String path : new String[] {"/classes/lookup", "/codes/lookup", "/properties/lookup"}) {
+			JsonNode result = lookup(path, "[\"urn:a\",\"urn:missing\",\"urn:b\"]");
+			assertEquals(path, 2, result.get("result").size());
+			assertEquals(path, "urn:a", result.get("result").get(0).get("uri").asText());
+			assertEquals(path, "urn:missing", result.get("missing").get(0).asText());
+			assertEquals(path, 0, result.get("failed").size());
+		}
+	}
+	public void testExport() throws Exception {
+		for (String path : new String[] {"/class/export", "/code/export", "/property/export"}) {
+			MockHttpServletResponse response = stream(get(path).param("rows", "10"));
+			assertEquals(path, CursorExport.APPLICATION_NDJSON_VALUE, response.getContentType());
+			String[] lines = response.getContentAsString().split("\n");
+			assertEquals(path, 2, lines.length);
+			assertEquals(path, "urn:b", mapper.readTree(lines[1]).get("uri").asText());
+		}
+	}
+	public void testStreamedSearch() throws Exception {
+		String search = mapper.writeValueAsString(new Search().filter(Search.termsFilter("id", Arrays.asList("urn:a", "urn:b"))));
+		for (String path : new String[] {"/class/search/stream", "/code/search/stream", "/property/search/stream"}) {
+			JsonNode result = lookup(path, search);
+			assertEquals(path, 2, result.get("totalElements").asInt());
+			assertEquals(path, 2, result.get("result").size());
+			assertEquals(path, "urn:b", result.get("result").get(1).get("uri").asText());
+		}
+	}
+	public void testInheritedProperties() throws Exception {
+		MockHttpServletResponse response = stream(get("/class/inheritedProperties")
+				.contentType(MediaType.APPLICATION_JSON)
+				.param("uri", "urn:b"));
+		JsonNode result = mapper.readTree(response.getContentAsString());
+		assertEquals(1, result.get("result").size());
+		assertEquals("urn:p1", result.get("result").get(0).get("uri").asText());
+	}
+}
@@ -0,0 +1,109 @@
+package org.solr.data.model;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.CachingIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.model.solr.SolrJoinRewriter;
+import at.srfg.indexing.support.JoinPushdown;
+import junit.framework.TestCase;
+
+public class JoinPushdownTest extends TestCase {
+	private final AtomicInteger searches = new AtomicInteger();
+	
+	private ResponseEntity<?> searchClass(Search search) {
+		searches.incrementAndGet();
+		int hits = search.getQuery().startsWith("level:1") ? 2 : search.getQuery().startsWith("level:2") ? 0 : 5;
+		List<ClassType> result = new ArrayList<>();
+		for (int i = 0; i < hits && i < search.getRows(); i++) {
+			ClassType c = new ClassType();
+			c.setUri("urn:c" + i);
+			result.add(c);
+		}
+		SearchResult<ClassType> r = new SearchResult<>(result);
+		r.setTotalElements(hits);
+		return ResponseEntity.ok(r);
+	}
+	
+	public void testPushdown() {
+		JoinPushdown pushdown = new JoinPushdown(SolrJoinRewriter.of(ClassType.class, PropertyType.class), 3, 10, 60)
+				.register(IClassType.COLLECTION, this::searchClass);
+		Search search = pushdown.plan(PropertyType.class, new Search("concept_class.level:1")
+				.filter("concept_class.level:2", "concept_class.level:3"));
+		assertEquals("{!terms f=classificationClass}urn:c0,urn:c1", search.getQuery());
+		assertEquals("-*:*", search.getFilterQuery().get(0));
+		// above threshold
+		assertEquals("{!join to=classificationClass from=id fromIndex=concept_class}level:3", search.getFilterQuery().get(1));
+		assertEquals(3, searches.get());
+		// cached
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(3, searches.get());
+		pushdown.invalidate(IClassType.COLLECTION);
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(4, searches.get());
+		
+		pushdown.setMode(JoinPushdown.Mode.JOIN);
+		assertEquals("{!join to=classificationClass from=id fromIndex=concept_class}level:1", 
+				pushdown.plan(PropertyType.class, new Search("concept_class.level:1")).getQuery());
+		assertEquals(4, searches.get());
+	}
+	public void testInvalidationOnWrite() throws Exception {
+		JoinPushdown pushdown = new JoinPushdown(SolrJoinRewriter.of(ClassType.class, PropertyType.class), 3, 10, 60)
+				.register(IClassType.COLLECTION, this::searchClass);
+		IndexingService backend = (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class},
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+				case "setClass":
+				case "setProperty":
+					return ResponseEntity.ok(true);
+				case "getPropertyInheritance":
+					// inherited properties not in use
+					return null;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		CachingIndexingService service = new CachingIndexingService(backend).withJoinPushdown(pushdown);
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(1, searches.get());
+		// other collection modified
+		service.setProperty(new PropertyType());
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(1, searches.get());
+		ClassType c = new ClassType();
+		c.setUri("urn:c2");
+		service.setClass(c);
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(2, searches.get());
+	}
+	public void testInvalidationWhileSearching() {
+		AtomicReference<JoinPushdown> planner = new AtomicReference<>();
+		JoinPushdown pushdown = new JoinPushdown(SolrJoinRewriter.of(ClassType.class, PropertyType.class), 3, 10, 60)
+				.register(IClassType.COLLECTION, search -> {
+					if ( searches.get() == 0 ) {
+						// modified while the inner search runs
+						planner.get().invalidate(IClassType.COLLECTION);
+					}
+					return searchClass(search);
+				});
+		planner.set(pushdown);
+		Search search = pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals("{!terms f=classificationClass}urn:c0,urn:c1", search.getQuery());
+		// the result is used but not cached
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(2, searches.get());
+		pushdown.plan(PropertyType.class, new Search("concept_class.level:1"));
+		assertEquals(2, searches.get());
+	}
+}
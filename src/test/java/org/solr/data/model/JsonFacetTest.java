@@ -0,0 +1,113 @@
+package org.solr.data.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.common.IClassType;
+import at.srfg.indexing.model.solr.FacetBucket;
+import at.srfg.indexing.model.solr.FacetResult;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import junit.framework.TestCase;
+
+public class JsonFacetTest extends TestCase {
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private Search search() {
+		return new Search("*:*")
+				.facetField("classificationClass", "nameSpace")
+				.facetLimit(10)
+				.facetLimit("classificationClass", 50)
+				.facetRange(IClassType.LEVEL_FIELD, 0, 10, 2)
+				.facetPivot("classificationClass", "EUR_price");
+	}
+	public void testToJsonFacet() throws Exception {
+		Search search = search();
+		assertTrue(search.getFacet().isJsonFacet());
+		assertFalse(new Search().facetField("nameSpace").getFacet().isJsonFacet());
+		assertEquals(50, search.getFacetLimit("classificationClass"));
+		assertEquals(10, search.getFacetLimit("nameSpace"));
+
+		String json = mapper.writeValueAsString(search.getFacet().toJsonFacet());
+		assertEquals("{"
+				+ "\"classificationClass\":{\"type\":\"terms\",\"field\":\"classificationClass\",\"limit\":50,\"mincount\":1},"
+				+ "\"nameSpace\":{\"type\":\"terms\",\"field\":\"nameSpace\",\"limit\":10,\"mincount\":1},"
+				+ "\"level:range\":{\"type\":\"range\",\"field\":\"level\",\"start\":0,\"end\":10,\"gap\":2},"
+				+ "\"classificationClass,EUR_price\":{\"type\":\"terms\",\"field\":\"classificationClass\",\"limit\":50,\"mincount\":1,"
+				+ "\"facet\":{\"EUR_price\":{\"type\":\"terms\",\"field\":\"EUR_price\",\"limit\":10,\"mincount\":1}}}"
+				+ "}", json);
+	}
+	public void testCopy() {
+		Search search = search();
+		Search copy = new Search(search);
+		assertEquals(search, copy);
+		assertEquals(search.hashCode(), copy.hashCode());
+		copy.facetRange("EUR_price", 0, 100, 10);
+		assertFalse(search.equals(copy));
+		assertEquals(1, search.getFacet().getRange().size());
+	}
+	private static NamedList<Object> bucket(Object val, long count) {
+		NamedList<Object> bucket = new SimpleOrderedMap<>();
+		bucket.add("val", val);
+		bucket.add("count", count);
+		return bucket;
+	}
+	private static NamedList<Object> buckets(NamedList<?> ...buckets) {
+		NamedList<Object> facet = new SimpleOrderedMap<>();
+		facet.add("buckets", Arrays.asList(buckets));
+		return facet;
+	}
+	public void testWithJsonFacets() {
+		NamedList<Object> nested = bucket("urn:c1", 7);
+		nested.add("EUR_price", buckets(bucket(12.5, 4), bucket(20.0, 3)));
+
+		NamedList<Object> response = new SimpleOrderedMap<>();
+		response.add("count", 9);
+		response.add("classificationClass", buckets(bucket("urn:c2", 2), bucket("urn:c1", 7)));
+		response.add("nameSpace", buckets());
+		response.add("level:range", buckets(bucket(0, 1), bucket(2, 8)));
+		response.add("classificationClass,EUR_price", buckets(nested));
+
+		SearchResult<Object> result = new SearchResult<>(Collections.emptyList())
+				.withJsonFacets(search().getFacet(), response);
+		FacetResult classes = result.getFacets().get("classificationClass");
+		assertEquals("urn:c1", classes.getEntry().iterator().next().getLabel());
+		assertEquals(2, classes.getEntry().size());
+		assertFalse(result.getFacets().containsKey("nameSpace"));
+		assertFalse(result.getFacets().containsKey("level"));
+
+		List<FacetBucket> level = result.getBuckets().get("level");
+		assertEquals(2, level.size());
+		assertEquals(2, level.get(1).getVal());
+		assertEquals(8, level.get(1).getCount());
+		assertNull(level.get(1).getFacets());
+
+		List<FacetBucket> pivot = result.getBuckets().get("classificationClass,EUR_price");
+		assertEquals("urn:c1", pivot.get(0).getVal());
+		Map<String, List<FacetBucket>> prices = pivot.get(0).getFacets();
+		assertEquals(2, prices.get("EUR_price").size());
+		assertEquals(4, prices.get("EUR_price").get(0).getCount());
+	}
+	public void testFieldAndRangeFacet() throws Exception {
+		Search search = new Search("*:*")
+				.facetField(IClassType.LEVEL_FIELD)
+				.facetRange(IClassType.LEVEL_FIELD, 0, 10, 5);
+		Map<String, Object> json = search.getFacet().toJsonFacet();
+		assertEquals(2, json.size());
+		
+		NamedList<Object> response = new SimpleOrderedMap<>();
+		response.add("level", buckets(bucket(3, 4), bucket(1, 2)));
+		response.add("level:range", buckets(bucket(0, 6), bucket(5, 0)));
+		SearchResult<Object> result = new SearchResult<>(Collections.emptyList())
+				.withJsonFacets(search.getFacet(), response);
+		assertEquals(2, result.getFacets().get("level").getEntry().size());
+		assertEquals(6, result.getBuckets().get("level").get(0).getCount());
+	}
+}
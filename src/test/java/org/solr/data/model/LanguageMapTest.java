@@ -0,0 +1,112 @@
+package org.solr.data.model;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.collection.LanguageMap;
+import at.srfg.indexing.model.common.collection.StringArraySet;
+import junit.framework.TestCase;
+
+/**
+ * Compares {@link LanguageMap} and {@link StringArraySet} with {@link HashMap} and {@link HashSet}
+ */
+public class LanguageMapTest extends TestCase {
+	private static final String[] LANGUAGES = new String[] { "en", "de", "es", "fr", "it", null };
+
+	public void testLanguageMap() {
+		Random random = new Random(8L);
+		Map<String, String> expected = new HashMap<>();
+		LanguageMap<String> actual = new LanguageMap<>();
+		for (int i = 0; i < 2000; i++) {
+			String language = LANGUAGES[random.nextInt(LANGUAGES.length)];
+			if ( random.nextInt(3) == 0 ) {
+				assertEquals(expected.remove(language), actual.remove(language));
+			}
+			else {
+				assertEquals(expected.put(language, "label" + i), actual.put(language, "label" + i));
+			}
+			assertEquals(expected, actual);
+			assertEquals(expected.hashCode(), actual.hashCode());
+			assertEquals(expected.containsKey(language), actual.containsKey(language));
+		}
+		actual.entrySet().removeIf(e -> e.getKey() == null || e.getKey().startsWith("e"));
+		expected.entrySet().removeIf(e -> e.getKey() == null || e.getKey().startsWith("e"));
+		assertEquals(expected, actual);
+		assertEquals(expected, new LanguageMap<>(expected));
+	}
+	public void testLanguageMapOrder() {
+		LanguageMap<String> map = new LanguageMap<>();
+		map.put("fr", "rouge");
+		map.put(null, "red");
+		map.put("de", "rot");
+		assertEquals(Arrays.asList(null, "de", "fr"), Arrays.asList(map.keySet().toArray()));
+		assertEquals("red", map.get(null));
+		assertNull(map.get(Integer.valueOf(1)));
+		// language codes are interned
+		assertSame("de", map.keySet().stream().filter("de"::equals).findFirst().get());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			entry.setValue(entry.getValue().toUpperCase());
+		}
+		assertEquals("ROT", map.get("de"));
+		Iterator<String> iterator = map.keySet().iterator();
+		map.put("it", "rosso");
+		try {
+			iterator.next();
+			fail("Concurrent modification not detected");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+	}
+	public void testStringArraySet() {
+		Random random = new Random(9L);
+		Set<String> expected = new HashSet<>();
+		StringArraySet actual = new StringArraySet();
+		for (int i = 0; i < 2000; i++) {
+			String value = random.nextInt(10) == 0 ? null : "label" + random.nextInt(8);
+			if ( random.nextInt(3) == 0 ) {
+				assertEquals(expected.remove(value), actual.remove(value));
+			}
+			else {
+				assertEquals(expected.add(value), actual.add(value));
+			}
+			assertEquals(expected, actual);
+			assertEquals(expected.contains(value), actual.contains(value));
+		}
+		expected.removeIf(v -> v == null || v.endsWith("1"));
+		actual.removeIf(v -> v == null || v.endsWith("1"));
+		assertEquals(expected, actual);
+	}
+	public void testInterningStringArraySet() {
+		StringArraySet set = new StringArraySet(true);
+		String language = new String("en");
+		assertTrue(set.add(language));
+		assertFalse(set.add("en"));
+		assertTrue(set.add("de"));
+		assertTrue(set.add(null));
+		// insertion order, interned values
+		assertEquals(Arrays.asList("en", "de", null), Arrays.asList(set.toArray()));
+		assertSame("en", set.iterator().next());
+		assertNotSame(language, set.iterator().next());
+		assertEquals(new StringArraySet(Arrays.asList("de", "en", null)), set);
+	}
+	public void testNullLanguage() {
+		ClassType concept = new ClassType();
+		concept.setLabel("label", (String) null);
+		concept.addAlternateLabel(null, "alternate");
+		concept.addComment(null, "comment");
+		concept.setLabel("Label", "en");
+		assertEquals("label", concept.getLabel().get(null));
+		assertEquals("Label", concept.getLabel().get("en"));
+		assertTrue(concept.getAlternateLabel().get(null).contains("alternate"));
+		assertEquals(new HashSet<>(Arrays.asList(null, "en")), new HashSet<>(concept.getLanguages()));
+	}
+}
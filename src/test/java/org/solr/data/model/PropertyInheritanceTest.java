@@ -0,0 +1,167 @@
+package org.solr.data.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.hierarchy.PropertyInheritance;
+import at.srfg.indexing.hierarchy.TaxonomyGraph;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.SearchResult;
+import junit.framework.TestCase;
+
+public class PropertyInheritanceTest extends TestCase {
+	private final AtomicInteger searches = new AtomicInteger();
+	private final List<ClassType> classes = new ArrayList<>();
+	private final List<PropertyType> properties = new ArrayList<>();
+	
+	private void classType(String uri, String parent, String ... properties) {
+		ClassType c = new ClassType();
+		c.setUri(uri);
+		if ( parent != null ) {
+			c.addParent(parent);
+		}
+		c.setProperties(Arrays.asList(properties));
+		classes.add(c);
+	}
+	private void property(String uri, String ... classes) {
+		PropertyType p = new PropertyType();
+		p.setUri(uri);
+		p.setConceptClass(new HashSet<>(Arrays.asList(classes)));
+		properties.add(p);
+	}
+	/**
+	 * Extremely simplified terms filter evaluation
+	 */
+	private <T> ResponseEntity<?> search(List<T> documents, String filter, java.util.function.Function<T, java.util.Collection<String>> field) {
+		searches.incrementAndGet();
+		List<String> terms = Arrays.asList(filter.substring(filter.indexOf('}') + 1).split(","));
+		List<T> result = new ArrayList<>();
+		for (T document : documents) {
+			if (! java.util.Collections.disjoint(field.apply(document), terms)) {
+				result.add(document);
+			}
+		}
+		SearchResult<T> r = new SearchResult<>(result);
+		return ResponseEntity.ok(r);
+	}
+	
+	public void testResolve() throws Exception {
+		classType("a", null, "p1");
+		classType("b", "a", "p2");
+		classType("c", "b");
+		classType("x", null, "p9");
+		property("p3", "b");
+		property("p4", "c", "x");
+		TaxonomyGraph.Builder builder = new TaxonomyGraph.Builder();
+		classes.forEach(builder::add);
+		TaxonomyGraph graph = builder.build(false);
+		
+		PropertyInheritance inheritance = new PropertyInheritance(
+				s -> search(classes, s.getFilterQuery().get(0), c -> Arrays.asList(c.getUri())),
+				s -> search(properties, s.getFilterQuery().get(0), PropertyType::getConceptClass),
+				() -> graph, 100);
+		assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "p3", "p4")), inheritance.resolve("c"));
+		assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "p3")), inheritance.resolve("b"));
+		assertEquals(4, searches.get());
+		// cached
+		inheritance.resolve("c");
+		assertEquals(4, searches.get());
+		// modifying b invalidates b and c
+		classes.get(1).setProperties(Arrays.asList("p5"));
+		inheritance.invalidateClass("b");
+		assertEquals(new HashSet<>(Arrays.asList("p1", "p5", "p3", "p4")), inheritance.resolve("c"));
+		assertEquals(6, searches.get());
+		// modifying p4 invalidates c and x
+		inheritance.resolve("x");
+		properties.get(1).setConceptClass(new HashSet<>(Arrays.asList("x")));
+		inheritance.invalidateProperty("p4");
+		assertEquals(new HashSet<>(Arrays.asList("p1", "p5", "p3")), inheritance.resolve("c"));
+		inheritance.resolve("b");
+		assertEquals(new HashSet<>(Arrays.asList("p9", "p4")), inheritance.resolve("x"));
+		assertEquals(14, searches.get());
+	}
+	public void testGraphChange() throws Exception {
+		classType("a", null, "p1");
+		classType("b", null, "p2");
+		classType("c", "a");
+		TaxonomyGraph.Builder builder = new TaxonomyGraph.Builder();
+		classes.forEach(builder::add);
+		AtomicReference<TaxonomyGraph> graph = new AtomicReference<>(builder.build(false));
+		AtomicInteger modified = new AtomicInteger();
+		
+		PropertyInheritance inheritance = new PropertyInheritance(
+				s -> search(classes, s.getFilterQuery().get(0), c -> Arrays.asList(c.getUri())),
+				s -> search(properties, s.getFilterQuery().get(0), PropertyType::getConceptClass),
+				graph::get, 100, 60)
+				.onClassModified(modified::incrementAndGet);
+		assertEquals(new HashSet<>(Arrays.asList("p1")), inheritance.resolve("c"));
+		// c moved below b, resolved with the stale graph until reloaded
+		classes.get(2).setParents(new HashSet<>(Arrays.asList("b")));
+		inheritance.invalidateClass("c");
+		assertEquals(1, modified.get());
+		assertEquals(new HashSet<>(Arrays.asList("p1")), inheritance.resolve("c"));
+		int before = searches.get();
+		assertEquals(new HashSet<>(Arrays.asList("p1")), inheritance.resolve("c"));
+		assertEquals(before, searches.get());
+		// the reloaded graph replaces all resolved sets
+		TaxonomyGraph.Builder reloaded = new TaxonomyGraph.Builder();
+		classes.forEach(reloaded::add);
+		graph.set(reloaded.build(false));
+		assertEquals(new HashSet<>(Arrays.asList("p2")), inheritance.resolve("c"));
+	}
+	public void testInvalidatePropertyAfterRecompute() throws Exception {
+		classType("a", null, "p1");
+		classType("b", "a");
+		TaxonomyGraph.Builder builder = new TaxonomyGraph.Builder();
+		classes.forEach(builder::add);
+		TaxonomyGraph graph = builder.build(false);
+		
+		PropertyInheritance inheritance = new PropertyInheritance(
+				s -> search(classes, s.getFilterQuery().get(0), c -> Arrays.asList(c.getUri())),
+				s -> search(properties, s.getFilterQuery().get(0), PropertyType::getConceptClass),
+				() -> graph, 100);
+		inheritance.resolve("b");
+		// the replaced set keeps b registered with p1
+		inheritance.invalidateClass("b");
+		inheritance.resolve("b");
+		property("p1", "x");
+		classes.get(0).setProperties(Arrays.asList("p2"));
+		inheritance.invalidateProperty("p1");
+		assertEquals(new HashSet<>(Arrays.asList("p2")), inheritance.resolve("b"));
+	}
+	public void testGraphChangeWhileResolving() throws Exception {
+		classType("a", null, "p1");
+		classType("b", null, "p2");
+		classType("c", "a");
+		TaxonomyGraph.Builder builder = new TaxonomyGraph.Builder();
+		classes.forEach(builder::add);
+		AtomicReference<TaxonomyGraph> graph = new AtomicReference<>(builder.build(false));
+		AtomicReference<PropertyInheritance> inheritance = new AtomicReference<>();
+		AtomicInteger reloads = new AtomicInteger();
+		
+		inheritance.set(new PropertyInheritance(
+				s -> {
+					if ( reloads.getAndIncrement() == 0 ) {
+						// c moved below b, the reloaded graph is used by another request
+						classes.get(2).setParents(new HashSet<>(Arrays.asList("b")));
+						TaxonomyGraph.Builder reloaded = new TaxonomyGraph.Builder();
+						classes.forEach(reloaded::add);
+						graph.set(reloaded.build(false));
+						inheritance.get().resolve("b");
+					}
+					return search(classes, s.getFilterQuery().get(0), c -> Arrays.asList(c.getUri()));
+				},
+				s -> search(properties, s.getFilterQuery().get(0), PropertyType::getConceptClass),
+				graph::get, 100));
+		// resolved with the former graph, but not cached
+		assertEquals(new HashSet<>(Arrays.asList("p1")), inheritance.get().resolve("c"));
+		assertEquals(new HashSet<>(Arrays.asList("p2")), inheritance.get().resolve("c"));
+	}
+}
@@ -0,0 +1,111 @@
+package org.solr.data.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.solr.FacetBucket;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.support.SearchResultWriter;
+import junit.framework.TestCase;
+
+public class SearchResultWriterTest extends TestCase {
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private SearchResult<ClassType> result(boolean complete) {
+		List<ClassType> documents = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			ClassType c = new ClassType();
+			c.setUri("urn:c" + i);
+			c.setLevel(i);
+			documents.add(c);
+		}
+		SearchResult<ClassType> result = new SearchResult<>(documents);
+		result.setTotalElements(30);
+		result.setTotalPages(10);
+		if ( complete ) {
+			result.addFacet("nameSpace", "urn:", 3);
+			Map<String, List<FacetBucket>> buckets = new LinkedHashMap<>();
+			buckets.put("level", Arrays.asList(new FacetBucket(0, 1), new FacetBucket(1, 2)));
+			result.setBuckets(buckets);
+			result.withCursor("*", "AoE=");
+		}
+		return result;
+	}
+	private void assertStreamed(SearchResult<ClassType> result) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SearchResultWriter.stream(mapper, result, result.getResult().iterator()).writeTo(out);
+		assertEquals(mapper.readTree(mapper.writeValueAsBytes(result)), mapper.readTree(out.toByteArray()));
+	}
+	public void testSameAsJackson() throws Exception {
+		assertStreamed(result(true));
+		assertStreamed(result(false));
+	}
+	public void testAborted() throws Exception {
+		SearchResult<ClassType> result = result(false);
+		Iterator<ClassType> failing = new Iterator<ClassType>() {
+			private final Iterator<ClassType> delegate = result.getResult().iterator();
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+			@Override
+			public ClassType next() {
+				if ( delegate.hasNext()) {
+					return delegate.next();
+				}
+				throw new IllegalStateException("Solr response broken");
+			}
+		};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			SearchResultWriter.write(mapper, result, failing, out);
+			fail("Exception expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		// the incomplete result is not valid JSON
+		try {
+			mapper.readTree(out.toByteArray());
+			fail("Incomplete result parsed");
+		} catch (Exception e) {
+			// expected
+		}
+	}
+	public void testEmpty() throws Exception {
+		assertStreamed(new SearchResult<>(Collections.<ClassType>emptyList()));
+	}
+	public void testStreamNotClosed() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean();
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		};
+		SearchResult<ClassType> result = result(true);
+		SearchResultWriter.write(mapper, result, result.getResult().iterator(), out);
+		assertFalse(closed.get());
+		assertEquals(mapper.readTree(mapper.writeValueAsBytes(result)), mapper.readTree(out.toByteArray()));
+	}
+	public void testApplicationMapper() throws Exception {
+		ObjectMapper application = new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE);
+		SearchResult<ClassType> result = result(false);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SearchResultWriter.write(application, result, result.getResult().iterator(), out);
+		JsonNode written = mapper.readTree(out.toByteArray()).get("result").get(0);
+		assertEquals("urn:c0", written.get("Uri").asText());
+		assertNull(written.get("uri"));
+	}
+}
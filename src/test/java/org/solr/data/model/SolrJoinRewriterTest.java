@@ -0,0 +1,39 @@
+package org.solr.data.model;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.CodedType;
+import at.srfg.indexing.model.common.PropertyType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SolrJoinRewriter;
+import junit.framework.TestCase;
+
+public class SolrJoinRewriterTest extends TestCase {
+	private final SolrJoinRewriter rewriter = SolrJoinRewriter.of(ClassType.class, PropertyType.class, CodedType.class);
+	
+	public void testJoinTable() {
+		assertEquals("classificationClass", rewriter.getJoins(PropertyType.class).get("concept_class").getTo());
+		assertEquals("id", rewriter.getJoins(PropertyType.class).get("concept_class").getFrom());
+		assertEquals("property", rewriter.getJoins(ClassType.class).get("property").getFromIndex());
+		assertTrue(rewriter.getJoins(CodedType.class).isEmpty());
+		assertEquals(rewriter.getJoins(PropertyType.class).keySet(), 
+				SolrJoinRewriter.scan("at.srfg.indexing.model").getJoins(PropertyType.class).keySet());
+	}
+	
+	public void testRewrite() {
+		assertEquals("{!join to=classificationClass from=id fromIndex=concept_class}en_label:Pump*", 
+				rewriter.rewrite(PropertyType.class, "concept_class.en_label:Pump*"));
+		assertEquals("en_label:x AND _query_:\"{!join to=classificationClass from=id fromIndex=concept_class}en_label:\\\"a b\\\"\"", 
+				rewriter.rewrite(PropertyType.class, "en_label:x AND concept_class.en_label:\"a b\""));
+		assertEquals("(_query_:\"{!join to=classificationClass from=id fromIndex=concept_class}level:[1 TO 2]\" OR id:a)", 
+				rewriter.rewrite(PropertyType.class, "(concept_class.level:[1 TO 2] OR id:a)"));
+		// no join name, quoted, other collections
+		assertEquals("en_label:\"concept_class.x:y\"", rewriter.rewrite(PropertyType.class, "en_label:\"concept_class.x:y\""));
+		assertEquals("unknown.en_label:x", rewriter.rewrite(PropertyType.class, "unknown.en_label:x"));
+		assertEquals("concept_class.en_label:x", rewriter.rewrite(CodedType.class, "concept_class.en_label:x"));
+		
+		Search search = rewriter.rewrite(ClassType.class, new Search("property.en_label:Weight").filter("level:1", "-property.isFacet:false"));
+		assertEquals("{!join to=properties from=id fromIndex=property}en_label:Weight", search.getQuery());
+		assertEquals("level:1", search.getFilterQuery().get(0));
+		assertEquals("-_query_:\"{!join to=properties from=id fromIndex=property}isFacet:false\"", search.getFilterQuery().get(1));
+	}
+}
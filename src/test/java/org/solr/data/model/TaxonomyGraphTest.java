@@ -0,0 +1,143 @@
+package org.solr.data.model;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import at.srfg.indexing.CoalescingIndexingService;
+import at.srfg.indexing.IndexingService;
+import at.srfg.indexing.hierarchy.ClassHierarchy;
+import at.srfg.indexing.hierarchy.HierarchyCycleException;
+import at.srfg.indexing.hierarchy.TaxonomyGraph;
+import at.srfg.indexing.hierarchy.TaxonomyGraphLoader;
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import junit.framework.TestCase;
+
+public class TaxonomyGraphTest extends TestCase {
+	private List<ClassType> classes(int size, long seed) {
+		Random random = new Random(seed);
+		List<ClassType> classes = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			ClassType c = new ClassType();
+			c.setUri("c" + i);
+			for (int p = 0; i > 0 && p < random.nextInt(3); p++) {
+				c.addParent("c" + random.nextInt(i));
+			}
+			classes.add(c);
+		}
+		return classes;
+	}
+	
+	public void testQueries() {
+		List<ClassType> classes = classes(500, 7);
+		ClassHierarchy hierarchy = ClassHierarchy.of(classes.stream());
+		hierarchy.compute();
+		for (boolean offHeap : new boolean[] {false, true}) {
+			TaxonomyGraph graph = TaxonomyGraph.of(classes, offHeap);
+			assertEquals(500, graph.size());
+			for (ClassType c : classes) {
+				String uri = c.getUri();
+				assertEquals(hierarchy.getAllParents(uri), new HashSet<>(graph.ancestors(uri)));
+				assertEquals(hierarchy.getAllChildren(uri), new HashSet<>(graph.descendants(uri)));
+				assertEquals(hierarchy.getChildren(uri), new HashSet<>(graph.descendants(uri, 1)));
+				assertEquals(hierarchy.getAllChildren(uri).size(), graph.subtreeCount(uri));
+				assertEquals(hierarchy.getLevel(uri).intValue(), graph.level(uri));
+			}
+		}
+	}
+	
+	public void testLowestCommonAncestor() {
+		TaxonomyGraph graph = new TaxonomyGraph.Builder()
+				.add("b", "a").add("c", "b").add("d", "b").add("e", "a").add("f", "x")
+				.build(false);
+		assertEquals("b", graph.lowestCommonAncestor("c", "d"));
+		assertEquals("a", graph.lowestCommonAncestor("c", "e"));
+		assertEquals("b", graph.lowestCommonAncestor("b", "d"));
+		assertEquals("b", graph.lowestCommonAncestor("d", "b"));
+		assertNull(graph.lowestCommonAncestor("c", "f"));
+		assertEquals(Arrays.asList("b", "e", "c", "d"), graph.descendants("a"));
+		assertEquals(0, graph.level("unknown"));
+		try {
+			new TaxonomyGraph.Builder().add("a", "b").add("b", "a").add("c", "a").build(true);
+			fail("cycle not detected");
+		} catch (HierarchyCycleException e) {
+			assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), e.getUris());
+		}
+	}
+	
+	public void testLoader() throws Exception {
+		List<ClassType> classes = classes(2500, 3);
+		List<Integer> pages = new ArrayList<>();
+		TaxonomyGraphLoader loader = new TaxonomyGraphLoader(search -> {
+			pages.add(search.getStart());
+			int from = search.getStart() * search.getRows();
+			SearchResult<ClassType> result = new SearchResult<>(new ArrayList<>(
+					classes.subList(Math.min(from, classes.size()), Math.min(from + search.getRows(), classes.size()))));
+			result.setTotalElements(classes.size());
+			return ResponseEntity.ok(result);
+		}, false);
+		TaxonomyGraph graph = loader.get();
+		assertEquals(2500, graph.size());
+		assertSame(graph, loader.get());
+		assertEquals(3, pages.size());
+		assertNotSame(graph, loader.refresh());
+	}
+	public void testLoaderFailure() throws Exception {
+		AtomicBoolean available = new AtomicBoolean(true);
+		TaxonomyGraphLoader loader = new TaxonomyGraphLoader(search -> {
+			if (! available.get()) {
+				return ResponseEntity.status(503).build();
+			}
+			return ResponseEntity.ok(new SearchResult<>(classes(10, 4)));
+		}, false);
+		TaxonomyGraph graph = loader.get();
+		assertNull(loader.getLastFailure());
+		available.set(false);
+		try {
+			loader.refresh();
+			fail("Failure not reported");
+		} catch (IOException e) {
+			assertSame(e, loader.getLastFailure());
+		}
+		// the current graph is kept
+		assertSame(graph, loader.get());
+		available.set(true);
+		loader.refresh();
+		assertNull(loader.getLastFailure());
+	}
+	public void testLoaderLifecycle() throws Exception {
+		TaxonomyGraphLoader loader = new TaxonomyGraphLoader(search -> ResponseEntity.ok(new SearchResult<>(classes(10, 5))), false);
+		// nothing is loaded or scheduled until requested
+		assertFalse(loader.isStarted());
+		loader.start(3600);
+		try {
+			assertTrue(loader.isStarted());
+			assertEquals(10, loader.get().size());
+		} finally {
+			loader.stop();
+		}
+		assertFalse(loader.isStarted());
+	}
+	public void testNoTaxonomy() throws Exception {
+		IndexingService service = (IndexingService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {IndexingService.class},
+			(proxy, method, args) -> {
+				if ( "getTaxonomyGraph".equals(method.getName()) ) {
+					return null;
+				}
+				// the class collection is not loaded
+				throw new UnsupportedOperationException(method.getName());
+			});
+		IndexingService decorated = new CoalescingIndexingService(service);
+		assertEquals(HttpStatus.NOT_IMPLEMENTED, decorated.classSubtree("urn:c0", 0).getStatusCode());
+	}
+}
@@ -0,0 +1,148 @@
+package org.solr.data.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.srfg.indexing.model.common.ClassType;
+import at.srfg.indexing.model.common.IConcept;
+import at.srfg.indexing.model.solr.Search;
+import at.srfg.indexing.model.solr.SearchResult;
+import at.srfg.indexing.support.SearchFunction;
+import at.srfg.indexing.support.UriBatchLookup;
+import junit.framework.TestCase;
+
+public class UriBatchLookupTest extends TestCase {
+	private final ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * The URI's requested with each search
+	 */
+	private final List<List<String>> searches = Collections.synchronizedList(new ArrayList<>());
+	/**
+	 * Index holding all URI's except the ones containing <code>missing</code>, a
+	 * search fails when a requested URI contains <code>fail</code>.
+	 */
+	private final SearchFunction index = search -> {
+		String prefix = "{!terms f=" + IConcept.ID_FIELD + "}";
+		String fq = search.getFilterQuery().get(0);
+		assertTrue(fq.startsWith(prefix));
+		List<String> uris = Arrays.asList(fq.substring(prefix.length()).split(","));
+		searches.add(uris);
+		assertEquals(uris.size(), search.getRows());
+		List<ClassType> documents = new ArrayList<>();
+		for (String uri : uris) {
+			if ( uri.contains("fail")) {
+				throw new IllegalStateException("Solr unavailable");
+			}
+			if (! uri.contains("missing")) {
+				ClassType c = new ClassType();
+				c.setUri(uri);
+				documents.add(c);
+			}
+		}
+		return ResponseEntity.ok(new SearchResult<>(documents));
+	};
+	private static List<String> uris(String prefix, int count) {
+		List<String> uris = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			uris.add(prefix + i);
+		}
+		return uris;
+	}
+	private JsonNode lookup(UriBatchLookup lookup, List<String> uris) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		lookup.lookup(uris, index).writeTo(out);
+		return mapper.readTree(out.toByteArray());
+	}
+	private static Set<String> values(JsonNode array) {
+		Set<String> values = new HashSet<>();
+		for (JsonNode node : array) {
+			values.add(node.isObject() ? node.get("uri").asText() : node.asText());
+		}
+		return values;
+	}
+
+	public void testChunks() throws Exception {
+		List<String> uris = uris("urn:c", 2 * UriBatchLookup.CHUNK_SIZE + 50);
+		JsonNode result = lookup(new UriBatchLookup(mapper, Runnable::run), uris);
+		assertEquals(3, searches.size());
+		assertEquals(UriBatchLookup.CHUNK_SIZE, searches.get(0).size());
+		assertEquals(UriBatchLookup.CHUNK_SIZE, searches.get(1).size());
+		assertEquals(50, searches.get(2).size());
+		assertEquals(uris.size(), result.get("result").size());
+		assertEquals(new HashSet<>(uris), values(result.get("result")));
+		assertEquals(0, result.get("missing").size());
+		assertEquals(0, result.get("failed").size());
+	}
+	public void testMissingAndFailed() throws Exception {
+		List<String> uris = uris("urn:c", UriBatchLookup.CHUNK_SIZE);
+		uris.add("urn:missing1");
+		uris.addAll(uris("urn:d", UriBatchLookup.CHUNK_SIZE - 2));
+		uris.add("urn:fail");
+		uris.add("urn:missing2");
+		// duplicates are requested once
+		uris.add("urn:c0");
+		JsonNode result = lookup(new UriBatchLookup(mapper, Runnable::run), uris);
+		// the second chunk fails, its documents are not reported
+		assertEquals(3, searches.size());
+		assertEquals(new HashSet<>(uris("urn:c", UriBatchLookup.CHUNK_SIZE)), values(result.get("result")));
+		assertEquals(Collections.singleton("urn:missing2"), values(result.get("missing")));
+		Set<String> failed = values(result.get("failed"));
+		assertEquals(UriBatchLookup.CHUNK_SIZE, failed.size());
+		assertTrue(failed.contains("urn:missing1"));
+		assertTrue(failed.contains("urn:fail"));
+		assertFalse(failed.contains("urn:c0"));
+	}
+	public void testEmpty() throws Exception {
+		JsonNode result = lookup(UriBatchLookup.getDefault(), Collections.emptyList());
+		assertEquals(0, searches.size());
+		assertEquals(0, result.get("result").size());
+		assertEquals(0, result.get("missing").size());
+	}
+	public void testBoundedExecutor() throws Exception {
+		ThreadPoolExecutor executor = UriBatchLookup.boundedExecutor(1, 1, "test");
+		try {
+			CountDownLatch blocked = new CountDownLatch(1);
+			executor.execute(() -> {
+				try {
+					blocked.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			executor.execute(() -> {});
+			assertEquals(1, executor.getQueue().size());
+			// queue is full, the chunks are searched by the caller
+			List<String> uris = uris("urn:c", 2 * UriBatchLookup.CHUNK_SIZE);
+			JsonNode result = lookup(new UriBatchLookup(mapper, executor), uris);
+			assertEquals(uris.size(), result.get("result").size());
+			blocked.countDown();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	public void testTermsFilter() {
+		assertEquals("{!terms f=id}a,b", Search.termsFilter("id", Arrays.asList("a", "b")));
+		assertEquals("{!terms f=id separator=\"|\"}a,1|b", Search.termsFilter("id", Arrays.asList("a,1", "b")));
+		assertEquals("{!terms f=id separator=\" \"}a,1 b|2", Search.termsFilter("id", Arrays.asList("a,1", "b|2")));
+		assertEquals("{!terms f=id separator=\"\u001f\"}a,1\u001fb|2 c", Search.termsFilter("id", Arrays.asList("a,1", "b|2 c")));
+		try {
+			Search.termsFilter("id", Arrays.asList("a,1", "b|2 c", "d\u001f"));
+			fail("Corrupt filter created");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package org.solr.data.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import at.srfg.indexing.model.common.collection.DoubleValueSet;
+import at.srfg.indexing.model.common.collection.IntValueSet;
+import at.srfg.indexing.model.common.collection.MultiLingualValueSet;
+import junit.framework.TestCase;
+
+/**
+ * Compares the primitive value sets with {@link HashSet}
+ */
+public class ValueSetTest extends TestCase {
+	private static final double[] SPECIAL = new double[] { 0.0, -0.0, Double.NaN, 1.5, -1.5, Double.MAX_VALUE };
+	
+	public void testDoubleValueSet() {
+		Random random = new Random(6L);
+		Set<Double> expected = new HashSet<>();
+		DoubleValueSet actual = new DoubleValueSet();
+		for (int i = 0; i < 5000; i++) {
+			Double value = random.nextBoolean() 
+					? SPECIAL[random.nextInt(SPECIAL.length)] 
+					: Double.valueOf(random.nextInt(50));
+			if ( random.nextInt(4) == 0 ) {
+				assertEquals(expected.remove(value), actual.remove(value));
+			}
+			else {
+				assertEquals(expected.add(value), actual.add(value));
+			}
+			assertEquals(expected, actual);
+			assertEquals(expected.hashCode(), actual.hashCode());
+		}
+		Iterator<Double> iterator = actual.iterator();
+		while (iterator.hasNext()) {
+			if ( iterator.next() > 10.0 ) {
+				iterator.remove();
+			}
+		}
+		expected.removeIf(v -> v > 10.0);
+		assertEquals(expected, actual);
+	}
+	
+	public void testIntValueSet() {
+		Random random = new Random(7L);
+		Set<Integer> expected = new HashSet<>();
+		IntValueSet actual = new IntValueSet();
+		for (int i = 0; i < 5000; i++) {
+			Integer value = random.nextInt(100) - 50;
+			if ( random.nextInt(4) == 0 ) {
+				assertEquals(expected.remove(value), actual.remove(value));
+			}
+			else {
+				assertEquals(expected.add(value), actual.add(value));
+			}
+			assertEquals(expected, actual);
+		}
+		assertFalse(actual.contains(Long.valueOf(1)));
+	}
+	
+	public void testMultiLingualValueSet() {
+		MultiLingualValueSet set = new MultiLingualValueSet(Arrays.asList("red@en", "rot@de"));
+		assertTrue(set.add("crimson", "en"));
+		assertFalse(set.add("red@en"));
+		assertEquals(3, set.size());
+		assertTrue(set.contains("crimson@en"));
+		assertEquals(Arrays.asList("red", "crimson"), set.getValues("en"));
+		assertEquals(new HashSet<>(Arrays.asList("en", "de")), set.getLanguages());
+		assertEquals(Collections.emptyList(), set.getValues("es"));
+		// the index follows modifications
+		assertTrue(set.remove("red@en"));
+		assertEquals(Arrays.asList("crimson"), set.getValues("en"));
+		Iterator<String> iterator = set.iterator();
+		while (iterator.hasNext()) {
+			if ( iterator.next().endsWith("@de")) {
+				iterator.remove();
+			}
+		}
+		assertEquals(Collections.emptyList(), set.getValues("de"));
+		set.add("rouge", "fr");
+		assertEquals(Arrays.asList("rouge"), set.getValues("fr"));
+		set.clear();
+		assertTrue(set.getLanguages().isEmpty());
+		try {
+			set.getValues("en").add("red");
+			fail("Index must not be modifiable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+	public void testConcurrentRead() throws Exception {
+		for (int round = 0; round < 50; round++) {
+			MultiLingualValueSet set = new MultiLingualValueSet();
+			for (int i = 0; i < 100; i++) {
+				set.add("text" + i, i % 2 == 0 ? "en" : "de");
+			}
+			// readers race to build the index
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<Integer>> sizes = new ArrayList<>();
+				for (int t = 0; t < 8; t++) {
+					sizes.add(executor.submit(() -> set.getValues("en").size() + set.getValues("de").size()));
+				}
+				for (Future<Integer> size : sizes) {
+					assertEquals(100, size.get().intValue());
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+	public void testMultiLingualParts() {
+		assertEquals("red@en", MultiLingualValueSet.qualified("red", "en"));
+		assertEquals("en", MultiLingualValueSet.language("a@b@en"));
+		assertEquals("a@b", MultiLingualValueSet.text("a@b@en"));
+		assertNull(MultiLingualValueSet.text("red@"));
+		assertNull(MultiLingualValueSet.text("red"));
+	}
+}